@@ -0,0 +1,36 @@
+package com.example.moviepopularitybackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Configuration class that enables the background tasks of the application, such as
+ * prefetching upstream data, and gives them a small pool of their own so that a long
+ * running task does not delay the others.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    @Value("${scheduling.pool-size:4}")
+    private int poolSize;
+
+    /**
+     * Configures the scheduler used for the {@code @Scheduled} tasks of the application.
+     *
+     * @param registrar the registrar to which the scheduler is added.
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("background-");
+        scheduler.setDaemon(true);
+        scheduler.initialize();
+        registrar.setTaskScheduler(scheduler);
+    }
+}
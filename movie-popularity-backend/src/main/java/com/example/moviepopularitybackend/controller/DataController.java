@@ -1,28 +1,54 @@
 package com.example.moviepopularitybackend.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Year;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.moviepopularitybackend.model.ApiCodes;
 import com.example.moviepopularitybackend.model.CombinedDataByYear;
-import com.example.moviepopularitybackend.model.DataCombiner;
-import com.example.moviepopularitybackend.model.MovieStatistics;
-import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.model.CombinedDataQuery;
+import com.example.moviepopularitybackend.model.CombinedDataSeries;
+import com.example.moviepopularitybackend.model.PreferenceSeries;
+import com.example.moviepopularitybackend.model.PreferencesPage;
 import com.example.moviepopularitybackend.model.UserPreferences;
+import com.example.moviepopularitybackend.services.CombinedDataService;
+import com.example.moviepopularitybackend.services.DashboardService;
 import com.example.moviepopularitybackend.services.SaveService;
-import com.example.moviepopularitybackend.services.TmdbService;
-import com.example.moviepopularitybackend.services.UnPopulationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
 
 /**
  * The DataController class handles API requests related to combining
@@ -36,68 +62,306 @@ import com.example.moviepopularitybackend.services.UnPopulationService;
 public class DataController {
 
     @Autowired
-    private DataCombiner dataCombiner;
+    private CombinedDataService combinedDataService;
 
     @Autowired
-    private TmdbService tmdbService;
+    private SaveService saveService;
 
     @Autowired
-    private UnPopulationService unPopulationService;
+    private DashboardService dashboardService;
 
     @Autowired
-    private SaveService saveService;
+    private ApiCodes apiCodes;
 
     @Autowired
-    private ApiCodes apiCodes;
+    private ObjectMapper objectMapper;
+
+    @Value("${combined-data.stream.timeout:120s}")
+    private Duration streamTimeout;
+
+    @Value("${combined-data.batch.max-queries:25}")
+    private int batchMaxQueries;
+
+    /** The largest number of years in one query, every year of a query is an upstream fetch. */
+    @Value("${combined-data.max-year-span:100}")
+    private int maxYearSpan;
+
+    @Value("${preferences.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${http-cache.code-mappings.max-age:1d}")
+    private Duration codeMappingsMaxAge;
+
+    @Value("${http-cache.combined-data.max-age:1h}")
+    private Duration combinedDataMaxAge;
+
+    /** Max age of combined data that includes the current year, whose movie counts still change. */
+    @Value("${http-cache.combined-data.current-year-max-age:5m}")
+    private Duration combinedDataCurrentYearMaxAge;
+
+    /** The code mappings never change while the application runs, they are built once. */
+    private Map<String, Map<String, String>> codeMappings;
+    private String codeMappingsETag;
+
+    /**
+     * Builds the code mappings and their entity tag, a hash of their JSON, once the
+     * configuration values have been injected.
+     */
+    @PostConstruct
+    void init() throws JsonProcessingException, NoSuchAlgorithmException {
+        Map<String, Map<String, String>> mappings = new HashMap<>();
+        mappings.put("countries", Collections.unmodifiableMap(apiCodes.getCountryCodeMap()));
+        mappings.put("movieCountries", Collections.unmodifiableMap(apiCodes.getMovieCountryCodeMap()));
+        mappings.put("genres", Collections.unmodifiableMap(apiCodes.getGenreCodeMap()));
+        mappings.put("indicators", Collections.unmodifiableMap(apiCodes.getIndicatorCodeMap()));
+        codeMappings = Collections.unmodifiableMap(mappings);
+        codeMappingsETag = entityTag(codeMappings);
+    }
+
+    /**
+     * Builds a strong entity tag from a hash of the JSON of a response body, so the tag only
+     * changes when the body does.
+     */
+    private String entityTag(Object body) throws JsonProcessingException, NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8));
+        return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+    }
 
     /**
      * Fetches combined data for movies and population statistics based on the
      * provided
      * parameters such as country, genre, start year, end year, and indicator.
+     * Concurrent identical requests share a single computation.
+     * The response carries an entity tag derived from when the cached upstream data of the
+     * query was stored, so a conditional request for unchanged data is answered with 304 Not
+     * Modified without computing the data. When some of that data is not cached, the tag is a
+     * hash of the returned data instead. Incomplete or stale data gets no tag and is not cached
+     * by clients, so that the missing years are fetched again by the next request.
      * 
+     * @param country     The name of the country for which to fetch data.
+     * @param genre       The genre of the movies for which to fetch data.
+     * @param startYear   The starting year of the data range.
+     * @param endYear     The ending year of the data range.
+     * @param indicator   The population indicator for which to fetch data.
+     * @param ifNoneMatch The entity tags of the data the client already has, if any.
+     * @return A TreeMap with the combined data by year, where the key is the year
+     *         and the value is the combined movie and population statistics for
+     *         that year, or no body with status 304 if the client's data is current.
+     * @throws ResponseStatusException with status 400 if the range has more than
+     *                                 {@code combined-data.max-year-span} years.
+     */
+    @GetMapping("/combinedData")
+    public ResponseEntity<TreeMap<Integer, CombinedDataByYear>> getCombinedData(@RequestParam String country,
+            @RequestParam String genre,
+            @RequestParam int startYear,
+            @RequestParam int endYear,
+            @RequestParam String indicator,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        checkYearSpan(startYear, endYear);
+        CacheControl cacheControl = CacheControl.maxAge(
+                endYear >= Year.now().getValue() ? combinedDataCurrentYearMaxAge : combinedDataMaxAge).cachePublic();
+        // The tag is read before the data is computed, see CombinedDataService#getCombinedDataETag
+        String eTag = combinedDataService.getCombinedDataETag(country, genre, startYear, endYear, indicator);
+        if (eTag != null && matches(ifNoneMatch, eTag)) {
+            System.out.println("GET /Country and Movie data not modified.");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        TreeMap<Integer, CombinedDataByYear> combinedData = combinedDataService.getCombinedData(country, genre,
+                startYear, endYear, indicator);
+        System.out.println("GET /Fetched Country and Movie data.");
+        if (!isComplete(combinedData, startYear, endYear)) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(combinedData);
+        }
+        if (eTag != null) {
+            return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl).body(combinedData);
+        }
+        try {
+            eTag = entityTag(combinedData);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(combinedData);
+        }
+        if (matches(ifNoneMatch, eTag)) {
+            System.out.println("GET /Country and Movie data not modified.");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl).body(combinedData);
+    }
+
+    /**
+     * Checks that a year range has at most {@code combined-data.max-year-span} years.
+     *
+     * @throws ResponseStatusException with status 400 if the range has more years.
+     */
+    private void checkYearSpan(int startYear, int endYear) {
+        if ((long) endYear - startYear + 1 > maxYearSpan) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A year range can have at most " + maxYearSpan + " years");
+        }
+    }
+
+    /**
+     * Checks whether combined data has every year of its range and none of them is stale.
+     */
+    private static boolean isComplete(TreeMap<Integer, CombinedDataByYear> combinedData, int startYear,
+            int endYear) {
+        if (combinedData.size() != endYear - startYear + 1) {
+            return false;
+        }
+        for (CombinedDataByYear year : combinedData.values()) {
+            if (year.isStale()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks an If-None-Match header against an entity tag, with the weak comparison that
+     * RFC 9110 prescribes for If-None-Match.
+     *
+     * @param ifNoneMatch The value of the header, or null if the request has none.
+     * @param eTag        The quoted entity tag of the current data.
+     * @return true if the header lists the tag or is a wildcard.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String tag = eTag.substring(1, eTag.length() - 1);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.tag().equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Non-blocking variant of {@link #getCombinedData}. The request thread is released
+     * while the TMDB and UN requests are in flight, and the response is written once the
+     * combined data is ready.
+     *
      * @param country   The name of the country for which to fetch data.
      * @param genre     The genre of the movies for which to fetch data.
      * @param startYear The starting year of the data range.
      * @param endYear   The ending year of the data range.
      * @param indicator The population indicator for which to fetch data.
-     * @return A TreeMap with the combined data by year, where the key is the year
-     *         and the value is the combined movie and population statistics for
-     *         that year.
+     * @return A CompletableFuture containing the combined data by year.
+     * @throws ResponseStatusException with status 400 if the range has more than
+     *                                 {@code combined-data.max-year-span} years.
      */
-    @GetMapping("/combinedData")
-    public TreeMap<Integer, CombinedDataByYear> getCombinedData(@RequestParam String country,
+    @GetMapping("/combinedData/async")
+    public CompletableFuture<TreeMap<Integer, CombinedDataByYear>> getCombinedDataAsync(
+            @RequestParam String country,
             @RequestParam String genre,
             @RequestParam int startYear,
             @RequestParam int endYear,
             @RequestParam String indicator) {
 
-        // Convert country name and genre to corresponding codes using ApiCodes
-        String countryCode = apiCodes.getCountryCodeMap().getOrDefault(country, "246");
-        String movieCountryCode = apiCodes.getMovieCountryCodeMap().getOrDefault(country, "fi");
-        String genreCode = apiCodes.getGenreCodeMap().getOrDefault(genre, "28");
+        checkYearSpan(startYear, endYear);
+        return combinedDataService.getCombinedDataAsync(country, genre, startYear, endYear, indicator)
+                .whenComplete((combinedData, error) -> System.out.println("GET /Fetched Country and Movie data."));
+    }
+
+    /**
+     * Streams combined data for movies and population statistics to the client as
+     * Server-Sent Events. Each year is sent as a "year" event as soon as both its movie and
+     * population data are ready, so the chart can be drawn while slower years are still
+     * being fetched. A final "complete" event marks the end of the stream.
+     *
+     * @param country   The name of the country for which to fetch data.
+     * @param genre     The genre of the movies for which to fetch data.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator for which to fetch data.
+     * @return An emitter sending one event per year.
+     * @throws ResponseStatusException with status 400 if the range has more than
+     *                                 {@code combined-data.max-year-span} years.
+     */
+    @GetMapping(value = "/combinedData/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCombinedData(@RequestParam String country,
+            @RequestParam String genre,
+            @RequestParam int startYear,
+            @RequestParam int endYear,
+            @RequestParam String indicator) {
 
-        // Fetch data for movies and population using the provided parameters
-        List<MovieStatistics> moviesData = tmdbService.fetchMovies(genreCode, movieCountryCode, startYear, endYear);
-        List<PopulationStatistics> populationData = unPopulationService.fetchIntervalData(countryCode, indicator,
-                startYear, endYear);
+        checkYearSpan(startYear, endYear);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        combinedDataService.streamCombinedData(country, genre, startYear, endYear, indicator, combined -> {
+            try {
+                emitter.send(SseEmitter.event().name("year").id(Integer.toString(combined.getYear()))
+                        .data(combined, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone away or the stream has timed out, the remaining years are dropped
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name("complete").data(""));
+                emitter.complete();
+                System.out.println("GET /Streamed Country and Movie data.");
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone away
+            }
+        });
+        return emitter;
+    }
 
-        // Combine the fetched movie and population data
-        TreeMap<Integer, CombinedDataByYear> combinedData = dataCombiner.combineData(moviesData, populationData);
-        System.out.println("GET /Fetched Country and Movie data.");
-        return combinedData;
+    /**
+     * Fetches the combined data of several queries in one request, e.g. to compare countries
+     * or genres. The TMDB and UN fetches are shared between the queries of the batch and run
+     * concurrently, and the response is written once every series is ready.
+     *
+     * @param queries The queries, each with a country, genre, indicator, start year and end year.
+     * @return A CompletableFuture containing one series per query, in the order of the queries.
+     * @throws ResponseStatusException with status 400 if the batch is empty, has more than
+     *                                 {@code combined-data.batch.max-queries} queries, or a query
+     *                                 is incomplete or has more than
+     *                                 {@code combined-data.max-year-span} years.
+     */
+    @PostMapping("/combinedData/batch")
+    public CompletableFuture<List<CombinedDataSeries>> getCombinedDataBatch(
+            @RequestBody List<CombinedDataQuery> queries) {
+        if (queries == null || queries.isEmpty() || queries.size() > batchMaxQueries) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch needs between 1 and " + batchMaxQueries + " queries");
+        }
+        for (CombinedDataQuery query : queries) {
+            if (query == null || query.getCountry() == null || query.getGenre() == null
+                    || query.getIndicator() == null || query.getStartYear() > query.getEndYear()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Every query needs a country, genre, indicator and a start year before its end year");
+            }
+            checkYearSpan(query.getStartYear(), query.getEndYear());
+        }
+        return combinedDataService.getCombinedDataBatch(queries)
+                .whenComplete((series, error) -> System.out.println("POST /Fetched Country and Movie data for "
+                        + queries.size() + " queries."));
     }
 
     /**
      * Saves user preferences provided in the request body.
      * 
      * @param preferences The UserPreferences object containing the user's settings.
-     * @return A map with the status of the save operation.
+     * @return A map with the status of the save operation and the id of the saved preference.
+     * @throws ResponseStatusException with status 500 if the preference could not be written.
      */
     @PostMapping("/api/preferences")
     public Map<String, String> savePreferences(@RequestBody UserPreferences preferences) {
-        saveService.SavetoFile(preferences);
+        long id;
+        try {
+            id = saveService.savePreference(preferences);
+        } catch (UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Preferences could not be saved", e);
+        }
         System.out.println("POST /Preferences saved to system.");
-        return Map.of("status", "Preferences saved");
+        return Map.of("status", "Preferences saved", "id", Long.toString(id));
     }
 
     /**
@@ -112,32 +376,124 @@ public class DataController {
         return preferences;
     }
 
+    /**
+     * Fetches one page of the saved user preferences, in the order they were saved.
+     * Used instead of {@link #getPreferences()} when the page parameter is given.
+     * 
+     * @param page The number of the page, starting from 0.
+     * @param size The maximum number of preferences on the page.
+     * @return The page of preferences with the total number of preferences.
+     * @throws ResponseStatusException with status 400 if the page is negative or the size
+     *                                 is not between 1 and {@code preferences.page.max-size}.
+     */
+    @GetMapping(value = "/api/preferences", params = "page")
+    public PreferencesPage<UserPreferences> getPreferencesPage(@RequestParam int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be 0 or more and size between 1 and " + maxPageSize);
+        }
+        return saveService.getPreferencesPage(page, size);
+    }
+
+    /**
+     * Fetches the combined data of every saved preference, or of one page of them, in one
+     * request. Used by the frontend on startup instead of one {@link #getCombinedData} request
+     * per saved preference; the upstream fetches are shared between the preferences.
+     * 
+     * @param page The number of the page, starting from 0, or null for every saved preference.
+     * @param size The maximum number of preferences on the page.
+     * @return A CompletableFuture containing the page with one series per preference.
+     * @throws ResponseStatusException with status 400 if the page is negative or the size
+     *                                 is not between 1 and {@code preferences.page.max-size}.
+     */
+    @GetMapping("/api/preferences/dashboard")
+    public CompletableFuture<PreferencesPage<PreferenceSeries>> getDashboard(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page == null) {
+            return dashboardService.getDashboard()
+                    .whenComplete((dashboard, error) -> System.out.println("GET /Fetched preferences dashboard."));
+        }
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be 0 or more and size between 1 and " + maxPageSize);
+        }
+        return dashboardService.getDashboard(page, size)
+                .whenComplete((dashboard, error) -> System.out.println("GET /Fetched preferences dashboard."));
+    }
+
+    /**
+     * Fetches one saved user preference by its id.
+     * 
+     * @param id The id of the preference.
+     * @return The preference.
+     * @throws ResponseStatusException with status 404 if there is no preference with the id.
+     */
+    @GetMapping("/api/preferences/{id}")
+    public UserPreferences getPreference(@PathVariable long id) {
+        UserPreferences preference = saveService.getPreference(id);
+        if (preference == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No preference with id " + id);
+        }
+        return preference;
+    }
+
     /**
      * Deletes a user preference based on the provided index.
+     * Kept for clients that delete by position, {@link #deletePreference(long)} is not
+     * affected by preferences saved or deleted in between.
      * 
      * @param index The index of the preference to delete.
      * @return A map indicating whether the deletion was successful or if the index
      *         was invalid.
+     * @throws ResponseStatusException with status 500 if the deletion could not be written.
      */
     @DeleteMapping("/api/preferences")
     public Map<String, String> deletePreferences(@RequestParam int index) {
-        Set<UserPreferences> preferences = saveService.GetFileContents();
-        if (index >= 0 && index < preferences.size()) {
-            UserPreferences[] prefArray = preferences.toArray(new UserPreferences[0]);
-            preferences.remove(prefArray[index]);
-            saveService.SaveAllPreferences(preferences);
+        boolean deleted;
+        try {
+            deleted = saveService.deletePreference(index);
+        } catch (UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Preference could not be deleted", e);
+        }
+        if (deleted) {
             System.out.println("DELETE /Preferences deleted from system");
             return Map.of("status", "Preference deleted");
         }
         return Map.of("status", "Invalid index");
     }
 
+    /**
+     * Deletes a user preference by its id.
+     * 
+     * @param id The id of the preference to delete.
+     * @return A map with the status of the deletion.
+     * @throws ResponseStatusException with status 404 if there is no preference with the id, or
+     *                                 500 if the deletion could not be written.
+     */
+    @DeleteMapping("/api/preferences/{id}")
+    public Map<String, String> deletePreference(@PathVariable long id) {
+        boolean deleted;
+        try {
+            deleted = saveService.deletePreferenceById(id);
+        } catch (UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Preference could not be deleted", e);
+        }
+        if (!deleted) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No preference with id " + id);
+        }
+        System.out.println("DELETE /Preferences deleted from system");
+        return Map.of("status", "Preference deleted");
+    }
+
     /*
      * Endpoint to retrieve code mappings used for dropdown selection options in the
      * frontend.
      * This method provides mappings for country codes, movie country codes, genres,
      * and demographic indicators.
-     * The mappings are sourced from the {@link ApiCodes} Model class.
+     * The mappings are sourced from the {@link ApiCodes} Model class, built once on startup
+     * and sent with an entity tag, so a conditional request is answered with 304 Not Modified.
      *
      * @return A map containing multiple mappings:
      * - "countries": a mapping of country names to their ISO country codes.
@@ -145,15 +501,17 @@ public class DataController {
      * - "genres": a mapping of movie genres to their corresponding genre codes.
      * - "indicators": a mapping of demographic indicators to their respective
      * codes.
+     * Or no body with status 304 if the client's mappings are current.
      */
     @GetMapping("/api/codeMappings")
-    public Map<String, Map<String, String>> getCodeMappings() {
-        Map<String, Map<String, String>> codeMappings = new HashMap<>();
-        codeMappings.put("countries", apiCodes.getCountryCodeMap());
-        codeMappings.put("movieCountries", apiCodes.getMovieCountryCodeMap());
-        codeMappings.put("genres", apiCodes.getGenreCodeMap());
-        codeMappings.put("indicators", apiCodes.getIndicatorCodeMap());
+    public ResponseEntity<Map<String, Map<String, String>>> getCodeMappings(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CacheControl cacheControl = CacheControl.maxAge(codeMappingsMaxAge).cachePublic();
+        if (matches(ifNoneMatch, codeMappingsETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(codeMappingsETag).cacheControl(cacheControl)
+                    .build();
+        }
         System.out.println("GET /CodeMappings. Program has loaded succesfully and is ready to operate!");
-        return codeMappings;
+        return ResponseEntity.ok().eTag(codeMappingsETag).cacheControl(cacheControl).body(codeMappings);
     }
 }
@@ -0,0 +1,98 @@
+package com.example.moviepopularitybackend.controller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.moviepopularitybackend.services.CombinedDataService;
+import com.example.moviepopularitybackend.services.DashboardService;
+import com.example.moviepopularitybackend.services.PrefetchScheduler;
+import com.example.moviepopularitybackend.services.SaveService;
+import com.example.moviepopularitybackend.services.TmdbService;
+import com.example.moviepopularitybackend.services.UnPopulationService;
+import com.example.moviepopularitybackend.services.UpstreamExecutor;
+import com.example.moviepopularitybackend.services.UpstreamHttpClient;
+import com.example.moviepopularitybackend.services.WarmCacheStore;
+
+/**
+ * The MetricsController class exposes runtime counters of the backend, such as
+ * cache hit and miss counts, so that the behaviour of the service can be monitored.
+ */
+@RestController
+public class MetricsController {
+
+    @Autowired
+    private CombinedDataService combinedDataService;
+
+    @Autowired
+    private TmdbService tmdbService;
+
+    @Autowired
+    private UnPopulationService unPopulationService;
+
+    @Autowired
+    private UpstreamExecutor upstreamExecutor;
+
+    @Autowired
+    private UpstreamHttpClient upstreamHttpClient;
+
+    @Autowired
+    private WarmCacheStore warmCacheStore;
+
+    @Autowired
+    private PrefetchScheduler prefetchScheduler;
+
+    @Autowired
+    private SaveService saveService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    /**
+     * Fetches the current runtime counters of the backend.
+     *
+     * @return A map where the key is the name of a component and the value is a
+     *         map of its counters.
+     */
+    @GetMapping("/api/metrics")
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("tmdbCache", tmdbService.getCacheStats());
+        metrics.put("unCache", unPopulationService.getCacheStats());
+        metrics.put("warmCacheStore", warmCacheStore.getStats());
+        metrics.put("prefetch", prefetchScheduler.getStats());
+        metrics.put("preferences", saveService.getStats());
+        metrics.put("upstreamExecutor", upstreamExecutor.getStats());
+        metrics.put("httpClient", upstreamHttpClient.getStats());
+        Map<String, Object> coalescing = new LinkedHashMap<>();
+        coalescing.put("combinedData", combinedDataService.getCoalescingStats());
+        coalescing.put("tmdb", tmdbService.getCoalescingStats());
+        coalescing.put("un", unPopulationService.getCoalescingStats());
+        metrics.put("coalescing", coalescing);
+        metrics.put("batch", combinedDataService.getBatchStats());
+        metrics.put("dashboard", dashboardService.getStats());
+        Map<String, Object> retries = new LinkedHashMap<>();
+        retries.put("tmdb", tmdbService.getRetryStats());
+        retries.put("un", unPopulationService.getRetryStats());
+        metrics.put("retries", retries);
+        Map<String, Object> rateLimits = new LinkedHashMap<>();
+        rateLimits.put("tmdb", tmdbService.getRateLimitStats());
+        rateLimits.put("un", unPopulationService.getRateLimitStats());
+        metrics.put("rateLimits", rateLimits);
+        Map<String, Object> circuitBreakers = new LinkedHashMap<>();
+        circuitBreakers.put("tmdb", tmdbService.getCircuitBreakerStats());
+        circuitBreakers.put("un", unPopulationService.getCircuitBreakerStats());
+        metrics.put("circuitBreakers", circuitBreakers);
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Map<String, Long> threads = new LinkedHashMap<>();
+        threads.put("live", (long) threadBean.getThreadCount());
+        threads.put("peak", (long) threadBean.getPeakThreadCount());
+        metrics.put("threads", threads);
+        return metrics;
+    }
+}
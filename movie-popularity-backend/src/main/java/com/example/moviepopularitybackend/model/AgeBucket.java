@@ -0,0 +1,66 @@
+package com.example.moviepopularitybackend.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The broad age group categories of the population data, each combining several of the
+ * five year age groups served by the UN API.
+ * The ordinal of a category is its index in the compact storage of PopulationStatistics.
+ */
+public enum AgeBucket {
+    CHILDREN("0-14", "0-4", "5-9", "10-14"),
+    YOUTH("15-24", "15-19", "20-24"),
+    ADULTS("25-64", "25-29", "30-34", "35-39", "40-44", "45-49", "50-54", "55-59", "60-64"),
+    ELDERS("+65", "65-69", "70-74", "75-79", "80-84", "85-89", "90-94", "95-99", "100+");
+
+    /** The categories by the five year age groups they combine. */
+    private static final Map<String, AgeBucket> BY_AGE_RANGE = new HashMap<>();
+
+    static {
+        for (AgeBucket bucket : values()) {
+            for (String ageRange : bucket.ageRanges) {
+                BY_AGE_RANGE.put(ageRange, bucket);
+            }
+        }
+    }
+
+    private final String label;
+    private final String[] ageRanges;
+
+    AgeBucket(String label, String... ageRanges) {
+        this.label = label;
+        this.ageRanges = ageRanges;
+    }
+
+    /**
+     * Gets the label of this category, used as its key in the JSON data.
+     * @return the label (e.g., "0-14", "+65").
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Finds the category by its label.
+     * @param label the label (e.g., "0-14", "+65").
+     * @return the category, or null if there is no category with that label.
+     */
+    public static AgeBucket ofLabel(String label) {
+        for (AgeBucket bucket : values()) {
+            if (bucket.label.equals(label)) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the category that a five year age group belongs to.
+     * @param ageRange the five year age group (e.g., "0-4", "100+").
+     * @return the category, or null if the age group is not part of any category.
+     */
+    public static AgeBucket ofAgeRange(String ageRange) {
+        return BY_AGE_RANGE.get(ageRange);
+    }
+}
@@ -3,13 +3,14 @@ package com.example.moviepopularitybackend.model;
 /**
  * Represents the population data for a specific age group.
  * This class stores the population of males, females, and both sexes
- * within a specific age range.
+ * within a specific age range. The counts are longs, so that the age groups
+ * of the most populous countries cannot overflow.
  */
 public class AgeGroup {
     private String ageRange;
-    private int malePopulation;
-    private int femalePopulation;
-    private int bothSexesPopulation;
+    private long malePopulation;
+    private long femalePopulation;
+    private long bothSexesPopulation;
 
     /**
      * Constructs a new AgeGroup with the specified age range and population counts.
@@ -18,7 +19,7 @@ public class AgeGroup {
      * @param femalePopulation the population count for females in this age group.
      * @param bothSexesPopulation the population count for both sexes in this age group.
      */
-    public AgeGroup(String ageRange, int malePopulation, int femalePopulation, int bothSexesPopulation) {
+    public AgeGroup(String ageRange, long malePopulation, long femalePopulation, long bothSexesPopulation) {
         this.ageRange = ageRange;
         this.malePopulation = malePopulation;
         this.femalePopulation = femalePopulation;
@@ -44,14 +45,14 @@ public class AgeGroup {
      * Gets the population count for males in this age group.
      * @return the male population count.
      */
-    public int getMalePopulation() {
+    public long getMalePopulation() {
         return malePopulation;
     }
     /**
      * Sets the population count for males in this age group.
      * @param malePopulation the male population count.
      */
-    public void setMalePopulation(int malePopulation) {
+    public void setMalePopulation(long malePopulation) {
         this.malePopulation = malePopulation;
     }
 
@@ -59,7 +60,7 @@ public class AgeGroup {
      * Gets the population count for females in this age group.
      * @return the female population count.
      */
-    public int getFemalePopulation() {
+    public long getFemalePopulation() {
         return femalePopulation;
     }
 
@@ -67,7 +68,7 @@ public class AgeGroup {
      * Sets the population count for females in this age group.
      * @param femalePopulation the female population count.
      */
-    public void setFemalePopulation(int femalePopulation) {
+    public void setFemalePopulation(long femalePopulation) {
         this.femalePopulation = femalePopulation;
     }
 
@@ -75,7 +76,7 @@ public class AgeGroup {
      * Gets the population count for both sexes combined in this age group.
      * @return the population count for both sexes.
      */
-    public int getBothSexesPopulation() {
+    public long getBothSexesPopulation() {
         return bothSexesPopulation;
     }
 
@@ -83,7 +84,7 @@ public class AgeGroup {
      * Sets the population count for both sexes combined in this age group.
      * @param bothSexesPopulation the population count for both sexes.
      */
-    public void setBothSexesPopulation(int bothSexesPopulation) {
+    public void setBothSexesPopulation(long bothSexesPopulation) {
         this.bothSexesPopulation = bothSexesPopulation;
     }
 }
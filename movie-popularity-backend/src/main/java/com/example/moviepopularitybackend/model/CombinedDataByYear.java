@@ -1,5 +1,7 @@
 package com.example.moviepopularitybackend.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Represents a combined data object for a specific year, containing information about
  * a country, genre, population statistics, and the number of movies released.
@@ -12,6 +14,16 @@ public class CombinedDataByYear{
     private final int year;
     private final PopulationStatistics populationInformation;
     private final int howManyMovies;
+    /** Popularity and vote summaries of the movies, only present when TMDB paging is enabled. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final SummaryStatistics popularity;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final SummaryStatistics voteAverage;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final SummaryStatistics voteCount;
+    /** Whether the year was served from the last known data during an upstream outage, only present when true. */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private final boolean stale;
 
     /**
      * Constructs a new CombinedDataByYear object with the specified country, genre, year, 
@@ -28,6 +40,31 @@ public class CombinedDataByYear{
         this.year = year;
         this.populationInformation = populationInformation;
         this.howManyMovies = howManyMovies;
+        this.popularity = null;
+        this.voteAverage = null;
+        this.voteCount = null;
+        this.stale = false;
+    }
+
+    /**
+     * Constructs a new CombinedDataByYear object from the movie statistics of the year, including
+     * the popularity and vote summaries when they are available. The year is stale if either
+     * half is.
+     * @param country the country for which the data applies (e.g., "USA").
+     * @param year the year this data represents.
+     * @param populationInformation the population statistics for the specified year and country.
+     * @param movie the movie statistics for the specified year and genre.
+     */
+    public CombinedDataByYear(String country, int year, PopulationStatistics populationInformation, MovieStatistics movie) {
+        this.country = country;
+        this.genre = movie.getGenre();
+        this.year = year;
+        this.populationInformation = populationInformation;
+        this.howManyMovies = movie.getMovieCount();
+        this.popularity = movie.getPopularity();
+        this.voteAverage = movie.getVoteAverage();
+        this.voteCount = movie.getVoteCount();
+        this.stale = movie.isStale() || populationInformation.isStale();
     }
 
     /**
@@ -69,4 +106,36 @@ public class CombinedDataByYear{
     public int getHowManyMovies() {
         return howManyMovies;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the summary of the popularity of the movies.
+     * @return the popularity summary, or null if TMDB paging is disabled.
+     */
+    public SummaryStatistics getPopularity() {
+        return popularity;
+    }
+
+    /**
+     * Gets the summary of the average vote of the movies.
+     * @return the average vote summary, or null if TMDB paging is disabled.
+     */
+    public SummaryStatistics getVoteAverage() {
+        return voteAverage;
+    }
+
+    /**
+     * Gets the summary of the number of votes of the movies.
+     * @return the vote count summary, or null if TMDB paging is disabled.
+     */
+    public SummaryStatistics getVoteCount() {
+        return voteCount;
+    }
+
+    /**
+     * Checks whether the year was served from the last known data because an upstream was unavailable.
+     * @return true if the data of the year is stale.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.moviepopularitybackend.model;
+
+/**
+ * Represents one query of a batch request for combined data: the country, genre, indicator
+ * and year range of a single series, as in the parameters of {@code /combinedData}.
+ */
+public class CombinedDataQuery {
+    /** The name of the country, e.g. "Germany". */
+    private String country;
+    /** The name of the movie genre, e.g. "Action". */
+    private String genre;
+    /** The name of the population indicator. */
+    private String indicator;
+    /** The first year of the series. */
+    private int startYear;
+    /** The last year of the series. */
+    private int endYear;
+
+    /**
+     * Constructs an empty query, used when the query is read from JSON.
+     */
+    public CombinedDataQuery() {
+    }
+
+    /**
+     * Constructs a new query.
+     * @param country   the name of the country.
+     * @param genre     the name of the movie genre.
+     * @param indicator the name of the population indicator.
+     * @param startYear the first year of the series.
+     * @param endYear   the last year of the series.
+     */
+    public CombinedDataQuery(String country, String genre, String indicator, int startYear, int endYear) {
+        this.country = country;
+        this.genre = genre;
+        this.indicator = indicator;
+        this.startYear = startYear;
+        this.endYear = endYear;
+    }
+
+    /**
+     * Gets the name of the country.
+     * @return the country name.
+     */
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * Sets the name of the country.
+     * @param country the country name.
+     */
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    /**
+     * Gets the name of the movie genre.
+     * @return the genre name.
+     */
+    public String getGenre() {
+        return genre;
+    }
+
+    /**
+     * Sets the name of the movie genre.
+     * @param genre the genre name.
+     */
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+
+    /**
+     * Gets the name of the population indicator.
+     * @return the indicator name.
+     */
+    public String getIndicator() {
+        return indicator;
+    }
+
+    /**
+     * Sets the name of the population indicator.
+     * @param indicator the indicator name.
+     */
+    public void setIndicator(String indicator) {
+        this.indicator = indicator;
+    }
+
+    /**
+     * Gets the first year of the series.
+     * @return the start year.
+     */
+    public int getStartYear() {
+        return startYear;
+    }
+
+    /**
+     * Sets the first year of the series.
+     * @param startYear the start year.
+     */
+    public void setStartYear(int startYear) {
+        this.startYear = startYear;
+    }
+
+    /**
+     * Gets the last year of the series.
+     * @return the end year.
+     */
+    public int getEndYear() {
+        return endYear;
+    }
+
+    /**
+     * Sets the last year of the series.
+     * @param endYear the end year.
+     */
+    public void setEndYear(int endYear) {
+        this.endYear = endYear;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.moviepopularitybackend.model;
+
+import java.util.TreeMap;
+
+/**
+ * Represents the answer to one query of a batch request: the query itself together with its
+ * combined data by year, in the same form as the response of {@code /combinedData}.
+ */
+public class CombinedDataSeries {
+    private final CombinedDataQuery query;
+    private final TreeMap<Integer, CombinedDataByYear> data;
+
+    /**
+     * Constructs a new series.
+     * @param query the query the series answers.
+     * @param data  the combined data by year.
+     */
+    public CombinedDataSeries(CombinedDataQuery query, TreeMap<Integer, CombinedDataByYear> data) {
+        this.query = query;
+        this.data = data;
+    }
+
+    /**
+     * Gets the query the series answers.
+     * @return the query.
+     */
+    public CombinedDataQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the combined data of the series.
+     * @return a map where the key is the year and the value is the combined data of the year.
+     */
+    public TreeMap<Integer, CombinedDataByYear> getData() {
+        return data;
+    }
+}
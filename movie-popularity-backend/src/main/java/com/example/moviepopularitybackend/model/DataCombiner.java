@@ -1,11 +1,8 @@
 package com.example.moviepopularitybackend.model;
 
-import java.util.HashMap;
-
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 import java.util.TreeMap;
 
 /**
@@ -13,57 +10,83 @@ import java.util.TreeMap;
  * This class processes two lists: one containing movie statistics by genre and year, and another
  * containing population statistics for a specific country and year. The combined result is stored
  * in a map, where the key is the year, and the value is a CombinedDataByYear object.
+ * The class holds no state, so a single instance can serve any number of concurrent requests.
  */
 @Service
 public class DataCombiner {
-    /** A TreeMap to store combined data by year, where the key is the year and the value is CombinedDataByYear. */
-    private TreeMap<Integer, CombinedDataByYear> combinedData;
-
-    /**
-     * Constructs a new DataCombiner object and initializes the TreeMap for storing combined data by year.
-     */
-    public DataCombiner() {
-        this.combinedData = new TreeMap<>();
-    }
 
     /**
      * Combines movie statistics and population statistics based on the year, creating a unified data structure
      * for each year that includes both population and movie data. The result is stored in a TreeMap with the year as the key.
+     * Population data is looked up from an array indexed by the offset of the year from the earliest population year.
      *
      * @param moviesData a list of MovieStatistics objects representing movie data for spesific years.
      * @param populationData a list of PopulationStatistics objects representing population data for specific years
-     * @return a TreeMap where the key is the year (as an Integer) and the value is a CombinedDataByYear object containing combined movie and population data.
+     * @return a new TreeMap where the key is the year (as an Integer) and the value is a CombinedDataByYear object containing combined movie and population data.
      */
     public TreeMap<Integer, CombinedDataByYear> combineData(List<MovieStatistics> moviesData, List<PopulationStatistics> populationData) {
-            // Reset the combinedData map to ensure no old data is retained
-            this.combinedData = new TreeMap<>();
-        // Temporary map to store population data by year
-        Map<Integer, PopulationStatistics> populationMap = new HashMap<>();
+        TreeMap<Integer, CombinedDataByYear> combinedData = new TreeMap<>();
+        if (moviesData.isEmpty() || populationData.isEmpty()) {
+            return combinedData;
+        }
+
+        // Find the span of years covered by the population data, skipping empty entries without a year
+        int firstYear = Integer.MAX_VALUE;
+        int lastYear = Integer.MIN_VALUE;
+        for (PopulationStatistics population : populationData) {
+            if (population.getYear() != 0) {
+                firstYear = Math.min(firstYear, population.getYear());
+                lastYear = Math.max(lastYear, population.getYear());
+            }
+        }
+        if (firstYear > lastYear) {
+            return combinedData;
+        }
 
-        // Populate the populationMap with year as the key and PopulationStatistics as the value
+        // Population data by year offset, later entries for the same year replace earlier ones
+        PopulationStatistics[] populationByYear = new PopulationStatistics[lastYear - firstYear + 1];
         for (PopulationStatistics population : populationData) {
-            populationMap.put(population.getYear(), population);
+            if (population.getYear() != 0) {
+                populationByYear[population.getYear() - firstYear] = population;
+            }
         }
+
         // Combine movie and population data based on the year
         for (MovieStatistics movie : moviesData) {
-            int year = Integer.parseInt(movie.getYear());  // Convert year to int for easier matching
+            int year = movie.getYearValue();
+            if (year < firstYear || year > lastYear) {
+                continue;
+            }
 
             // Find population data for the same year
-            PopulationStatistics population = populationMap.get(year);
+            PopulationStatistics population = populationByYear[year - firstYear];
 
-            if (population != null) {
-                // Create a CombinedDataByYear object
-                CombinedDataByYear combinedDataByYear = new CombinedDataByYear(
-                    population.getCountry(),
-                    movie.getGenre(),  
-                    year,
-                    population,        
-                    movie.getMovieCount()     
-                );
+            CombinedDataByYear combinedDataByYear = combineYear(movie, population);
+            if (combinedDataByYear != null) {
                 // Store the CombinedDataByYear object in the TreeMap
                 combinedData.put(year, combinedDataByYear);
             }
         }      
         return combinedData; 
     }
-}
\ No newline at end of file
+
+    /**
+     * Combines the movie and population statistics of a single year, used when the years of a
+     * query are streamed to the client one by one.
+     *
+     * @param movie the movie statistics of the year, may be null.
+     * @param population the population statistics of the year, may be null.
+     * @return a CombinedDataByYear object, or null if either half is missing or they are from different years.
+     */
+    public CombinedDataByYear combineYear(MovieStatistics movie, PopulationStatistics population) {
+        if (movie == null || population == null || population.getYear() != movie.getYearValue()) {
+            return null;
+        }
+        return new CombinedDataByYear(
+            population.getCountry(),
+            movie.getYearValue(),
+            population,
+            movie
+        );
+    }
+}
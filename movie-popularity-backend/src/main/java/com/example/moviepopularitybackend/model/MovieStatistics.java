@@ -8,8 +8,18 @@ package com.example.moviepopularitybackend.model;
 public class MovieStatistics {
     private final String genre;
     private final String year;
+    /** The year parsed to an integer once, so that it can be matched without parsing again. */
+    private final int yearValue;
     private final String country;
     private final int movieCount;
+    /** Summary of the popularity of the movies, or null if the movie list was not paged through. */
+    private final SummaryStatistics popularity;
+    /** Summary of the average vote of the movies, or null if the movie list was not paged through. */
+    private final SummaryStatistics voteAverage;
+    /** Summary of the number of votes of the movies, or null if the movie list was not paged through. */
+    private final SummaryStatistics voteCount;
+    /** Whether these are the last known statistics, served because fresh ones could not be fetched. */
+    private final boolean stale;
 
     /**
      * Constructs a new MovieStatistics object with the specified genre, year, country, and movie count.
@@ -21,8 +31,68 @@ public class MovieStatistics {
     public MovieStatistics(String genre, String year, String country, int movieCount) {
         this.genre = genre;
         this.year = year;
+        this.yearValue = Integer.parseInt(year);
         this.country = country;
         this.movieCount = movieCount;
+        this.popularity = null;
+        this.voteAverage = null;
+        this.voteCount = null;
+        this.stale = false;
+    }
+
+    /**
+     * Constructs a new MovieStatistics object with the year given as an integer.
+     * @param genre      the genre of the movies (e.g., Action, Drama, Comedy).
+     * @param year       the year in which the movies were released.
+     * @param country    the country where the movies were produced.
+     * @param movieCount the total number of movies.
+     */
+    public MovieStatistics(String genre, int year, String country, int movieCount) {
+        this(genre, year, country, movieCount, null, null, null);
+    }
+
+    /**
+     * Constructs a new MovieStatistics object with summaries of the movie list of the year.
+     * @param genre       the genre of the movies (e.g., Action, Drama, Comedy).
+     * @param year        the year in which the movies were released.
+     * @param country     the country where the movies were produced.
+     * @param movieCount  the total number of movies.
+     * @param popularity  the summary of the popularity of the movies, or null.
+     * @param voteAverage the summary of the average vote of the movies, or null.
+     * @param voteCount   the summary of the number of votes of the movies, or null.
+     */
+    public MovieStatistics(String genre, int year, String country, int movieCount, SummaryStatistics popularity,
+            SummaryStatistics voteAverage, SummaryStatistics voteCount) {
+        this.genre = genre;
+        this.year = Integer.toString(year);
+        this.yearValue = year;
+        this.country = country;
+        this.movieCount = movieCount;
+        this.popularity = popularity;
+        this.voteAverage = voteAverage;
+        this.voteCount = voteCount;
+        this.stale = false;
+    }
+
+    private MovieStatistics(MovieStatistics source, boolean stale) {
+        this.genre = source.genre;
+        this.year = source.year;
+        this.yearValue = source.yearValue;
+        this.country = source.country;
+        this.movieCount = source.movieCount;
+        this.popularity = source.popularity;
+        this.voteAverage = source.voteAverage;
+        this.voteCount = source.voteCount;
+        this.stale = stale;
+    }
+
+    /**
+     * Creates a copy of these statistics marked as stale, for serving the last known statistics
+     * while the upstream is unavailable.
+     * @return a stale copy of these statistics.
+     */
+    public MovieStatistics asStale() {
+        return new MovieStatistics(this, true);
     }
     /**
      * Gets the genre of the movies.
@@ -40,6 +110,14 @@ public class MovieStatistics {
         return year;
     }
 
+    /**
+     * Gets the year in which the movies were produced or released as an integer.
+     * @return the year as an int (e.g., 2023).
+     */
+    public int getYearValue() {
+        return yearValue;
+    }
+
     /**
      * Gets the country where the movies were produced or released.
      * @return the country name (e.g., "USA", "Canada").
@@ -55,4 +133,36 @@ public class MovieStatistics {
     public int getMovieCount() {
         return movieCount;
     }
+
+    /**
+     * Gets the summary of the popularity of the movies.
+     * @return the popularity summary, or null if the movie list was not paged through.
+     */
+    public SummaryStatistics getPopularity() {
+        return popularity;
+    }
+
+    /**
+     * Gets the summary of the average vote of the movies.
+     * @return the average vote summary, or null if the movie list was not paged through.
+     */
+    public SummaryStatistics getVoteAverage() {
+        return voteAverage;
+    }
+
+    /**
+     * Gets the summary of the number of votes of the movies.
+     * @return the vote count summary, or null if the movie list was not paged through.
+     */
+    public SummaryStatistics getVoteCount() {
+        return voteCount;
+    }
+
+    /**
+     * Checks whether these are the last known statistics rather than freshly fetched ones.
+     * @return true if the statistics are stale.
+     */
+    public boolean isStale() {
+        return stale;
+    }
 }
@@ -1,8 +1,12 @@
 package com.example.moviepopularitybackend.model;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 /**
  * Represents the population data for a specific country and year.
  */
@@ -14,20 +18,30 @@ public class PopulationStatistics {
     /**
      * The indicator value selected by the user, representing one of the following metrics:
      * total population, life expectancy, population change, or total net migration.
+     * A double, so that the decimals of rates such as life expectancy are kept.
      */
-    private int indicatorValue;
+    private double indicatorValue;
+    /** Index of the male population within the values of one age group category. */
+    public static final int MALE = 0;
+    /** Index of the female population within the values of one age group category. */
+    public static final int FEMALE = 1;
+    /** Index of the population of both sexes within the values of one age group category. */
+    public static final int BOTH_SEXES = 2;
+    private static final int SEXES = 3;
+
     /**
-     * A map to store categorized population data by age groups.
-     * The keys represent age group categories: "0-14", "15-24", "25-64", "+65".
-     * The values are AgeGroup objects representing the population counts for each group.
+     * The categorized population data by age groups, stored without objects per group:
+     * the male, female and both sexes populations of each {@link AgeBucket} in turn,
+     * at index {@code bucket.ordinal() * 3 + sex}.
      */
-    private Map<String, AgeGroup> populationAgeGroups;
+    private final long[] ageGroupPopulations = new long[AgeBucket.values().length * SEXES];
+    /** Whether this is the last known data, served because fresh data could not be fetched. */
+    private boolean stale;
     
     /**
-     * Constructs an empty Population object and initializes the age group categories map.
+     * Constructs an empty Population object with zero populations in every age group category.
      */
     public PopulationStatistics() {
-        this.populationAgeGroups = new HashMap<>();
     }
 
     /**
@@ -66,36 +80,113 @@ public class PopulationStatistics {
      * Retrieves the value of the selected indicator. The indicator is chosen by the user 
      * and can represent one of the following: total population, life expectancy, 
      * population change, or total net migration.
-     * @return the selected indicator's value as an integer.
+     * In the JSON a whole value is written without a fraction, as an integer.
+     * @return the selected indicator's value.
      */
-    public int getIndicatorValue() {
+    @JsonSerialize(using = WholeNumberSerializer.class)
+    public double getIndicatorValue() {
         return indicatorValue;
     }
     
     /**
-     * Sets the value of the selected indicator. The indicator value is an integer 
+     * Sets the value of the selected indicator. The indicator value is a count or a rate
      * representing one of the following metrics: total population, life expectancy, 
      * population change, or total net migration.
      * @param indicatorValue the value to set for the selected indicator.
      */
-    public void setIndicatorValue(int indicatorValue) {
+    public void setIndicatorValue(double indicatorValue) {
         this.indicatorValue = indicatorValue;
     }
 
     /**
      * Gets the categorized population data by age groups.
+     * The map is created on each call from the compact storage, changes to it are not
+     * written back; use {@link #setPopulation} or {@link #setPopulationAges} instead.
      * @return a map where the key is the age group category (e.g., "0-14") and the value is the AgeGroup object.
      */
     public Map<String, AgeGroup> getPopulationAges() {
+        Map<String, AgeGroup> populationAgeGroups = new HashMap<>();
+        for (AgeBucket bucket : AgeBucket.values()) {
+            int offset = bucket.ordinal() * SEXES;
+            populationAgeGroups.put(bucket.getLabel(), new AgeGroup(bucket.getLabel(),
+                    ageGroupPopulations[offset + MALE],
+                    ageGroupPopulations[offset + FEMALE],
+                    ageGroupPopulations[offset + BOTH_SEXES]));
+        }
         return populationAgeGroups;
     }
 
     /**
      * Sets the categorized population data by age groups.
+     * Categories missing from the map are set to zero, unknown categories are ignored.
      * @param populationAgeGroups a map where the key is the age group category 
      * and the value is the AgeGroup object representing population data.
      */
     public void setPopulationAges(Map<String, AgeGroup> populationAgeGroups) {
-        this.populationAgeGroups = populationAgeGroups;
+        Arrays.fill(ageGroupPopulations, 0);
+        for (Map.Entry<String, AgeGroup> entry : populationAgeGroups.entrySet()) {
+            AgeBucket bucket = AgeBucket.ofLabel(entry.getKey());
+            if (bucket != null) {
+                AgeGroup ageGroup = entry.getValue();
+                setPopulation(bucket, MALE, ageGroup.getMalePopulation());
+                setPopulation(bucket, FEMALE, ageGroup.getFemalePopulation());
+                setPopulation(bucket, BOTH_SEXES, ageGroup.getBothSexesPopulation());
+            }
+        }
+    }
+
+    /**
+     * Gets the population of one sex in an age group category.
+     * @param bucket the age group category.
+     * @param sex {@link #MALE}, {@link #FEMALE} or {@link #BOTH_SEXES}.
+     * @return the population count.
+     */
+    public long getPopulation(AgeBucket bucket, int sex) {
+        return ageGroupPopulations[bucket.ordinal() * SEXES + sex];
+    }
+
+    /**
+     * Sets the population of one sex in an age group category.
+     * @param bucket the age group category.
+     * @param sex {@link #MALE}, {@link #FEMALE} or {@link #BOTH_SEXES}.
+     * @param population the population count.
+     */
+    public void setPopulation(AgeBucket bucket, int sex, long population) {
+        ageGroupPopulations[bucket.ordinal() * SEXES + sex] = population;
+    }
+
+    /**
+     * Adds to the population of one sex in an age group category.
+     * @param bucket the age group category.
+     * @param sex {@link #MALE}, {@link #FEMALE} or {@link #BOTH_SEXES}.
+     * @param population the population count to add.
+     */
+    public void addPopulation(AgeBucket bucket, int sex, long population) {
+        ageGroupPopulations[bucket.ordinal() * SEXES + sex] += population;
+    }
+
+    /**
+     * Checks whether this is the last known data rather than freshly fetched data.
+     * Not part of the JSON, the staleness is reported on the combined data instead.
+     * @return true if the data is stale.
+     */
+    @JsonIgnore
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Creates a copy of this data marked as stale, for serving the last known data while the
+     * upstream is unavailable.
+     * @return a stale copy of this data.
+     */
+    public PopulationStatistics asStale() {
+        PopulationStatistics copy = new PopulationStatistics();
+        copy.country = country;
+        copy.year = year;
+        copy.indicatorValue = indicatorValue;
+        System.arraycopy(ageGroupPopulations, 0, copy.ageGroupPopulations, 0, ageGroupPopulations.length);
+        copy.stale = true;
+        return copy;
     }
 }
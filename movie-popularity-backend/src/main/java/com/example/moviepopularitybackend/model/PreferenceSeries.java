@@ -0,0 +1,39 @@
+package com.example.moviepopularitybackend.model;
+
+import java.util.TreeMap;
+
+/**
+ * Represents one series of the saved preferences dashboard: a saved preference together with
+ * its combined data by year, in the same form as the response of {@code /combinedData}.
+ */
+public class PreferenceSeries {
+    private final UserPreferences preference;
+    private final TreeMap<Integer, CombinedDataByYear> data;
+
+    /**
+     * Constructs a new series.
+     * @param preference the saved preference, with its id.
+     * @param data       the combined data by year.
+     */
+    public PreferenceSeries(UserPreferences preference, TreeMap<Integer, CombinedDataByYear> data) {
+        this.preference = preference;
+        this.data = data;
+    }
+
+    /**
+     * Gets the saved preference of the series.
+     * @return the preference.
+     */
+    public UserPreferences getPreference() {
+        return preference;
+    }
+
+    /**
+     * Gets the combined data of the series.
+     * @return a map where the key is the year and the value is the combined data of the year,
+     *         empty if the preference has no valid year range.
+     */
+    public TreeMap<Integer, CombinedDataByYear> getData() {
+        return data;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.moviepopularitybackend.model;
+
+import java.util.List;
+
+/**
+ * Represents one page of the saved user preferences, or of results for them, in the order the
+ * preferences were saved.
+ *
+ * @param <T> the type of the items, {@link UserPreferences} or a result for each preference.
+ */
+public class PreferencesPage<T> {
+    private final List<T> items;
+    private final int page;
+    private final int size;
+    private final int totalItems;
+
+    /**
+     * Constructs a new page.
+     * @param items      the preferences or their results on this page.
+     * @param page       the number of this page, starting from 0.
+     * @param size       the maximum number of preferences on a page.
+     * @param totalItems the number of saved preferences on all pages.
+     */
+    public PreferencesPage(List<T> items, int page, int size, int totalItems) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.totalItems = totalItems;
+    }
+
+    /**
+     * Gets the items on this page.
+     * @return the items, an empty list for a page after the last one.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the number of this page.
+     * @return the page number, starting from 0.
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Gets the maximum number of preferences on a page.
+     * @return the page size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of saved preferences on all pages.
+     * @return the total number of preferences.
+     */
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    /**
+     * Gets the number of pages.
+     * @return the number of pages, 0 if there are no saved preferences.
+     */
+    public int getTotalPages() {
+        return totalItems == 0 ? 0 : (totalItems - 1) / size + 1;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.moviepopularitybackend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Represents running summary statistics (count, mean, standard deviation, minimum and maximum)
+ * of a series of values, such as the popularity of the movies released in a year.
+ * Values are added one at a time, so the series itself never has to be kept in memory.
+ * The mean and variance are updated with Welford's algorithm, which stays accurate for long
+ * series, and two summaries can be merged as if all their values had been added to one.
+ * Not thread-safe, callers adding from several threads must synchronize.
+ */
+public class SummaryStatistics {
+    private long count;
+    private double mean;
+    /** The sum of squared differences from the mean, the variance is this divided by the count. */
+    private double sumOfSquaredDeviations;
+    private double min;
+    private double max;
+
+    /**
+     * Constructs a new empty SummaryStatistics object.
+     */
+    public SummaryStatistics() {
+    }
+
+    /**
+     * Constructs a SummaryStatistics object from previously computed values, e.g. when read back from disk.
+     * @param count the number of values.
+     * @param mean the mean of the values.
+     * @param sumOfSquaredDeviations the sum of squared differences of the values from the mean.
+     * @param min the smallest value.
+     * @param max the largest value.
+     */
+    public SummaryStatistics(long count, double mean, double sumOfSquaredDeviations, double min, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.sumOfSquaredDeviations = sumOfSquaredDeviations;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Adds a value to the summary. NaN values are ignored.
+     * @param value the value to add.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        sumOfSquaredDeviations += delta * (value - mean);
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+    }
+
+    /**
+     * Adds every value summarized by another summary to this one.
+     * @param other the summary to merge into this one.
+     */
+    public void merge(SummaryStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            sumOfSquaredDeviations = other.sumOfSquaredDeviations;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        sumOfSquaredDeviations += other.sumOfSquaredDeviations + delta * delta * count * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Gets the number of values added.
+     * @return the count of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the values.
+     * @return the mean, or 0 if no values have been added.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the population standard deviation of the values.
+     * @return the standard deviation, or 0 if no values have been added.
+     */
+    public double getStandardDeviation() {
+        return count == 0 ? 0 : Math.sqrt(sumOfSquaredDeviations / count);
+    }
+
+    /**
+     * Gets the smallest value added.
+     * @return the minimum, or 0 if no values have been added.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the largest value added.
+     * @return the maximum, or 0 if no values have been added.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the sum of squared differences of the values from the mean, needed to store and
+     * restore the summary without losing precision.
+     * @return the sum of squared deviations.
+     */
+    @JsonIgnore
+    public double getSumOfSquaredDeviations() {
+        return sumOfSquaredDeviations;
+    }
+}
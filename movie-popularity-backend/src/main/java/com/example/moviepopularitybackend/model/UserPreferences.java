@@ -10,6 +10,12 @@ package com.example.moviepopularitybackend.model;
  */
 public class UserPreferences {
 
+    /**
+     * Stable identifier assigned when the preference is saved, 0 for a preference that has not
+     * been saved. Not part of equals and hashCode, two preferences with the same settings are
+     * duplicates whatever their ids.
+     */
+    private long id;
     /** The movie genre shown in graph. */
     private String genre;
     /** The country which the graph shows. */
@@ -38,10 +44,29 @@ public class UserPreferences {
         this.endYear = endYear;
     }
 
+    /**
+     * Gets the identifier assigned when the preference was saved.
+     * 
+     * @return the id, or 0 if the preference has not been saved.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the identifier of the preference. Ids are assigned by the preference store,
+     * an id sent by a client is ignored.
+     * 
+     * @param id the id.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Override equals to use set correctly.
      * 
-     * @return bool, true if all object parameters match.
+     * @return bool, true if all object parameters except the id match.
      */
     @Override
     public boolean equals(Object o) {
@@ -163,7 +188,8 @@ public class UserPreferences {
     @Override
     public String toString() {
         return "UserPreferences{" +
-                "country='" + country + '\'' +
+                "id=" + id +
+                ", country='" + country + '\'' +
                 ", genre='" + genre + '\'' +
                 ", indicator='" + indicator + '\'' +
                 ", startYear='" + startYear + '\'' +
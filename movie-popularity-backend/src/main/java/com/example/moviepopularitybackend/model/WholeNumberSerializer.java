@@ -0,0 +1,37 @@
+package com.example.moviepopularitybackend.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a double value to JSON as an integer when it has no fraction, e.g. {@code 5486000}
+ * instead of {@code 5486000.0}, and as a decimal number otherwise.
+ * Used for values that are counts for some indicators and rates for others, so that the
+ * JSON of counts stays the same as when they were stored as integers.
+ */
+public class WholeNumberSerializer extends StdSerializer<Double> {
+    private static final long serialVersionUID = 1L;
+
+    /** The largest magnitude below which every whole double converts to a long exactly. */
+    private static final double MAX_EXACT = 0x1p53;
+
+    /**
+     * Constructs a new serializer, used by Jackson through {@code @JsonSerialize}.
+     */
+    public WholeNumberSerializer() {
+        super(Double.class);
+    }
+
+    @Override
+    public void serialize(Double value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        double number = value;
+        if (number == Math.rint(number) && Math.abs(number) <= MAX_EXACT) {
+            generator.writeNumber((long) number);
+        } else {
+            generator.writeNumber(number);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.moviepopularitybackend.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.moviepopularitybackend.model.ApiCodes;
+import com.example.moviepopularitybackend.model.CombinedDataByYear;
+import com.example.moviepopularitybackend.model.CombinedDataQuery;
+import com.example.moviepopularitybackend.model.CombinedDataSeries;
+import com.example.moviepopularitybackend.model.DataCombiner;
+import com.example.moviepopularitybackend.model.MovieStatistics;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.SingleFlight;
+
+/**
+ * Service that builds the combined movie and population data served by the
+ * {@code /combinedData} endpoints. Concurrent identical queries share a single computation,
+ * and the queries of a batch share their upstream fetches.
+ */
+@Service
+public class CombinedDataService {
+
+    @Autowired
+    private DataCombiner dataCombiner;
+
+    @Autowired
+    private TmdbService tmdbService;
+
+    @Autowired
+    private UnPopulationService unPopulationService;
+
+    @Autowired
+    private ApiCodes apiCodes;
+
+    /** Shares one computation between concurrent identical queries. */
+    private final SingleFlight<String, TreeMap<Integer, CombinedDataByYear>> inFlightQueries = new SingleFlight<>();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchQueries = new AtomicLong();
+    private final AtomicLong batchMovieFetches = new AtomicLong();
+    private final AtomicLong batchPopulationFetches = new AtomicLong();
+
+    /**
+     * The TMDB side of a query: the movies of a genre in an original language.
+     *
+     * @param genreCode      The genre code of the movies.
+     * @param countryLetters The language code of the movies.
+     */
+    private record MovieSource(String genreCode, String countryLetters) {
+    }
+
+    /**
+     * The UN side of a query: an indicator of a country.
+     *
+     * @param countryCode The country number.
+     * @param indicator   The indicator.
+     */
+    private record PopulationSource(String countryCode, String indicator) {
+    }
+
+    /**
+     * Fetches combined data for movies and population statistics based on the
+     * provided parameters. If an identical query is already being computed, waits for
+     * it and returns its result instead of fetching the data again.
+     *
+     * @param country   The name of the country for which to fetch data.
+     * @param genre     The genre of the movies for which to fetch data.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator for which to fetch data.
+     * @return A TreeMap with the combined data by year. The map may be shared between
+     *         callers and must not be modified.
+     */
+    public TreeMap<Integer, CombinedDataByYear> getCombinedData(String country, String genre, int startYear,
+            int endYear, String indicator) {
+        String key = country + "|" + genre + "|" + startYear + "|" + endYear + "|" + indicator;
+        return inFlightQueries.run(key, () -> computeCombinedData(country, genre, startYear, endYear, indicator));
+    }
+
+    /**
+     * Gets a strong entity tag for the combined data of a query without computing the data.
+     * The tag is a hash of when the TMDB and UN statistics of every year of the query were
+     * stored, so it changes whenever one of them is stored again, and there is none once one
+     * of them is no longer fresh. Read the tag before computing the data it is sent with; data
+     * stored while computing then makes the tag outdated rather than the data.
+     *
+     * @param country   The name of the country.
+     * @param genre     The genre of the movies.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator.
+     * @return The quoted tag, or null if a year of the query is not fresh in the caches.
+     */
+    public String getCombinedDataETag(String country, String genre, int startYear, int endYear,
+            String indicator) {
+        if (startYear > endYear) {
+            return null;
+        }
+        String countryCode = apiCodes.getCountryCodeMap().getOrDefault(country, "246");
+        String movieCountryCode = apiCodes.getMovieCountryCodeMap().getOrDefault(country, "fi");
+        String genreCode = apiCodes.getGenreCodeMap().getOrDefault(genre, "28");
+        long[] movies = tmdbService.getCachedAt(genreCode, movieCountryCode, startYear, endYear);
+        long[] populations = movies == null ? null
+                : unPopulationService.getCachedAt(countryCode, indicator, startYear, endYear);
+        if (populations == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((country + "|" + genre + "|" + startYear + "|" + endYear + "|" + indicator)
+                    .getBytes(StandardCharsets.UTF_8));
+            ByteBuffer storedAt = ByteBuffer.allocate(Long.BYTES * (movies.length + populations.length));
+            storedAt.asLongBuffer().put(movies).put(populations);
+            return "\"" + HexFormat.of().formatHex(digest.digest(storedAt.array()), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Fetches combined data for movies and population statistics without blocking the
+     * calling thread. The TMDB and UN fetches run concurrently and are combined when both
+     * have completed. Concurrent identical queries share a single computation.
+     *
+     * @param country   The name of the country for which to fetch data.
+     * @param genre     The genre of the movies for which to fetch data.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator for which to fetch data.
+     * @return A CompletableFuture containing the combined data by year. The map may be
+     *         shared between callers and must not be modified.
+     */
+    public CompletableFuture<TreeMap<Integer, CombinedDataByYear>> getCombinedDataAsync(String country, String genre,
+            int startYear, int endYear, String indicator) {
+        String key = country + "|" + genre + "|" + startYear + "|" + endYear + "|" + indicator;
+        return inFlightQueries.execute(key,
+                () -> computeCombinedDataAsync(country, genre, startYear, endYear, indicator));
+    }
+
+    /**
+     * Fetches combined data for movies and population statistics and hands each year to the
+     * consumer as soon as both its movie and population halves have arrived, in the order the
+     * years complete. Population data is fetched in short spans, so the first years do not
+     * wait for the whole range. The consumer runs on a writer thread of the stream, one year
+     * at a time, never on a thread of the upstream lanes, so a slow client only delays its
+     * own stream and not the upstream calls of other requests.
+     *
+     * @param country   The name of the country for which to fetch data.
+     * @param genre     The genre of the movies for which to fetch data.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator for which to fetch data.
+     * @param onYear    Receives the combined data of each year that has both halves.
+     * @return A CompletableFuture completed once every year has been handled, on the writer
+     *         thread of the stream.
+     */
+    public CompletableFuture<Void> streamCombinedData(String country, String genre, int startYear, int endYear,
+            String indicator, Consumer<CombinedDataByYear> onYear) {
+        String countryCode = apiCodes.getCountryCodeMap().getOrDefault(country, "246");
+        String movieCountryCode = apiCodes.getMovieCountryCodeMap().getOrDefault(country, "fi");
+        String genreCode = apiCodes.getGenreCodeMap().getOrDefault(genre, "28");
+
+        List<CompletableFuture<MovieStatistics>> movieFutures = tmdbService.fetchMovieFutures(genreCode,
+                movieCountryCode, startYear, endYear);
+        List<CompletableFuture<PopulationStatistics>> populationFutures = unPopulationService
+                .fetchPopulationFutures(countryCode, indicator, startYear, endYear);
+
+        ExecutorService writer = Executors.newSingleThreadExecutor(
+                Thread.ofVirtual().name("combined-data-stream").factory());
+        List<CompletableFuture<Void>> years = new ArrayList<>();
+        for (int i = 0; i < movieFutures.size(); i++) {
+            years.add(movieFutures.get(i).thenAcceptBothAsync(populationFutures.get(i), (movie, population) -> {
+                CombinedDataByYear combined = dataCombiner.combineYear(movie, population);
+                if (combined != null) {
+                    onYear.accept(combined);
+                }
+            }, writer));
+        }
+        CompletableFuture<Void> done = CompletableFuture.allOf(years.toArray(new CompletableFuture[0]));
+        // The tasks already queued still run, the thread ends after the last one
+        done.whenComplete((ignored, error) -> writer.shutdown());
+        return done;
+    }
+
+    /**
+     * Fetches the combined data of several queries at once, e.g. to compare countries or
+     * genres. Queries sharing a TMDB genre and language, or a UN country and indicator, share
+     * one fetch of the union of their years, so a country compared across five genres has its
+     * population data fetched once. Each shared fetch covers one contiguous run of years and
+     * all of them run concurrently, within the concurrency and rate limits of the upstream lanes.
+     *
+     * @param queries The queries, each with the same parameters as {@code /combinedData}.
+     * @return A CompletableFuture containing one series per query, in the order of the queries.
+     */
+    public CompletableFuture<List<CombinedDataSeries>> getCombinedDataBatch(List<CombinedDataQuery> queries) {
+        List<MovieSource> movieSources = new ArrayList<>();
+        List<PopulationSource> populationSources = new ArrayList<>();
+        Map<MovieSource, SortedSet<Integer>> movieYears = new LinkedHashMap<>();
+        Map<PopulationSource, SortedSet<Integer>> populationYears = new LinkedHashMap<>();
+        for (CombinedDataQuery query : queries) {
+            MovieSource movieSource = new MovieSource(
+                    apiCodes.getGenreCodeMap().getOrDefault(query.getGenre(), "28"),
+                    apiCodes.getMovieCountryCodeMap().getOrDefault(query.getCountry(), "fi"));
+            PopulationSource populationSource = new PopulationSource(
+                    apiCodes.getCountryCodeMap().getOrDefault(query.getCountry(), "246"), query.getIndicator());
+            movieSources.add(movieSource);
+            populationSources.add(populationSource);
+            for (int year = query.getStartYear(); year <= query.getEndYear(); year++) {
+                movieYears.computeIfAbsent(movieSource, key -> new TreeSet<>()).add(year);
+                populationYears.computeIfAbsent(populationSource, key -> new TreeSet<>()).add(year);
+            }
+        }
+
+        Map<MovieSource, CompletableFuture<Map<Integer, MovieStatistics>>> movies = new HashMap<>();
+        movieYears.forEach((source, years) -> movies.put(source, fetchRuns(years,
+                (start, end) -> tmdbService.fetchMoviesAsync(source.genreCode(), source.countryLetters(), start, end),
+                MovieStatistics::getYearValue, batchMovieFetches)));
+        Map<PopulationSource, CompletableFuture<Map<Integer, PopulationStatistics>>> populations = new HashMap<>();
+        populationYears.forEach((source, years) -> populations.put(source, fetchRuns(years,
+                (start, end) -> unPopulationService.fetchIntervalDataAsync(source.countryCode(), source.indicator(),
+                        start, end),
+                PopulationStatistics::getYear, batchPopulationFetches)));
+        batches.incrementAndGet();
+        batchQueries.addAndGet(queries.size());
+
+        List<CompletableFuture<?>> fetches = new ArrayList<>(movies.values());
+        fetches.addAll(populations.values());
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<CombinedDataSeries> series = new ArrayList<>();
+            for (int i = 0; i < queries.size(); i++) {
+                CombinedDataQuery query = queries.get(i);
+                // A query without years has no fetches
+                Map<Integer, MovieStatistics> moviesByYear = movies
+                        .getOrDefault(movieSources.get(i), CompletableFuture.completedFuture(Map.of())).join();
+                Map<Integer, PopulationStatistics> populationsByYear = populations
+                        .getOrDefault(populationSources.get(i), CompletableFuture.completedFuture(Map.of())).join();
+                TreeMap<Integer, CombinedDataByYear> data = new TreeMap<>();
+                for (int year = query.getStartYear(); year <= query.getEndYear(); year++) {
+                    CombinedDataByYear combined = dataCombiner.combineYear(moviesByYear.get(year),
+                            populationsByYear.get(year));
+                    if (combined != null) {
+                        data.put(year, combined);
+                    }
+                }
+                series.add(new CombinedDataSeries(query, data));
+            }
+            return series;
+        });
+    }
+
+    /**
+     * Fetches the given years of one source with one fetch per contiguous run of years.
+     *
+     * @param <T>     The type of the statistics.
+     * @param years   The years to fetch, in order.
+     * @param fetch   Fetches the statistics of a run of years, given its first and last year.
+     * @param yearOf  Gets the year of fetched statistics.
+     * @param counter Counts the fetches.
+     * @return A CompletableFuture containing the statistics by year, years without data are missing.
+     */
+    private static <T> CompletableFuture<Map<Integer, T>> fetchRuns(SortedSet<Integer> years,
+            BiFunction<Integer, Integer, CompletableFuture<List<T>>> fetch, ToIntFunction<T> yearOf,
+            AtomicLong counter) {
+        List<CompletableFuture<List<T>>> runs = new ArrayList<>();
+        int runStart = years.first();
+        int previous = runStart;
+        for (int year : years.tailSet(runStart + 1)) {
+            if (year != previous + 1) {
+                runs.add(fetch.apply(runStart, previous));
+                runStart = year;
+            }
+            previous = year;
+        }
+        runs.add(fetch.apply(runStart, previous));
+        counter.addAndGet(runs.size());
+        return CompletableFuture.allOf(runs.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<Integer, T> byYear = new HashMap<>();
+            for (CompletableFuture<List<T>> run : runs) {
+                for (T statistics : run.join()) {
+                    byYear.put(yearOf.applyAsInt(statistics), statistics);
+                }
+            }
+            return byYear;
+        });
+    }
+
+    /**
+     * Fetches and combines the movie and population data of one query asynchronously.
+     *
+     * @param country   The name of the country for which to fetch data.
+     * @param genre     The genre of the movies for which to fetch data.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator for which to fetch data.
+     * @return A CompletableFuture containing the combined data by year.
+     */
+    private CompletableFuture<TreeMap<Integer, CombinedDataByYear>> computeCombinedDataAsync(String country,
+            String genre, int startYear, int endYear, String indicator) {
+        String countryCode = apiCodes.getCountryCodeMap().getOrDefault(country, "246");
+        String movieCountryCode = apiCodes.getMovieCountryCodeMap().getOrDefault(country, "fi");
+        String genreCode = apiCodes.getGenreCodeMap().getOrDefault(genre, "28");
+
+        CompletableFuture<List<MovieStatistics>> moviesData = tmdbService.fetchMoviesAsync(genreCode,
+                movieCountryCode, startYear, endYear);
+        CompletableFuture<List<PopulationStatistics>> populationData = unPopulationService
+                .fetchIntervalDataAsync(countryCode, indicator, startYear, endYear);
+        return moviesData.thenCombine(populationData, dataCombiner::combineData);
+    }
+
+    /**
+     * Fetches and combines the movie and population data of one query.
+     *
+     * @param country   The name of the country for which to fetch data.
+     * @param genre     The genre of the movies for which to fetch data.
+     * @param startYear The starting year of the data range.
+     * @param endYear   The ending year of the data range.
+     * @param indicator The population indicator for which to fetch data.
+     * @return A TreeMap with the combined data by year.
+     */
+    private TreeMap<Integer, CombinedDataByYear> computeCombinedData(String country, String genre, int startYear,
+            int endYear, String indicator) {
+        // Convert country name and genre to corresponding codes using ApiCodes
+        String countryCode = apiCodes.getCountryCodeMap().getOrDefault(country, "246");
+        String movieCountryCode = apiCodes.getMovieCountryCodeMap().getOrDefault(country, "fi");
+        String genreCode = apiCodes.getGenreCodeMap().getOrDefault(genre, "28");
+
+        // Fetch data for movies and population using the provided parameters
+        List<MovieStatistics> moviesData = tmdbService.fetchMovies(genreCode, movieCountryCode, startYear, endYear);
+        List<PopulationStatistics> populationData = unPopulationService.fetchIntervalData(countryCode, indicator,
+                startYear, endYear);
+
+        // Combine the fetched movie and population data
+        return dataCombiner.combineData(moviesData, populationData);
+    }
+
+    /**
+     * Gets the counters of the deduplication of concurrent identical queries.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getCoalescingStats() {
+        return inFlightQueries.getStats();
+    }
+
+    /**
+     * Gets the counters of the batch requests: how many batches and queries were served, and
+     * how many TMDB and UN fetches they needed after sharing them between the queries.
+     *
+     * @return A map with the keys "batches", "queries", "movieFetches" and "populationFetches".
+     */
+    public Map<String, Long> getBatchStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("batches", batches.get());
+        stats.put("queries", batchQueries.get());
+        stats.put("movieFetches", batchMovieFetches.get());
+        stats.put("populationFetches", batchPopulationFetches.get());
+        return stats;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.moviepopularitybackend.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.moviepopularitybackend.model.CombinedDataByYear;
+import com.example.moviepopularitybackend.model.CombinedDataQuery;
+import com.example.moviepopularitybackend.model.CombinedDataSeries;
+import com.example.moviepopularitybackend.model.PreferenceSeries;
+import com.example.moviepopularitybackend.model.PreferencesPage;
+import com.example.moviepopularitybackend.model.UserPreferences;
+
+/**
+ * Service that builds the dashboard of saved preferences: the combined data of every saved
+ * preference, or of a page of them, in one response instead of one {@code /combinedData}
+ * request per preference.
+ *
+ * <p>
+ * The preferences are answered as one batch of {@link CombinedDataService}, so preferences
+ * sharing a country or a genre share their upstream fetches. With {@code dashboard.warm.enabled}
+ * the combined data of every saved preference is also kept in memory and recomputed in the
+ * background every {@code dashboard.warm.interval}, so loading the dashboard is a memory read.
+ * Only results with every year of their range and no stale year are kept, so a result built
+ * while an upstream was failing is not served for a whole interval. Kept results are at most
+ * one interval older than the upstream caches they are built from; results of preferences that
+ * are no longer saved are dropped by the next pass.
+ * </p>
+ */
+@Service
+public class DashboardService {
+
+    @Autowired
+    private SaveService saveService;
+
+    @Autowired
+    private CombinedDataService combinedDataService;
+
+    @Value("${dashboard.warm.enabled:false}")
+    private boolean warmEnabled;
+
+    /** The number of preferences computed together in one batch by a warming pass. */
+    @Value("${dashboard.warm.batch-size:25}")
+    private int warmBatchSize;
+
+    /** Preferences with more years than a query of /combinedData may have get an empty series. */
+    @Value("${combined-data.max-year-span:100}")
+    private int maxYearSpan;
+
+    /** The combined data of saved preferences by id, kept while warming is enabled. */
+    private final Map<Long, TreeMap<Integer, CombinedDataByYear>> materialized = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong materializedHits = new AtomicLong();
+    private final AtomicLong computedSeries = new AtomicLong();
+    private final AtomicLong warmPasses = new AtomicLong();
+    private final AtomicLong warmErrors = new AtomicLong();
+
+    /**
+     * Gets the combined data of every saved preference.
+     *
+     * @return A CompletableFuture containing a single page with one series per saved preference,
+     *         in the order they were saved.
+     */
+    public CompletableFuture<PreferencesPage<PreferenceSeries>> getDashboard() {
+        List<UserPreferences> preferences = new ArrayList<>(saveService.GetFileContents());
+        return getSeries(preferences).thenApply(
+                series -> new PreferencesPage<>(series, 0, Math.max(1, series.size()), series.size()));
+    }
+
+    /**
+     * Gets the combined data of one page of the saved preferences.
+     *
+     * @param page The number of the page, starting from 0.
+     * @param size The maximum number of preferences on a page, at least 1.
+     * @return A CompletableFuture containing the page with one series per preference on it.
+     */
+    public CompletableFuture<PreferencesPage<PreferenceSeries>> getDashboard(int page, int size) {
+        PreferencesPage<UserPreferences> preferences = saveService.getPreferencesPage(page, size);
+        return getSeries(preferences.getItems()).thenApply(
+                series -> new PreferencesPage<>(series, page, size, preferences.getTotalItems()));
+    }
+
+    /**
+     * Recomputes the combined data of every saved preference, if warming is enabled. Scheduled
+     * with the configured initial delay and the configured delay between passes. A batch that
+     * fails keeps the results of the previous pass.
+     */
+    @Scheduled(initialDelayString = "${dashboard.warm.initial-delay:PT1M}",
+            fixedDelayString = "${dashboard.warm.interval:PT15M}")
+    public void warmAll() {
+        if (!warmEnabled || !warming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<UserPreferences> preferences = new ArrayList<>(saveService.GetFileContents());
+            Set<Long> saved = new HashSet<>();
+            for (int first = 0; first < preferences.size(); first += warmBatchSize) {
+                List<UserPreferences> batch = new ArrayList<>();
+                List<CombinedDataQuery> queries = new ArrayList<>();
+                for (UserPreferences up : preferences.subList(first,
+                        Math.min(first + warmBatchSize, preferences.size()))) {
+                    saved.add(up.getId());
+                    CombinedDataQuery query = toQuery(up);
+                    if (query != null) {
+                        batch.add(up);
+                        queries.add(query);
+                    }
+                }
+                if (queries.isEmpty()) {
+                    continue;
+                }
+                try {
+                    List<CombinedDataSeries> results = combinedDataService.getCombinedDataBatch(queries).join();
+                    for (int i = 0; i < batch.size(); i++) {
+                        materialize(batch.get(i).getId(), queries.get(i), results.get(i).getData());
+                    }
+                    computedSeries.addAndGet(queries.size());
+                } catch (CompletionException e) {
+                    warmErrors.incrementAndGet();
+                    System.out.println("Warming the dashboard failed: " + e.getCause());
+                }
+            }
+            materialized.keySet().retainAll(saved);
+            warmPasses.incrementAndGet();
+        } finally {
+            warming.set(false);
+        }
+    }
+
+    /**
+     * Gets the combined data of the given preferences. Kept results are used as they are, the
+     * others are computed together in one batch.
+     *
+     * @param preferences The saved preferences.
+     * @return A CompletableFuture containing one series per preference, in the same order.
+     */
+    private CompletableFuture<List<PreferenceSeries>> getSeries(List<UserPreferences> preferences) {
+        requests.incrementAndGet();
+        PreferenceSeries[] series = new PreferenceSeries[preferences.size()];
+        List<Integer> missing = new ArrayList<>();
+        List<CombinedDataQuery> queries = new ArrayList<>();
+        for (int i = 0; i < preferences.size(); i++) {
+            UserPreferences up = preferences.get(i);
+            TreeMap<Integer, CombinedDataByYear> data = materialized.get(up.getId());
+            CombinedDataQuery query = data == null ? toQuery(up) : null;
+            if (data != null) {
+                materializedHits.incrementAndGet();
+                series[i] = new PreferenceSeries(up, data);
+            } else if (query == null) {
+                series[i] = new PreferenceSeries(up, new TreeMap<>());
+            } else {
+                missing.add(i);
+                queries.add(query);
+            }
+        }
+        if (queries.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(series));
+        }
+        computedSeries.addAndGet(queries.size());
+        return combinedDataService.getCombinedDataBatch(queries).thenApply(results -> {
+            for (int j = 0; j < missing.size(); j++) {
+                int i = missing.get(j);
+                TreeMap<Integer, CombinedDataByYear> data = results.get(j).getData();
+                if (warmEnabled) {
+                    materialize(preferences.get(i).getId(), queries.get(j), data);
+                }
+                series[i] = new PreferenceSeries(preferences.get(i), data);
+            }
+            return Arrays.asList(series);
+        });
+    }
+
+    /**
+     * Keeps the combined data of a saved preference in memory if it has every year of its query
+     * and none of them is stale. Otherwise the kept data of the preference is dropped, so that
+     * the next request fetches the missing years again.
+     *
+     * @param id    The id of the saved preference.
+     * @param query The query of the preference.
+     * @param data  The combined data of the query.
+     */
+    private void materialize(long id, CombinedDataQuery query, TreeMap<Integer, CombinedDataByYear> data) {
+        boolean complete = data.size() == query.getEndYear() - query.getStartYear() + 1;
+        for (CombinedDataByYear year : data.values()) {
+            complete &= !year.isStale();
+        }
+        if (complete) {
+            materialized.put(id, data);
+        } else {
+            materialized.remove(id);
+        }
+    }
+
+    /**
+     * Converts a saved preference to a query for combined data.
+     *
+     * @param up The saved preference.
+     * @return The query, or null if the preference has a missing value, no valid year range or
+     *         more than {@code combined-data.max-year-span} years.
+     */
+    private CombinedDataQuery toQuery(UserPreferences up) {
+        if (up.getCountry() == null || up.getGenre() == null || up.getIndicator() == null
+                || up.getStartYear() == null || up.getEndYear() == null) {
+            return null;
+        }
+        try {
+            int startYear = Integer.parseInt(up.getStartYear().trim());
+            int endYear = Integer.parseInt(up.getEndYear().trim());
+            if (startYear > endYear || (long) endYear - startYear + 1 > maxYearSpan) {
+                return null;
+            }
+            return new CombinedDataQuery(up.getCountry(), up.getGenre(), up.getIndicator(), startYear, endYear);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the counters of the dashboard: requests, series served from memory and computed,
+     * and the warming passes.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("warmEnabled", warmEnabled ? 1L : 0L);
+        stats.put("requests", requests.get());
+        stats.put("materializedHits", materializedHits.get());
+        stats.put("computedSeries", computedSeries.get());
+        stats.put("materialized", (long) materialized.size());
+        stats.put("warmPasses", warmPasses.get());
+        stats.put("warmErrors", warmErrors.get());
+        return stats;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.moviepopularitybackend.services;
+
+import java.time.Duration;
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import com.example.moviepopularitybackend.model.ApiCodes;
+
+/**
+ * Service that pre-fetches the whole known query space in the background, so that interactive
+ * {@code /combinedData} requests are served from the caches instead of the upstream APIs.
+ *
+ * <p>
+ * {@link ApiCodes} lists a fixed set of countries, genres and indicators, so every
+ * (country, genre) movie range and every (country, indicator) population range can be fetched
+ * ahead of time. A pass walks through all of them one query at a time, pausing between queries
+ * to stay well within the upstream rate limits, and is repeated at the configured interval.
+ * The caches must be able to hold every prefetched year at once, or a pass evicts its own
+ * earlier results; a warning is logged on startup if they cannot.
+ * </p>
+ */
+@Service
+public class PrefetchScheduler {
+
+    @Autowired
+    private TmdbService tmdbService;
+
+    @Autowired
+    private UnPopulationService unPopulationService;
+
+    @Autowired
+    private ApiCodes apiCodes;
+
+    @Value("${prefetch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${prefetch.start-year:1950}")
+    private int startYear;
+
+    /** The last year to prefetch, 0 means the current year. */
+    @Value("${prefetch.end-year:0}")
+    private int endYear;
+
+    @Value("${prefetch.pause-between-queries:PT1S}")
+    private Duration pauseBetweenQueries;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong queriesTotal = new AtomicLong();
+    private final AtomicLong queriesDone = new AtomicLong();
+    private final AtomicLong queriesIncomplete = new AtomicLong();
+    private final AtomicLong lastPassStartedAt = new AtomicLong();
+    private final AtomicLong lastPassFinishedAt = new AtomicLong();
+
+    /**
+     * Checks that the caches can hold the whole prefetch space once the configuration values
+     * have been injected, and warns if they cannot.
+     */
+    @PostConstruct
+    void checkCacheCapacity() {
+        if (!enabled) {
+            return;
+        }
+        long years = Math.max(0, (endYear > 0 ? endYear : Year.now().getValue()) - startYear + 1);
+        long countries = apiCodes.getCountryCodeMap().size();
+        warnIfTooSmall("tmdb.cache.max-entries", tmdbService.getCacheStats().get("maxEntries"),
+                countries * apiCodes.getGenreCodeMap().size() * years);
+        warnIfTooSmall("un.cache.max-entries", unPopulationService.getCacheStats().get("maxEntries"),
+                countries * apiCodes.getIndicatorCodeMap().size() * years);
+    }
+
+    private static void warnIfTooSmall(String property, long maxEntries, long prefetchedEntries) {
+        if (maxEntries < prefetchedEntries) {
+            System.out.println("Warning: " + property + "=" + maxEntries + " is smaller than the "
+                    + prefetchedEntries + " entries of a prefetch pass, the pass evicts its own results.");
+        }
+    }
+
+    /**
+     * Runs one prefetch pass over every country, genre and indicator, if prefetching is enabled.
+     * Scheduled with the configured initial delay and the configured delay between passes.
+     */
+    @Scheduled(initialDelayString = "${prefetch.initial-delay:PT30S}", fixedDelayString = "${prefetch.interval:PT24H}")
+    public void prefetchAll() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int lastYear = endYear > 0 ? endYear : Year.now().getValue();
+            Map<String, String> countries = apiCodes.getCountryCodeMap();
+            Map<String, String> movieCountries = apiCodes.getMovieCountryCodeMap();
+            Map<String, String> genres = apiCodes.getGenreCodeMap();
+            Map<String, String> indicators = apiCodes.getIndicatorCodeMap();
+
+            queriesTotal.set((long) countries.size() * (genres.size() + indicators.size()));
+            queriesDone.set(0);
+            queriesIncomplete.set(0);
+            lastPassStartedAt.set(System.currentTimeMillis());
+            int expectedYears = lastYear - startYear + 1;
+            System.out.println("Prefetch started for years " + startYear + "-" + lastYear + ", "
+                    + queriesTotal.get() + " queries.");
+
+            for (Map.Entry<String, String> country : countries.entrySet()) {
+                String movieCountryCode = movieCountries.get(country.getKey());
+                for (String genreCode : genres.values()) {
+                    int years = tmdbService.fetchMovies(genreCode, movieCountryCode, startYear, lastYear).size();
+                    if (!queryDone(years, expectedYears)) {
+                        return;
+                    }
+                }
+                for (String indicatorCode : indicators.values()) {
+                    int years = unPopulationService
+                            .fetchIntervalData(country.getValue(), indicatorCode, startYear, lastYear).size();
+                    if (!queryDone(years, expectedYears)) {
+                        return;
+                    }
+                }
+            }
+            passes.incrementAndGet();
+            lastPassFinishedAt.set(System.currentTimeMillis());
+            System.out.println("Prefetch finished, " + queriesIncomplete.get() + " queries incomplete.");
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Records the outcome of one prefetch query and pauses before the next one.
+     *
+     * @param years         The number of years fetched.
+     * @param expectedYears The number of years requested.
+     * @return {@code false} if the pass should stop because the thread was interrupted.
+     */
+    private boolean queryDone(int years, int expectedYears) {
+        if (years < expectedYears) {
+            queriesIncomplete.incrementAndGet();
+        }
+        queriesDone.incrementAndGet();
+        try {
+            Thread.sleep(pauseBetweenQueries);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the progress of the current or latest prefetch pass.
+     *
+     * @return A map of progress counter names to their values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled ? 1L : 0L);
+        stats.put("running", running.get() ? 1L : 0L);
+        stats.put("completedPasses", passes.get());
+        stats.put("queriesTotal", queriesTotal.get());
+        stats.put("queriesDone", queriesDone.get());
+        stats.put("queriesIncomplete", queriesIncomplete.get());
+        stats.put("lastPassStartedAt", lastPassStartedAt.get());
+        stats.put("lastPassFinishedAt", lastPassFinishedAt.get());
+        return stats;
+    }
+}
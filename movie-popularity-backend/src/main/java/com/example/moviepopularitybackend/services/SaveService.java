@@ -1,152 +1,692 @@
-
 package com.example.moviepopularitybackend.services;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import org.springframework.stereotype.Service;
-import java.util.Set;
-import java.util.HashSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.example.moviepopularitybackend.model.PreferencesPage;
 import com.example.moviepopularitybackend.model.UserPreferences;
+import com.example.moviepopularitybackend.utility.RecordLog;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 
 /**
  *
  * Service for saving and fetching user preference data into a json file
+ *
+ * <p>
+ * The saved preferences are kept in memory in the order they were saved, so reads never touch
+ * the disk. Every saved preference gets a stable id, which is never reused, for looking it up
+ * and deleting it in constant time. The json file is a snapshot of the preferences; every change after the snapshot is
+ * appended to a log next to it instead of rewriting the file, and synced before the change is
+ * acknowledged. Once the log holds {@code preferences.compaction-threshold} changes, a new
+ * snapshot is written to a temporary file that is atomically moved over the old one, and the
+ * log is emptied. On startup the snapshot is read and the log is replayed on top of it. A new
+ * snapshot is only written once every change it holds is in the log, so a crash between the
+ * two steps of a compaction leaves the complete log of the changes since the old snapshot.
+ * Replaying it over the new snapshot gives the same result: ids are never reused, a logged
+ * preference whose id or settings are already present is skipped, and a preference deleted
+ * after it was saved is deleted again by the later record of the log.
+ * The log starts with the next id to assign, so that ids of deleted preferences stay unused.
+ * </p>
+ *
+ * <p>
+ * With {@code preferences.write-behind.enabled} a change is acknowledged as soon as it is
+ * applied in memory and queued. A writer thread appends the queued changes to the log as one
+ * batch with a single sync every {@code preferences.write-behind.flush-interval}, or as soon as
+ * {@code preferences.write-behind.batch-size} changes are queued, and writes the compacted
+ * snapshots. The queue is written when the application stops, from the shutdown hook of Spring,
+ * so a clean stop loses nothing; a crash loses the changes of at most one flush interval.
+ * </p>
  */
 @Service
 public class SaveService {
 
+    /** Version of the change record format of the log. */
+    private static final int LOG_FORMAT_VERSION = 1;
+    /** A saved preference, as json including its id. */
+    private static final byte ADD = 1;
+    /** A deleted preference as json, written by logs before preferences had ids. */
+    private static final byte REMOVE = 2;
+    /** A deleted preference by its id. */
+    private static final byte REMOVE_ID = 3;
+    /** The next id to assign, written at the start of the log by a compaction. */
+    private static final byte NEXT_ID = 4;
+
+    /** Gson instances are thread-safe, one is shared by every read and write. */
+    private static final Gson GSON = new Gson();
+
     // filename for saving and fetching
-    private static final String FILE_NAME = "preferences.json";
+    @Value("${preferences.file:preferences.json}")
+    private String fileName;
+
+    @Value("${preferences.compaction-threshold:1000}")
+    private int compactionThreshold;
+
+    @Value("${preferences.write-behind.enabled:false}")
+    private boolean writeBehind;
+
+    @Value("${preferences.write-behind.flush-interval:50ms}")
+    private Duration flushInterval;
+
+    @Value("${preferences.write-behind.batch-size:500}")
+    private int flushBatchSize;
+
+    private Path snapshotFile;
+    private RecordLog changeLog;
+
+    /** The saved preferences by id in the order they were saved, guarded by {@link #lock}. */
+    private final Map<Long, UserPreferences> preferences = new LinkedHashMap<>();
+    /** The ids of the saved preferences by their settings, for finding duplicates. */
+    private final Map<UserPreferences, Long> ids = new HashMap<>();
+    private long nextId = 1;
+    /** Readers share the lock, writers hold it while appending to the log and updating the set. */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** The number of changes in the log since the last snapshot, including queued ones. */
+    private int loggedChanges;
+    /** Changes not yet written in write-behind mode, guarded by {@link #lock}. */
+    private List<byte[]> pending = new ArrayList<>();
+    /** Held while writing to the files in write-behind mode, so batches are written in order. */
+    private final Object writerLock = new Object();
+    private Thread writer;
+    private volatile boolean stopping;
+
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+
+    /**
+     * Loads the snapshot and replays the change log once the configuration values have been
+     * injected.
+     */
+    @PostConstruct
+    void init() {
+        snapshotFile = Path.of(fileName);
+        changeLog = new RecordLog(snapshotFile.resolveSibling(snapshotFile.getFileName() + ".log"),
+                LOG_FORMAT_VERSION, true);
+        lock.writeLock().lock();
+        try {
+            preferences.clear();
+            ids.clear();
+            nextId = 1;
+            List<UserPreferences> snapshot = readSnapshot();
+            // A snapshot written before preferences had ids gets them assigned in its order
+            boolean missingIds = false;
+            for (UserPreferences up : snapshot) {
+                nextId = Math.max(nextId, up.getId() + 1);
+                missingIds |= up.getId() <= 0;
+            }
+            for (UserPreferences up : snapshot) {
+                add(up);
+            }
+            loggedChanges = 0;
+            for (byte[] change : changeLog.readAll()) {
+                if (apply(change)) {
+                    loggedChanges++;
+                }
+            }
+            System.out.println("Loaded " + preferences.size() + " preferences, replayed " + loggedChanges
+                    + " logged changes.");
+            // Start from a compact snapshot, which also creates the file for a new installation
+            if (loggedChanges > 0 || missingIds || !Files.exists(snapshotFile)) {
+                compact();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (writeBehind) {
+            writer = Thread.ofPlatform().name("preferences-writer").daemon(true).start(this::runWriter);
+        }
+    }
+
+    /**
+     * Stops the writer thread of write-behind mode and writes the changes still queued. Called
+     * by Spring when the application stops, also from its JVM shutdown hook. Changes after this
+     * are written synchronously.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writerLock) {
+            flush();
+            lock.writeLock().lock();
+            try {
+                writeBehind = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
 
     /**
      * Saves incoming single userpreferences without duplication into json file,
      * creates file if one does not exist.
      * 
      * @param up The {@link UserPreferences} object to be saved.
-     * 
+     * @throws UncheckedIOException if the preference could not be written.
      */
     public void SavetoFile(UserPreferences up) {
-        try {
-
-            File file = new File(FILE_NAME);
+        savePreference(up);
+    }
 
-            Gson gson = new Gson();
+    /**
+     * Saves a single preference unless one with the same settings is already saved, and
+     * assigns its id.
+     *
+     * @param up The {@link UserPreferences} object to be saved, its id is set to the assigned id.
+     * @return The id of the saved preference, or of the already saved duplicate.
+     * @throws UncheckedIOException if the preference could not be written, it is then not saved.
+     */
+    public long savePreference(UserPreferences up) {
+        lock.writeLock().lock();
+        try {
+            // duplicate preference - skip
+            Long existing = ids.get(up);
+            if (existing != null) {
+                duplicates.incrementAndGet();
+                up.setId(existing);
+                return existing;
+            }
+            UserPreferences stored = copyOf(up);
+            stored.setId(nextId);
+            // the change is logged before it is visible to readers
+            logAdd(stored);
+            add(stored);
+            up.setId(stored.getId());
+            saved.incrementAndGet();
+            compactIfNeeded();
+            return stored.getId();
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            e.printStackTrace();
+            throw new UncheckedIOException("Preference could not be written", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-            // file already exists, save into it
-            if (file.exists()) {
+    /**
+     * Get current saved userpreferences. Served from memory, the saved file is only read on
+     * startup.
+     *
+     * @return A Set of {@link UserPreferences} containing all saved preferences in the order
+     *         they were saved, or an empty set if no preferences exist. The set and the
+     *         preferences are copies that the caller may change.
+     */
+    public Set<UserPreferences> GetFileContents() {
+        lock.readLock().lock();
+        try {
+            Set<UserPreferences> contents = new LinkedHashSet<>();
+            for (UserPreferences up : preferences.values()) {
+                contents.add(copyOf(up));
+            }
+            return contents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-                BufferedReader br = new BufferedReader(new FileReader(file));
+    /**
+     * Save a set of preferences instead of one. Overwrites existing data.
+     * Error check for non-existing file, creates one if needed.
+     *
+     * @param preferences A Set of {@link UserPreferences} to be saved.
+     */
+    public void SaveAllPreferences(Set<UserPreferences> preferences) {
+        // No batch of the writer may be appended after the log has been replaced
+        synchronized (writerLock) {
+            replaceAll(preferences);
+        }
+    }
 
-                // describing the data format for reading
-                TypeToken<Set<UserPreferences>> collectionType = new TypeToken<Set<UserPreferences>>() {
-                };
-                Set<UserPreferences> currentSet = gson.fromJson(br, collectionType);
+    private void replaceAll(Set<UserPreferences> preferences) {
+        lock.writeLock().lock();
+        try {
+            // Fold the log into the snapshot first, so that no logged change can be replayed over the new preferences
+            if (loggedChanges > 0) {
+                compact();
+            }
+            // Keep the ids of preferences that stay, and give new ones their own ids
+            List<UserPreferences> replacement = new ArrayList<>();
+            Set<UserPreferences> seen = new HashSet<>();
+            long assigned = nextId;
+            for (UserPreferences up : preferences) {
+                if (seen.add(up)) {
+                    UserPreferences stored = copyOf(up);
+                    Long existing = ids.get(up);
+                    stored.setId(existing != null ? existing : assigned++);
+                    replacement.add(stored);
+                }
+            }
+            writeSnapshot(replacement);
+            nextId = assigned;
+            // The snapshot is in place, a log with only the next id keeps new ids from reusing deleted ones
+            changeLog.rewrite(List.of(nextIdRecord(nextId)));
+            this.preferences.clear();
+            ids.clear();
+            for (UserPreferences up : replacement) {
+                add(up);
+            }
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-                // since data is saved as a set, addition automatically avoids duplication
+    /**
+     * Deletes the preference at the given position of {@link #GetFileContents()}.
+     * The position is looked up and the preference removed under one lock, so that a
+     * concurrent save cannot shift the preference that is deleted.
+     *
+     * @param index The index of the preference to delete.
+     * @return true if the preference was deleted, false if the index was invalid.
+     * @throws UncheckedIOException if the deletion could not be written, the preference is then kept.
+     */
+    public boolean deletePreference(int index) {
+        lock.writeLock().lock();
+        try {
+            if (index < 0 || index >= preferences.size()) {
+                return false;
+            }
+            Iterator<Long> iterator = preferences.keySet().iterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return delete(iterator.next());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-                // new preference save
-                if (currentSet.add(up)) {
-                    // rewrite file since new addition found
-                    br.close();
+    /**
+     * Deletes the preference with the given id.
+     *
+     * @param id The id of the preference to delete.
+     * @return true if the preference was deleted, false if there is no preference with the id.
+     * @throws UncheckedIOException if the deletion could not be written, the preference is then kept.
+     */
+    public boolean deletePreferenceById(long id) {
+        lock.writeLock().lock();
+        try {
+            return preferences.containsKey(id) && delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-                    try ( // clear old file with false bool
-                            BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
-                        String json = gson.toJson(currentSet);
-                        bw.append(json);
-                    }
+    /**
+     * Gets the preference with the given id.
+     *
+     * @param id The id of the preference.
+     * @return A copy of the preference, or null if there is no preference with the id.
+     */
+    public UserPreferences getPreference(long id) {
+        lock.readLock().lock();
+        try {
+            UserPreferences up = preferences.get(id);
+            return up == null ? null : copyOf(up);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
+    /**
+     * Gets one page of the saved preferences, in the order they were saved.
+     *
+     * @param page The number of the page, starting from 0.
+     * @param size The maximum number of preferences on a page, at least 1.
+     * @return The page, with no items if the page is after the last one.
+     */
+    public PreferencesPage<UserPreferences> getPreferencesPage(int page, int size) {
+        lock.readLock().lock();
+        try {
+            List<UserPreferences> items = new ArrayList<>();
+            long first = (long) page * size;
+            if (first < preferences.size()) {
+                Iterator<UserPreferences> iterator = preferences.values().iterator();
+                for (long i = 0; i < first; i++) {
+                    iterator.next();
                 }
-                // duplicate preference - skip
-                else {
-                    br.close();
+                while (iterator.hasNext() && items.size() < size) {
+                    items.add(copyOf(iterator.next()));
                 }
-
             }
-            // make new file, save into it
-            else {
-                // preferences saved as a set to avoid duplicates
-                Set<UserPreferences> prefset = new HashSet<>();
-                prefset.add(up);
-                file.createNewFile();
-                try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
-                    String json = gson.toJson(prefset);
-                    bw.append(json);
-                }
+            return new PreferencesPage<>(items, page, size, preferences.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Logs and removes a saved preference. Called with the write lock held.
+     */
+    private boolean delete(long id) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(REMOVE_ID);
+                out.writeLong(id);
             }
-        } catch (Exception e) {
+            log(bytes.toByteArray());
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            e.printStackTrace();
+            throw new UncheckedIOException("Deletion of preference " + id + " could not be written", e);
         }
+        ids.remove(preferences.remove(id));
+        deleted.incrementAndGet();
+        compactIfNeeded();
+        return true;
     }
 
     /**
-     * Get current saved userpreferences from json file. Error checks for
-     * empty or badly formatted file and non existing file.
+     * Gets the counters of the preference store.
      *
-     * @return A Set of {@link UserPreferences} containing all saved preferences, or
-     *         an empty set
-     *         if no preferences exist or if the file is not properly formatted.
+     * @return A map of counter names to their values.
      */
-    public Set<UserPreferences> GetFileContents() {
-        Set<UserPreferences> currentSet = new HashSet<>();
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
         try {
-            File file = new File(FILE_NAME);
-            Gson gson = new Gson();
+            stats.put("preferences", (long) preferences.size());
+            stats.put("loggedChanges", (long) loggedChanges);
+            stats.put("pendingChanges", (long) pending.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("saved", saved.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("deleted", deleted.get());
+        stats.put("compactions", compactions.get());
+        stats.put("writeErrors", writeErrors.get());
+        stats.put("flushedBatches", flushedBatches.get());
+        return stats;
+    }
 
-            // Old prefs exist
-            if (file.exists()) {
-                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                    TypeToken<Set<UserPreferences>> collectionType = new TypeToken<Set<UserPreferences>>() {
-                    };
-                    currentSet = gson.fromJson(br, collectionType.getType());
-                }
+    /**
+     * Logs a saved preference. Called with the write lock held.
+     */
+    private void logAdd(UserPreferences up) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ADD);
+            out.writeUTF(GSON.toJson(up));
+        }
+        log(bytes.toByteArray());
+    }
 
-                // issue with fromJson-check
-                if (currentSet == null) {
-                    System.out.println("Preferences file exists but is empty or not properly formatted.");
-                    currentSet = new HashSet<>();
-                } else {
-                    System.out.println("Loading preferences: Success");
-                }
-            } else {
-                System.out.println("Preferences file does not exist.");
+    /**
+     * Appends a change to the log and syncs it, or in write-behind mode queues it for the
+     * writer thread. Called with the write lock held.
+     */
+    private void log(byte[] change) throws IOException {
+        if (writeBehind) {
+            pending.add(change);
+            if (pending.size() >= flushBatchSize) {
+                LockSupport.unpark(writer);
+            }
+        } else {
+            changeLog.append(change, true);
+        }
+        loggedChanges++;
+    }
+
+    private void runWriter() {
+        while (!stopping) {
+            LockSupport.parkNanos(this, flushInterval.toNanos());
+            synchronized (writerLock) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Writes the queued changes of write-behind mode as one batch, and a new snapshot once the
+     * log holds enough changes. Called with {@link #writerLock} held; the files are written
+     * without the lock of the preferences, so saves and reads go on meanwhile. The batch is
+     * appended before the snapshot is written, so the log holds every change of the snapshot
+     * if the log cannot be emptied. A failed batch is queued again in front of the newer changes.
+     */
+    private void flush() {
+        List<byte[]> batch;
+        List<UserPreferences> snapshot = null;
+        int changes;
+        long snapshotNextId;
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            changes = loggedChanges;
+            snapshotNextId = nextId;
+            if (loggedChanges >= compactionThreshold) {
+                // The stored preferences are never changed, the snapshot can share them
+                snapshot = new ArrayList<>(preferences.values());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            changeLog.appendAll(batch, true);
+            flushedBatches.incrementAndGet();
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            e.printStackTrace();
+            lock.writeLock().lock();
+            try {
+                pending.addAll(0, batch);
+            } finally {
+                lock.writeLock().unlock();
             }
-        } catch (FileNotFoundException e) {
+            return;
+        }
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            writeSnapshot(snapshot);
+            changeLog.rewrite(List.of(nextIdRecord(snapshotNextId)));
+            compactions.incrementAndGet();
         } catch (IOException e) {
+            // The log still holds every change, the next flush tries again
+            writeErrors.incrementAndGet();
             e.printStackTrace();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            loggedChanges -= changes;
+        } finally {
+            lock.writeLock().unlock();
         }
-        return currentSet;
+    }
+
+    private byte[] nextIdRecord(long id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(NEXT_ID);
+            out.writeLong(id);
+        }
+        return bytes.toByteArray();
     }
 
     /**
-     * Save a set of preferences instead of one. Overwrites existing data.
-     * Error check for non-existing file, creates one if needed.
-     * 
-     * @param preferences A Set of {@link UserPreferences} to be saved.
+     * Adds a preference to the index unless one with the same settings is already there,
+     * assigning the next id if it has none.
      */
-    public void SaveAllPreferences(Set<UserPreferences> preferences) {
-        try {
-            File file = new File(FILE_NAME);
-            Gson gson = new Gson();
+    private void add(UserPreferences up) {
+        if (ids.containsKey(up) || preferences.containsKey(up.getId())) {
+            return;
+        }
+        if (up.getId() <= 0) {
+            up.setId(nextId);
+        }
+        nextId = Math.max(nextId, up.getId() + 1);
+        preferences.put(up.getId(), up);
+        ids.put(up, up.getId());
+    }
 
-            // file exists or is created
-            if (file.exists() || file.createNewFile()) {
+    /**
+     * Compacts the log once it holds enough changes. Called with the write lock held, after the
+     * logged change has been applied to the set. A failed compaction leaves the log in place.
+     * In write-behind mode the writer thread compacts instead.
+     */
+    private void compactIfNeeded() {
+        if (writeBehind || loggedChanges < compactionThreshold) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
 
-                try ( // clear file with false bool
-                        BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
-                    String json = gson.toJson(preferences);
-                    bw.write(json);
+    /**
+     * Replays one record of the log.
+     *
+     * @return true if the record is a change, false for the next id record.
+     */
+    private boolean apply(byte[] change) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(change))) {
+            byte operation = in.readByte();
+            if (operation == ADD) {
+                add(GSON.fromJson(in.readUTF(), UserPreferences.class));
+            } else if (operation == REMOVE) {
+                Long id = ids.remove(GSON.fromJson(in.readUTF(), UserPreferences.class));
+                if (id != null) {
+                    preferences.remove(id);
+                }
+            } else if (operation == REMOVE_ID) {
+                UserPreferences up = preferences.remove(in.readLong());
+                if (up != null) {
+                    ids.remove(up);
                 }
+            } else if (operation == NEXT_ID) {
+                nextId = Math.max(nextId, in.readLong());
+                return false;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            return true;
+        }
+    }
+
+    private static UserPreferences copyOf(UserPreferences up) {
+        UserPreferences copy = new UserPreferences(up.getGenre(), up.getCountry(), up.getIndicator(),
+                up.getStartYear(), up.getEndYear());
+        copy.setId(up.getId());
+        return copy;
+    }
+
+    /**
+     * Writes the preferences as a new snapshot and empties the log and the queue of write-behind
+     * mode. The queued changes are appended first, so that the log holds every change of the
+     * snapshot until it is emptied. Called with the write lock held, and {@link #writerLock}
+     * while the writer runs.
+     */
+    private void compact() throws IOException {
+        if (!pending.isEmpty()) {
+            changeLog.appendAll(pending, true);
+            pending.clear();
+        }
+        writeSnapshot(preferences.values());
+        changeLog.rewrite(List.of(nextIdRecord(nextId)));
+        loggedChanges = 0;
+        compactions.incrementAndGet();
+    }
+
+    private List<UserPreferences> readSnapshot() throws IOException {
+        List<UserPreferences> snapshot = new ArrayList<>();
+        if (!Files.exists(snapshotFile)) {
+            System.out.println("Preferences file does not exist.");
+            return snapshot;
+        }
+        try (BufferedReader br = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            // describing the data format for reading
+            TypeToken<List<UserPreferences>> collectionType = new TypeToken<List<UserPreferences>>() {
+            };
+            List<UserPreferences> saved = GSON.fromJson(br, collectionType.getType());
+            // issue with fromJson-check
+            if (saved == null) {
+                System.out.println("Preferences file exists but is empty or not properly formatted.");
+            } else {
+                snapshot.addAll(saved);
+            }
+        } catch (JsonParseException e) {
+            System.out.println("Preferences file exists but is empty or not properly formatted.");
         }
+        return snapshot;
     }
 
+    /**
+     * Writes the preferences to a temporary file, syncs it and atomically moves it over the
+     * json file, so a crash leaves either the old or the new snapshot in place.
+     */
+    private void writeSnapshot(Collection<UserPreferences> snapshot) throws IOException {
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter bw = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                bw.write(GSON.toJson(new ArrayList<>(snapshot)));
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            RecordLog.syncDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
 }
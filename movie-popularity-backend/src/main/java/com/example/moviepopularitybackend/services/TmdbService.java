@@ -1,21 +1,42 @@
 package com.example.moviepopularitybackend.services;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Year;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import com.example.moviepopularitybackend.model.MovieStatistics;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.moviepopularitybackend.model.SummaryStatistics;
+import com.example.moviepopularitybackend.utility.CircuitBreaker;
+import com.example.moviepopularitybackend.utility.RateLimiter;
+import com.example.moviepopularitybackend.utility.RetryingCaller;
+import com.example.moviepopularitybackend.utility.SingleFlight;
+import com.example.moviepopularitybackend.utility.TmdbResponseParser;
+import com.example.moviepopularitybackend.utility.TtlCache;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 /**
  * Service for interacting with the TMDB (The Movie Database)
@@ -27,51 +48,588 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Service
 public class TmdbService {
+    /** TMDB serves at most this many pages of discover results, whatever total_pages says. */
+    private static final int TMDB_MAX_PAGES = 500;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     @Value("${tmdb.api.key}")
     private String tmdbApiKey;
 
     @Value("${tmdb.api.url}")
     private String tmdbApiUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /** Large enough for a prefetch pass since 1950, which must not evict its own results. */
+    @Value("${tmdb.cache.max-entries:20000}")
+    private int cacheMaxEntries;
+
+    @Value("${tmdb.cache.ttl-closed-year-hours:168}")
+    private long cacheTtlClosedYearHours;
+
+    @Value("${tmdb.cache.ttl-current-year-minutes:60}")
+    private long cacheTtlCurrentYearMinutes;
+
+    @Value("${tmdb.paging.enabled:false}")
+    private boolean pagingEnabled;
+
+    @Value("${tmdb.paging.max-pages:500}")
+    private int pagingMaxPages;
+
+    @Value("${tmdb.paging.concurrency:4}")
+    private int pagingConcurrency;
+
+    @Value("${upstream.tmdb.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${upstream.tmdb.read-timeout:10s}")
+    private Duration readTimeout;
+
+    @Value("${upstream.tmdb.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${upstream.tmdb.retry.initial-backoff:200ms}")
+    private Duration retryInitialBackoff;
+
+    @Value("${upstream.tmdb.retry.max-backoff:2s}")
+    private Duration retryMaxBackoff;
+
+    @Value("${upstream.tmdb.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${upstream.tmdb.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${upstream.tmdb.hedge.min-delay:100ms}")
+    private Duration hedgeMinDelay;
+
+    @Value("${upstream.tmdb.rate-limit.permits-per-second:40}")
+    private double rateLimitPermitsPerSecond;
+
+    @Value("${upstream.tmdb.rate-limit.burst:20}")
+    private int rateLimitBurst;
+
+    @Value("${upstream.tmdb.circuit-breaker.failure-threshold:5}")
+    private int circuitBreakerFailureThreshold;
+
+    @Value("${upstream.tmdb.circuit-breaker.open-duration:30s}")
+    private Duration circuitBreakerOpenDuration;
+
+    @Autowired
+    private UpstreamExecutor upstreamExecutor;
+
+    @Autowired
+    private UpstreamHttpClient upstreamHttpClient;
+
+    @Autowired
+    private WarmCacheStore warmCacheStore;
+
+    private RestTemplate restTemplate;
+
+    /** Retries failed TMDB requests and, if enabled, hedges slow ones. */
+    private RetryingCaller retryingCaller;
+
+    /** Keeps the requests to the TMDB API within its rate limit. */
+    private RateLimiter rateLimiter;
+
+    /** Stops calling the TMDB while it is down, the last known data is served instead. */
+    private CircuitBreaker circuitBreaker;
+
+    /** Refreshes of the data served stale during an outage, run once the breaker closes again. */
+    private final Map<String, Runnable> revalidations = new ConcurrentHashMap<>();
+
+    private final AtomicLong staleServed = new AtomicLong();
+
+    /**
+     * Cache of movie counts keyed by genre, original language and year.
+     * Counts for past years rarely change, so they are kept much longer than
+     * counts for the current or a future year.
+     */
+    private TtlCache<String, MovieStatistics> movieCache;
+
+    /** Shares one upstream call between concurrent fetches of the same genre, language and year. */
+    private final SingleFlight<String, MovieStatistics> inFlightFetches = new SingleFlight<>();
+
+    /** Whether the movie counts stored on disk have been loaded into the cache. */
+    private volatile boolean warmCacheLoaded;
+
+    /**
+     * Initializes the movie count cache once the configuration values have been injected.
+     */
+    @PostConstruct
+    void initCache() {
+        movieCache = new TtlCache<>(cacheMaxEntries);
+    }
+
+    /**
+     * Creates the rate limited client on the shared connection pool with per-attempt timeouts,
+     * the retry policy and the circuit breaker, once the configuration values have been injected.
+     */
+    @PostConstruct
+    void initClient() {
+        rateLimiter = new RateLimiter(rateLimitPermitsPerSecond, rateLimitBurst);
+        circuitBreaker = new CircuitBreaker(UpstreamExecutor.TMDB, circuitBreakerFailureThreshold,
+                circuitBreakerOpenDuration, this::revalidateStale);
+        restTemplate = upstreamHttpClient.createRestTemplate(connectTimeout, readTimeout, rateLimiter);
+        retryingCaller = new RetryingCaller(new RetryingCaller.Settings(retryMaxAttempts, retryInitialBackoff,
+                retryMaxBackoff, hedgeEnabled, hedgePercentile, hedgeMinDelay));
+    }
+
+    /**
+     * Starts loading the movie counts stored on disk into the cache in the background
+     * as soon as the application is ready, so that the first requests after a restart
+     * do not have to wait for the upstream API.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void loadWarmCacheInBackground() {
+        Thread.ofVirtual().name("tmdb-warm-cache").start(this::loadWarmCache);
+    }
+
+    /**
+     * Loads the movie counts stored on disk into the cache, once. Callers arriving while
+     * the load is running wait for it to finish.
+     */
+    private void loadWarmCache() {
+        if (warmCacheLoaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!warmCacheLoaded) {
+                // Expired counts are kept as the last known counts for an upstream outage
+                warmCacheStore.loadMovies((movie, expiresAt) -> movieCache.putUntil(
+                        cacheKey(movie.getGenre(), movie.getCountry(), movie.getYearValue(),
+                                movie.getPopularity() != null),
+                        movie,
+                        expiresAt));
+                warmCacheLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * Builds the cache key for a single discover query. Statistics paged through the whole
+     * movie list are kept apart from plain movie counts.
+     *
+     * @param genre          The genre code of the movies.
+     * @param countryLetters The country code for the original language of the movies.
+     * @param year           The release year of the movies.
+     * @param paged          Whether the statistics include the movie list summaries.
+     * @return The cache key.
+     */
+    private static String cacheKey(String genre, String countryLetters, int year, boolean paged) {
+        String key = genre + "|" + countryLetters + "|" + year;
+        return paged ? key + "|paged" : key;
+    }
+
+    /**
+     * Gets how long a movie count for the given year may be served from the cache.
+     * Years that have already ended use the long TTL, the current and future years the short one.
+     *
+     * @param year The release year of the cached movie count.
+     * @return The time-to-live in milliseconds.
+     */
+    private long cacheTtlMillis(int year) {
+        if (year < Year.now().getValue()) {
+            return TimeUnit.HOURS.toMillis(cacheTtlClosedYearHours);
+        }
+        return TimeUnit.MINUTES.toMillis(cacheTtlCurrentYearMinutes);
+    }
+
+    /**
+     * Gets when the cached movie statistics of the given years were stored, without fetching
+     * anything. A time changes whenever new statistics are stored for its year.
+     *
+     * @param genre          The genre code of the movies.
+     * @param countryLetters The country code for the original language of the movies.
+     * @param startYear      The first year.
+     * @param endYear        The last year, not before the first year.
+     * @return The times in milliseconds in year order, or null if a year has no fresh
+     *         statistics in the cache.
+     */
+    public long[] getCachedAt(String genre, String countryLetters, int startYear, int endYear) {
+        long[] storedAt = new long[endYear - startYear + 1];
+        for (int year = startYear; year <= endYear; year++) {
+            storedAt[year - startYear] = movieCache.getStoredAt(cacheKey(genre, countryLetters, year, pagingEnabled));
+            if (storedAt[year - startYear] == 0) {
+                return null;
+            }
+        }
+        return storedAt;
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the movie count cache.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getCacheStats() {
+        return movieCache.getStats();
+    }
+
+    /**
+     * Gets the counters of the deduplication of concurrent identical fetches.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getCoalescingStats() {
+        return inFlightFetches.getStats();
+    }
+
+    /**
+     * Gets the attempt, retry and hedging counters of the TMDB requests.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getRetryStats() {
+        return retryingCaller.getStats();
+    }
+
+    /**
+     * Gets the rate limit, wait time and throttling counters of the TMDB requests.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getRateLimitStats() {
+        return rateLimiter.getStats();
+    }
+
+    /**
+     * Gets the state of the circuit breaker of the TMDB, how often stale data has been
+     * served and how many refreshes are waiting for the upstream to recover.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Object> getCircuitBreakerStats() {
+        Map<String, Object> stats = circuitBreaker.getStats();
+        stats.put("staleServed", staleServed.get());
+        stats.put("pendingRevalidations", (long) revalidations.size());
+        return stats;
+    }
+
+    /**
+     * Refreshes the data that has been served stale, called on a thread of its own when the
+     * circuit breaker closes. The refreshes go through the upstream lanes like any other fetch.
+     */
+    private void revalidateStale() {
+        for (String key : new ArrayList<>(revalidations.keySet())) {
+            Runnable revalidation = revalidations.remove(key);
+            if (revalidation != null) {
+                revalidation.run();
+            }
+        }
+    }
 
     /**
      * Asynchronously fetches movie data for specific year from the TMDB API.
+     * The result is served from the cache when a fresh count for the same genre,
+     * language and year is available, and concurrent fetches of the same count share
+     * a single upstream call. While the circuit breaker of TMDB is open, or when the queue of
+     * TMDB calls is full, the last known count is served right away instead.
      * This method is used by the fetchMovies method, and not used separately.
      *
      * @param genre          The genre code of the movies to fetch.
      * @param countryLetters The country code for the original language of the
      *                       movies.
      * @param year           The year for which to fetch the movies.
-     * @return A CompletableFuture containing the JSON data as a string, or
-     *         {@code null} if
-     *         the fetch operation fails.
+     * @return A CompletableFuture containing the movie statistics for the year, possibly
+     *         stale, or {@code null} if the fetch operation fails and there are no last
+     *         known statistics.
+     */
+    private CompletableFuture<MovieStatistics> fetchMovieByYear(String genre, String countryLetters, int year) {
+        String key = cacheKey(genre, countryLetters, year, pagingEnabled);
+        MovieStatistics cached = movieCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (circuitBreaker.isOpen()) {
+            return CompletableFuture.completedFuture(lastKnownMovie(key, genre, countryLetters, year));
+        }
+
+        if (pagingEnabled) {
+            return inFlightFetches.execute(key, () -> requestMovieStatistics(genre, countryLetters, year));
+        }
+        return inFlightFetches.execute(key, () -> upstreamExecutor.supply(UpstreamExecutor.TMDB,
+                genre + "|" + countryLetters, () -> requestMovieCount(genre, countryLetters, year),
+                () -> lastKnownMovie(key, genre, countryLetters, year)));
+    }
+
+    /**
+     * Gets the last known movie statistics of a year, for when they cannot be fetched because
+     * TMDB is failing, and schedules a refresh of the year for when TMDB has recovered if the
+     * circuit breaker is open.
+     *
+     * @param key            The cache key of the statistics.
+     * @param genre          The genre code of the movies.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param year           The year of the movies.
+     * @return The last known statistics marked as stale, or {@code null} if there are none.
+     */
+    private MovieStatistics lastKnownMovie(String key, String genre, String countryLetters, int year) {
+        // A one-off failure while the breaker is closed needs no refresh, the next request fetches the year
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            revalidations.putIfAbsent(key, () -> fetchMovieByYear(genre, countryLetters, year));
+        }
+        MovieStatistics lastKnown = movieCache.getStale(key);
+        if (lastKnown == null) {
+            return null;
+        }
+        staleServed.incrementAndGet();
+        return lastKnown.asStale();
+    }
+
+    /**
+     * Running summaries of the movies of one year, filled in as the result pages arrive.
+     */
+    private static final class MovieSummaries {
+        private final SummaryStatistics popularity = new SummaryStatistics();
+        private final SummaryStatistics voteAverage = new SummaryStatistics();
+        private final SummaryStatistics voteCount = new SummaryStatistics();
+
+        /**
+         * Adds the summaries of one page, pages may complete on different threads.
+         *
+         * @param page The summaries of the page.
+         */
+        private synchronized void merge(MovieSummaries page) {
+            popularity.merge(page.popularity);
+            voteAverage.merge(page.voteAverage);
+            voteCount.merge(page.voteCount);
+        }
+    }
+
+    /**
+     * The paging information and movie summaries of one discover result page.
+     *
+     * @param totalResults The total number of movies matching the query.
+     * @param totalPages   The total number of result pages.
+     * @param movies       The summaries of the movies on the page.
+     */
+    private record PageInfo(int totalResults, int totalPages, MovieSummaries movies) {
+    }
+
+    /**
+     * Pages through the discover results of a year and summarizes the popularity, average vote
+     * and vote count of the movies, then caches the statistics and writes them through to
+     * the persistent store. The first page tells how many pages there are, the rest are
+     * fetched with at most {@code tmdb.paging.concurrency} pages of the year in flight, up to
+     * {@code tmdb.paging.max-pages} and TMDB's own cap of 500 pages. Every page is read as a
+     * stream and only its summaries are kept, never the movies themselves.
+     *
+     * @param genre          The genre code of the movies to fetch.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param year           The year for which to fetch the movies.
+     * @return A CompletableFuture containing the movie statistics for the year, or the last
+     *         known statistics marked as stale, or {@code null} if any page fails and there
+     *         are none.
      */
-    private CompletableFuture<String> fetchMovieByYear(String genre, String countryLetters, int year) {
+    private CompletableFuture<MovieStatistics> requestMovieStatistics(String genre, String countryLetters, int year) {
+        MovieSummaries summaries = new MovieSummaries();
+        return requestPageAsync(genre, countryLetters, year, 1, summaries)
+                .thenCompose(first -> {
+                    int lastPage = Math.min(first.totalPages(), Math.min(pagingMaxPages, TMDB_MAX_PAGES));
+                    AtomicInteger nextPage = new AtomicInteger(2);
+                    List<CompletableFuture<Void>> workers = new ArrayList<>();
+                    for (int i = 0; i < Math.max(1, pagingConcurrency); i++) {
+                        workers.add(requestRemainingPages(genre, countryLetters, year, nextPage, lastPage,
+                                summaries));
+                    }
+                    return CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]))
+                            .thenApply(ignored -> first.totalResults());
+                })
+                .thenApply(totalResults -> {
+                    MovieStatistics movie;
+                    synchronized (summaries) {
+                        movie = new MovieStatistics(genre, year, countryLetters, totalResults, summaries.popularity,
+                                summaries.voteAverage, summaries.voteCount);
+                    }
+                    String key = cacheKey(genre, countryLetters, year, true);
+                    long ttlMillis = cacheTtlMillis(year);
+                    movieCache.put(key, movie, ttlMillis);
+                    warmCacheStore.storeMovie(key, movie, System.currentTimeMillis() + ttlMillis);
+                    return movie;
+                })
+                .exceptionally(e -> {
+                    // A full TMDB queue or an open breaker is expected under load, not worth a trace
+                    if (!(e.getCause() instanceof CircuitBreaker.OpenException)
+                            && !(e.getCause() instanceof RejectedExecutionException)) {
+                        e.printStackTrace();
+                    }
+                    return lastKnownMovie(cacheKey(genre, countryLetters, year, true), genre, countryLetters, year);
+                });
+    }
 
-        return CompletableFuture.supplyAsync(() -> {
+    /**
+     * Requests the next unclaimed page of a year, and the one after that once it has arrived,
+     * until every page up to the last one has been claimed. A few of these run side by side
+     * for each year, which bounds the number of pages of the year in flight.
+     */
+    private CompletableFuture<Void> requestRemainingPages(String genre, String countryLetters, int year,
+            AtomicInteger nextPage, int lastPage, MovieSummaries summaries) {
+        int page = nextPage.getAndIncrement();
+        if (page > lastPage) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return requestPageAsync(genre, countryLetters, year, page, summaries)
+                .thenCompose(ignored -> requestRemainingPages(genre, countryLetters, year, nextPage, lastPage,
+                        summaries));
+    }
 
-            String jsonData = null;
+    /**
+     * Requests one discover result page on the upstream executor, with retries, and merges
+     * the summaries of its movies into the year once the whole page has been read.
+     */
+    private CompletableFuture<PageInfo> requestPageAsync(String genre, String countryLetters, int year, int page,
+            MovieSummaries summaries) {
+        return upstreamExecutor.supply(UpstreamExecutor.TMDB, genre + "|" + countryLetters, () -> {
             try {
-                String urlString = tmdbApiUrl +
-                        "/3/discover/movie?include_adult=false&include_video=false&language=en-US&page=1&sort_by=popularity.desc&with_original_language="
-                        + countryLetters + "&api_key=" + tmdbApiKey + "&year=" + year + "&with_genres=" + genre;
-
-                HttpEntity<String> entity = new HttpEntity<>(new HttpHeaders());
-                ResponseEntity<String> response = restTemplate.exchange(urlString, HttpMethod.GET, entity,
-                        String.class);
-
-                if (response.getStatusCode() == HttpStatus.OK) {
-                    jsonData = response.getBody();
-                } else {
-                    System.out.println("GET request failed. Response Code: " + response.getStatusCode());
-                }
+                // Every attempt summarizes into its own object, so a torn or duplicate response is never counted
+                PageInfo info = circuitBreaker.call(() -> retryingCaller.call(() -> restTemplate.execute(
+                        discoverUrl(genre, countryLetters, year, page), HttpMethod.GET, null,
+                        response -> {
+                            if (response.getStatusCode() != HttpStatus.OK) {
+                                throw new IllegalStateException(
+                                        "GET request failed. Response Code: " + response.getStatusCode());
+                            }
+                            return readPage(response.getBody());
+                        })));
+                summaries.merge(info.movies());
+                return info;
             } catch (Exception e) {
-                e.printStackTrace();
+                throw new CompletionException(e);
             }
-            return jsonData;
         });
+    }
+
+    /**
+     * Reads a discover result page as a token stream, summarizing the popularity, average vote
+     * and vote count of every movie without building the movie objects.
+     *
+     * @param body The response body.
+     * @return The paging information and movie summaries of the page.
+     * @throws IOException if the body cannot be read or is not a discover result page.
+     */
+    private static PageInfo readPage(InputStream body) throws IOException {
+        MovieSummaries summaries = new MovieSummaries();
+        int totalResults = 0;
+        int totalPages = 1;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected TMDB response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "total_results" -> totalResults = parser.getIntValue();
+                    case "total_pages" -> totalPages = parser.getIntValue();
+                    case "results" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            readMovies(parser, summaries);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new PageInfo(totalResults, totalPages, summaries);
+    }
+
+    /**
+     * Reads the movies of a results array, the parser is positioned on the start of the array.
+     */
+    private static void readMovies(JsonParser parser, MovieSummaries summaries) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            double popularity = Double.NaN;
+            double voteAverage = Double.NaN;
+            double voteCount = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                boolean number = value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT;
+                switch (field) {
+                    case "popularity" -> popularity = number ? parser.getDoubleValue() : Double.NaN;
+                    case "vote_average" -> voteAverage = number ? parser.getDoubleValue() : Double.NaN;
+                    case "vote_count" -> voteCount = number ? parser.getDoubleValue() : Double.NaN;
+                    default -> parser.skipChildren();
+                }
+            }
+            summaries.popularity.add(popularity);
+            summaries.voteAverage.add(voteAverage);
+            summaries.voteCount.add(voteCount);
+        }
+    }
+
+    /**
+     * Builds the URL of a discover request for one page of the movies of a year.
+     *
+     * @param genre          The genre code of the movies to fetch.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param year           The year for which to fetch the movies.
+     * @param page           The number of the result page, starting from 1.
+     * @return The request URL.
+     */
+    private String discoverUrl(String genre, String countryLetters, int year, int page) {
+        return tmdbApiUrl +
+                "/3/discover/movie?include_adult=false&include_video=false&language=en-US&page=" + page
+                + "&sort_by=popularity.desc&with_original_language="
+                + countryLetters + "&api_key=" + tmdbApiKey + "&year=" + year + "&with_genres=" + genre;
+    }
 
+    /**
+     * Requests the movie count for a specific year from the TMDB API, caches it and
+     * writes it through to the persistent store. Failed requests are retried with backoff.
+     * Blocks until the response has been read.
+     *
+     * @param genre          The genre code of the movies to fetch.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param year           The year for which to fetch the movies.
+     * @return The movie statistics for the year, the last known statistics marked as stale
+     *         if every attempt fails or the circuit breaker is open, or {@code null} if there
+     *         are none.
+     */
+    private MovieStatistics requestMovieCount(String genre, String countryLetters, int year) {
+        MovieStatistics movie = null;
+        try {
+            int totalResults = circuitBreaker.call(
+                    () -> retryingCaller.call(() -> requestTotalResults(genre, countryLetters, year)));
+            movie = new MovieStatistics(genre, year, countryLetters, totalResults);
+            String key = cacheKey(genre, countryLetters, year, false);
+            long ttlMillis = cacheTtlMillis(year);
+            movieCache.put(key, movie, ttlMillis);
+            warmCacheStore.storeMovie(key, movie, System.currentTimeMillis() + ttlMillis);
+        } catch (CircuitBreaker.OpenException e) {
+            movie = lastKnownMovie(cacheKey(genre, countryLetters, year, false), genre, countryLetters, year);
+        } catch (Exception e) {
+            e.printStackTrace();
+            movie = lastKnownMovie(cacheKey(genre, countryLetters, year, false), genre, countryLetters, year);
+        }
+        return movie;
+    }
+
+    /**
+     * Sends a single discover request to the TMDB API and reads the total number of results.
+     *
+     * @param genre          The genre code of the movies to fetch.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param year           The year for which to fetch the movies.
+     * @return The number of movies matching the query.
+     * @throws Exception if the request fails or the response cannot be read.
+     */
+    private int requestTotalResults(String genre, String countryLetters, int year) throws Exception {
+        String urlString = discoverUrl(genre, countryLetters, year, 1);
+
+        return restTemplate.execute(urlString, HttpMethod.GET, null, response -> {
+            if (response.getStatusCode() != HttpStatus.OK) {
+                throw new IllegalStateException("GET request failed. Response Code: " + response.getStatusCode());
+            }
+            return TmdbResponseParser.readTotalResults(response.getBody());
+        });
     }
 
     /**
@@ -87,30 +645,60 @@ public class TmdbService {
      *         for each year.
      */
     public List<MovieStatistics> fetchMovies(String genre, String countryLetters, int startDate, int endDate) {
-        List<CompletableFuture<String>> futures = new ArrayList<>();
+        return fetchMoviesAsync(genre, countryLetters, startDate, endDate).join();
+    }
+
+    /**
+     * Starts fetching movie data for every year of an interval of (startDate -> endDate) and
+     * returns one future per year, so that each year can be used as soon as it arrives.
+     *
+     * @param genre          The genre code of the movies to fetch.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param startDate      The start year for which to fetch the movies.
+     * @param endDate        The end year for which to fetch the movies.
+     * @return A list of futures in year order, each completing with the movie statistics
+     *         of its year or {@code null} if the fetch fails.
+     */
+    public List<CompletableFuture<MovieStatistics>> fetchMovieFutures(String genre, String countryLetters,
+            int startDate, int endDate) {
+        loadWarmCache();
+        List<CompletableFuture<MovieStatistics>> futures = new ArrayList<>();
         for (int i = startDate; i <= endDate; i++) {
-            futures.add(fetchMovieByYear(genre, countryLetters, i));
+            futures.add(fetchMovieByYear(genre, countryLetters, i).exceptionally(e -> {
+                e.printStackTrace();
+                return null;
+            }));
         }
-        List<MovieStatistics> movies = new ArrayList<>();
-        int counter = 0;
-        for (CompletableFuture<String> future : futures) {
-            try {
-                String jsonData = future.get();
-                if (jsonData != null) {
-                    ObjectMapper mapper = new ObjectMapper();
-                    Map<String, Object> map = mapper.readValue(jsonData, Map.class);
-                    Integer totalResults = (Integer) map.get("total_results");
-                    int year = startDate + counter;
-                    MovieStatistics movie = new MovieStatistics(genre, Integer.toString(year), countryLetters,
-                            totalResults);
+        return futures;
+    }
+
+    /**
+     * Fetches movie data from an interval of (startDate -> endDate) from the TMDB API
+     * without blocking the calling thread while the requests are in flight.
+     *
+     * @param genre          The genre code of the movies to fetch.
+     * @param countryLetters The country code for the original language of the
+     *                       movies.
+     * @param startDate      The start year for which to fetch the movies.
+     * @param endDate        The end year for which to fetch the movies.
+     * @return A CompletableFuture containing the list of {@link MovieStatistics} objects
+     *         for each year that could be fetched, in year order.
+     */
+    public CompletableFuture<List<MovieStatistics>> fetchMoviesAsync(String genre, String countryLetters,
+            int startDate, int endDate) {
+        List<CompletableFuture<MovieStatistics>> futures = fetchMovieFutures(genre, countryLetters, startDate,
+                endDate);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<MovieStatistics> movies = new ArrayList<>();
+            for (CompletableFuture<MovieStatistics> future : futures) {
+                MovieStatistics movie = future.join();
+                if (movie != null) {
                     movies.add(movie);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
-            counter++;
-        }
-        return movies;
+            return movies;
+        });
     }
 
 }
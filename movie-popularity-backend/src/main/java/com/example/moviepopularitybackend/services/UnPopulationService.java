@@ -1,21 +1,33 @@
 package com.example.moviepopularitybackend.services;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import com.example.moviepopularitybackend.model.PopulationStatistics;
-import com.example.moviepopularitybackend.utility.Utility;
+import com.example.moviepopularitybackend.utility.CircuitBreaker;
+import com.example.moviepopularitybackend.utility.RateLimiter;
+import com.example.moviepopularitybackend.utility.RetryingCaller;
+import com.example.moviepopularitybackend.utility.SingleFlight;
+import com.example.moviepopularitybackend.utility.TtlCache;
+import com.example.moviepopularitybackend.utility.UnCsvParser;
 
 /**
  * Service with methods for fetching population data from the UN API.
@@ -29,77 +41,654 @@ public class UnPopulationService {
     @Value("${un.api.url}")
     private String unApiUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${un.api.range-fetch.enabled:true}")
+    private boolean rangeFetchEnabled;
+
+    @Value("${un.api.page-size:1000}")
+    private int pageSize;
+
+    @Value("${un.api.stream-span-years:5}")
+    private int streamSpanYears;
+
+    @Value("${un.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${un.cache.ttl-days:30}")
+    private long cacheTtlDays;
+
+    @Value("${upstream.un.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${upstream.un.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${upstream.un.retry.max-attempts:4}")
+    private int retryMaxAttempts;
+
+    @Value("${upstream.un.retry.initial-backoff:500ms}")
+    private Duration retryInitialBackoff;
+
+    @Value("${upstream.un.retry.max-backoff:8s}")
+    private Duration retryMaxBackoff;
+
+    @Value("${upstream.un.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${upstream.un.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${upstream.un.hedge.min-delay:500ms}")
+    private Duration hedgeMinDelay;
+
+    @Value("${upstream.un.rate-limit.permits-per-second:10}")
+    private double rateLimitPermitsPerSecond;
+
+    @Value("${upstream.un.rate-limit.burst:10}")
+    private int rateLimitBurst;
+
+    @Value("${upstream.un.circuit-breaker.failure-threshold:5}")
+    private int circuitBreakerFailureThreshold;
+
+    @Value("${upstream.un.circuit-breaker.open-duration:60s}")
+    private Duration circuitBreakerOpenDuration;
+
+    @Autowired
+    private UpstreamExecutor upstreamExecutor;
+
+    @Autowired
+    private UpstreamHttpClient upstreamHttpClient;
+
+    @Autowired
+    private WarmCacheStore warmCacheStore;
+
+    private RestTemplate restTemplate;
+
+    /**
+     * Retries failed UN API requests and, if enabled, hedges slow ones. The UN service is often
+     * asleep on the first request, so a failure is retried a few times before a year is given up.
+     */
+    private RetryingCaller retryingCaller;
+
+    /** Keeps the requests to the UN API within its rate limit. */
+    private RateLimiter rateLimiter;
+
+    /** Stops calling the UN API while it is down, the last known data is served instead. */
+    private CircuitBreaker circuitBreaker;
+
+    /** Refreshes of the data served stale during an outage, run once the breaker closes again. */
+    private final Map<String, Runnable> revalidations = new ConcurrentHashMap<>();
+
+    private final AtomicLong staleServed = new AtomicLong();
+
+    /**
+     * Cache of parsed population statistics keyed by country, indicator and year.
+     * WPP estimates are static per data release, so entries are kept for a long time
+     * and the cache is bounded by its number of entries.
+     */
+    private TtlCache<String, PopulationStatistics> populationCache;
+
+    /**
+     * Years currently being fetched, so that concurrent requests for overlapping ranges
+     * wait for the same upstream call instead of fetching a year twice.
+     */
+    private final SingleFlight<String, PopulationStatistics> inFlightYears = new SingleFlight<>();
+
+    /** Whether the population statistics stored on disk have been loaded into the cache. */
+    private volatile boolean warmCacheLoaded;
+
+    /**
+     * Initializes the population cache once the configuration values have been injected.
+     */
+    @PostConstruct
+    void initCache() {
+        populationCache = new TtlCache<>(cacheMaxEntries);
+    }
+
+    /**
+     * Creates the rate limited client on the shared connection pool with per-attempt timeouts,
+     * the retry policy and the circuit breaker, once the configuration values have been injected.
+     */
+    @PostConstruct
+    void initClient() {
+        rateLimiter = new RateLimiter(rateLimitPermitsPerSecond, rateLimitBurst);
+        circuitBreaker = new CircuitBreaker(UpstreamExecutor.UN, circuitBreakerFailureThreshold,
+                circuitBreakerOpenDuration, this::revalidateStale);
+        restTemplate = upstreamHttpClient.createRestTemplate(connectTimeout, readTimeout, rateLimiter);
+        retryingCaller = new RetryingCaller(new RetryingCaller.Settings(retryMaxAttempts, retryInitialBackoff,
+                retryMaxBackoff, hedgeEnabled, hedgePercentile, hedgeMinDelay));
+    }
+
+    /**
+     * Starts loading the population statistics stored on disk into the cache in the background
+     * as soon as the application is ready, so that the first requests after a restart
+     * do not have to wait for the upstream API.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void loadWarmCacheInBackground() {
+        Thread.ofVirtual().name("un-warm-cache").start(this::loadWarmCache);
+    }
+
+    /**
+     * Loads the population statistics stored on disk into the cache, once. Callers arriving
+     * while the load is running wait for it to finish.
+     */
+    private void loadWarmCache() {
+        if (warmCacheLoaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!warmCacheLoaded) {
+                // Expired statistics are kept as the last known statistics for an upstream outage
+                warmCacheStore.loadPopulations((indicator, population, expiresAt) -> populationCache.putUntil(
+                        cacheKey(population.getCountry(), indicator, population.getYear()), population,
+                        expiresAt));
+                warmCacheLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * Builds the cache key for the population data of a single year.
+     *
+     * @param countryNumber The country number of the data.
+     * @param indicator     The indicator number of the data.
+     * @param year          The year of the data.
+     * @return The cache key.
+     */
+    private static String cacheKey(String countryNumber, String indicator, int year) {
+        return countryNumber + "|" + indicator + "|" + year;
+    }
+
+    /**
+     * Stores parsed population statistics in the cache and writes them through to the
+     * persistent store, provided the parse found data for a year.
+     *
+     * @param countryNumber The country number of the data.
+     * @param indicator     The indicator number of the data.
+     * @param population    The parsed population statistics.
+     */
+    private void cachePopulation(String countryNumber, String indicator, PopulationStatistics population) {
+        if (population.getYear() != 0) {
+            String key = cacheKey(countryNumber, indicator, population.getYear());
+            long ttlMillis = TimeUnit.DAYS.toMillis(cacheTtlDays);
+            populationCache.put(key, population, ttlMillis);
+            warmCacheStore.storePopulation(key, indicator, population, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    /**
+     * Gets the last known population statistics of a year, for when they cannot be fetched
+     * because the UN API is failing, and schedules a refresh of the year for when the UN API
+     * has recovered if the circuit breaker is open.
+     *
+     * @param countryNumber The country number of the data.
+     * @param indicator     The indicator number of the data.
+     * @param year          The year of the data.
+     * @return The last known statistics marked as stale, or {@code null} if there are none.
+     */
+    private PopulationStatistics lastKnownPopulation(String countryNumber, String indicator, int year) {
+        String key = cacheKey(countryNumber, indicator, year);
+        // A one-off failure while the breaker is closed needs no refresh, the next request fetches the year
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            revalidations.putIfAbsent(key, () -> fetchYearFutures(countryNumber, indicator, year, year, 1));
+        }
+        PopulationStatistics lastKnown = populationCache.getStale(key);
+        if (lastKnown == null) {
+            return null;
+        }
+        staleServed.incrementAndGet();
+        return lastKnown.asStale();
+    }
+
+    /**
+     * Gets when the cached population statistics of the given years were stored, without
+     * fetching anything. A time changes whenever new statistics are stored for its year.
+     *
+     * @param countryNumber The country number of the data.
+     * @param indicator     The indicator number of the data.
+     * @param startYear     The first year.
+     * @param endYear       The last year, not before the first year.
+     * @return The times in milliseconds in year order, or null if a year has no fresh
+     *         statistics in the cache.
+     */
+    public long[] getCachedAt(String countryNumber, String indicator, int startYear, int endYear) {
+        long[] storedAt = new long[endYear - startYear + 1];
+        for (int year = startYear; year <= endYear; year++) {
+            storedAt[year - startYear] = populationCache.getStoredAt(cacheKey(countryNumber, indicator, year));
+            if (storedAt[year - startYear] == 0) {
+                return null;
+            }
+        }
+        return storedAt;
+    }
 
     /**
-     * Asynchronously fetches population data for specific year from the UN API.
+     * Gets the hit, miss and eviction counters of the population cache.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getCacheStats() {
+        return populationCache.getStats();
+    }
+
+    /**
+     * Gets the counters of the deduplication of concurrent fetches of the same year.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getCoalescingStats() {
+        return inFlightYears.getStats();
+    }
+
+    /**
+     * Gets the attempt, retry and hedging counters of the UN API requests.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getRetryStats() {
+        return retryingCaller.getStats();
+    }
+
+    /**
+     * Gets the rate limit, wait time and throttling counters of the UN API requests.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getRateLimitStats() {
+        return rateLimiter.getStats();
+    }
+
+    /**
+     * Gets the state of the circuit breaker of the UN API, how often stale data has been
+     * served and how many refreshes are waiting for the upstream to recover.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Object> getCircuitBreakerStats() {
+        Map<String, Object> stats = circuitBreaker.getStats();
+        stats.put("staleServed", staleServed.get());
+        stats.put("pendingRevalidations", (long) revalidations.size());
+        return stats;
+    }
+
+    /**
+     * Refreshes the data that has been served stale, called on a thread of its own when the
+     * circuit breaker closes. The refreshes go through the upstream lanes like any other fetch.
+     */
+    private void revalidateStale() {
+        for (String key : new ArrayList<>(revalidations.keySet())) {
+            Runnable revalidation = revalidations.remove(key);
+            if (revalidation != null) {
+                revalidation.run();
+            }
+        }
+    }
+
+    /**
+     * The outcome of reading one UN API response into a parser.
+     *
+     * @param rows  The number of rows read, including the header row.
+     * @param pages The value of the "pages" paging header, or {@code null} if it was not sent.
+     */
+    private record PageResult(int rows, String pages) {
+    }
+
+    /**
+     * Requests one UN API URL and streams the CSV response straight into the parser,
+     * without reading the body into a String first.
+     *
+     * @param urlString The URL to request.
+     * @param parser    The parser collecting the rows.
+     * @return The number of rows read and the paging header of the response.
+     * @throws IllegalStateException if the response status is not OK.
+     */
+    private PageResult fetchInto(String urlString, UnCsvParser parser) {
+        return restTemplate.execute(urlString, HttpMethod.GET,
+                request -> request.getHeaders().set("Authorization", unApiKey),
+                response -> {
+                    if (response.getStatusCode() != HttpStatus.OK) {
+                        throw new IllegalStateException(
+                                "GET request failed. Response Code: " + response.getStatusCode());
+                    }
+                    int rows = parser.parse(response.getBody());
+                    return new PageResult(rows, response.getHeaders().getFirst("pages"));
+                });
+    }
+
+    /**
+     * Asynchronously fetches and parses population data for specific year from the UN API.
      * Not intended to be used separately.
      *
      * @param countryNumber The country number for which to fetch the data.
      * @param indicator     The indicator number for which to fetch the data.
      * @param year          The year for which to fetch the data.
-     * @return A CompletableFuture containing the CSV data as a string.
+     * @return A CompletableFuture containing the parsed population statistics, the last known
+     *         statistics marked as stale if every attempt fails, the circuit breaker is open or
+     *         the UN queue is full,
+     *         or {@code null} if the year has no data or there are no last known statistics.
      */
-    private CompletableFuture<String> fetchOneYearData(String countryNumber, String indicator, Integer year) {
-        return CompletableFuture.supplyAsync(() -> {
-            String csvData = null;
-            // TBD: retry function in order to recover from UN API being unresponsive for
-            // first request (their service might be at sleep).
+    private CompletableFuture<PopulationStatistics> fetchOneYearData(String countryNumber, String indicator,
+            Integer year) {
+        return upstreamExecutor.supply(UpstreamExecutor.UN, countryNumber + "|" + indicator, () -> {
+            PopulationStatistics population = null;
             try {
                 String urlString = unApiUrl + "/v1/data/indicators/" + indicator + "/locations/" + countryNumber
                         + "/start/" + year.toString() + "/end/" + year.toString() + "?pagingInHeader=true&format=csv";
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Authorization", unApiKey);
-                HttpEntity<String> entity = new HttpEntity<>(headers);
-                ResponseEntity<String> response = restTemplate.exchange(urlString, HttpMethod.GET, entity,
-                        String.class);
-
-                if (response.getStatusCode() == HttpStatus.OK) {
-                    csvData = response.getBody();
-                } else {
-                    System.out.println("GET request failed. Response Code: " + response.getStatusCode());
+                // Every attempt parses into a parser of its own, so a response torn by a failure is dropped
+                UnCsvParser parser = circuitBreaker.call(() -> retryingCaller.call(() -> {
+                    UnCsvParser attemptParser = new UnCsvParser(countryNumber);
+                    fetchInto(urlString, attemptParser);
+                    return attemptParser;
+                }));
+                // A year without data is left out, as it is by the range requests
+                population = parser.getPopulationsByYear().get(year);
+                if (population != null) {
+                    cachePopulation(countryNumber, indicator, population);
                 }
+            } catch (CircuitBreaker.OpenException e) {
+                population = lastKnownPopulation(countryNumber, indicator, year);
             } catch (Exception e) {
                 e.printStackTrace();
+                population = lastKnownPopulation(countryNumber, indicator, year);
             }
-            return csvData;
-        });
+            return population;
+        }, () -> lastKnownPopulation(countryNumber, indicator, year));
+    }
+
+    /**
+     * Asynchronously fetches and parses population data for a whole span of years from the UN API
+     * with as few paged range requests as possible, and splits the result into one
+     * PopulationStatistics per year. Not intended to be used separately.
+     *
+     * @param countryNumber The country number for which to fetch the data.
+     * @param indicator     The indicator number for which to fetch the data.
+     * @param startYear     The first year of the span.
+     * @param endYear       The last year of the span.
+     * @return A CompletableFuture containing the parsed population statistics by year, the
+     *         last known statistics marked as stale if the circuit breaker is open or the UN
+     *         queue is full, or {@code null} if the range requests keep failing after the retries.
+     */
+    private CompletableFuture<Map<Integer, PopulationStatistics>> fetchRangeData(String countryNumber,
+            String indicator, int startYear, int endYear) {
+        return upstreamExecutor.supply(UpstreamExecutor.UN, countryNumber + "|" + indicator, () -> {
+            try {
+                // All pages are streamed into the same parser, so a year split across pages is still combined.
+                // A failed page retries the whole range with a fresh parser.
+                UnCsvParser parser = circuitBreaker.call(() -> retryingCaller.call(() -> {
+                    UnCsvParser attemptParser = new UnCsvParser(countryNumber);
+                    int pageNumber = 1;
+                    boolean morePages;
+                    do {
+                        String urlString = unApiUrl + "/v1/data/indicators/" + indicator + "/locations/"
+                                + countryNumber + "/start/" + startYear + "/end/" + endYear
+                                + "?pagingInHeader=true&format=csv" + "&pageSize=" + pageSize
+                                + "&pageNumber=" + pageNumber;
+                        PageResult page = fetchInto(urlString, attemptParser);
+                        morePages = hasMorePages(page, pageNumber);
+                        pageNumber++;
+                    } while (morePages);
+                    return attemptParser;
+                }));
+
+                Map<Integer, PopulationStatistics> populationsByYear = parser.getPopulationsByYear();
+                for (PopulationStatistics population : populationsByYear.values()) {
+                    cachePopulation(countryNumber, indicator, population);
+                }
+                return populationsByYear;
+            } catch (CircuitBreaker.OpenException e) {
+                // Falling back to one request per year would be rejected as well
+                return lastKnownPopulations(countryNumber, indicator, startYear, endYear);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }, () -> lastKnownPopulations(countryNumber, indicator, startYear, endYear));
+    }
+
+    /**
+     * Gets the last known population statistics of a span of years, for when the span cannot
+     * be requested at all.
+     *
+     * @param countryNumber The country number of the data.
+     * @param indicator     The indicator number of the data.
+     * @param startYear     The first year of the span.
+     * @param endYear       The last year of the span.
+     * @return The last known statistics by year marked as stale, without the years that have none.
+     */
+    private Map<Integer, PopulationStatistics> lastKnownPopulations(String countryNumber, String indicator,
+            int startYear, int endYear) {
+        Map<Integer, PopulationStatistics> populationsByYear = new HashMap<>();
+        for (int year = startYear; year <= endYear; year++) {
+            PopulationStatistics population = lastKnownPopulation(countryNumber, indicator, year);
+            if (population != null) {
+                populationsByYear.put(year, population);
+            }
+        }
+        return populationsByYear;
+    }
+
+    /**
+     * Checks whether a paged range response is followed by more pages.
+     * The page count is read from the "pages" response header when the API provides it,
+     * otherwise a page that is filled up to the page size is assumed to have a successor.
+     *
+     * @param page       The outcome of reading the current page.
+     * @param pageNumber The number of the current page, starting from 1.
+     * @return {@code true} if the next page should be fetched.
+     */
+    private boolean hasMorePages(PageResult page, int pageNumber) {
+        if (page.pages() != null) {
+            try {
+                return pageNumber < Integer.parseInt(page.pages().trim());
+            } catch (NumberFormatException e) {
+                // Fall through to counting the rows of the page
+            }
+        }
+        int dataRows = page.rows() - 1; // header row
+        return dataRows >= pageSize;
+    }
+
+    /**
+     * Fetches a span of years one request per year. Used when range fetching is disabled
+     * and as the fallback when a range request fails.
+     *
+     * @param countryNumber The country number for which to fetch the data.
+     * @param indicator     The indicator number for which to fetch the data.
+     * @param startYear     The first year of the span.
+     * @param endYear       The last year of the span.
+     * @return A CompletableFuture containing the parsed population statistics by year.
+     */
+    private CompletableFuture<Map<Integer, PopulationStatistics>> fetchYearByYear(String countryNumber,
+            String indicator, int startYear, int endYear) {
+        Map<Integer, CompletableFuture<PopulationStatistics>> futures = new HashMap<>();
+        for (int year = startYear; year <= endYear; year++) {
+            futures.put(year, fetchOneYearData(countryNumber, indicator, year));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<Integer, PopulationStatistics> populationsByYear = new HashMap<>();
+                    futures.forEach((year, future) -> {
+                        PopulationStatistics population = future.join();
+                        if (population != null) {
+                            populationsByYear.put(year, population);
+                        }
+                    });
+                    return populationsByYear;
+                });
+    }
+
+    /**
+     * Fetches a span of years that is missing from the cache. With range fetching enabled
+     * the span is requested in one paged range call, falling back to one call per year if
+     * the range call fails.
+     *
+     * @param countryNumber The country number for which to fetch the data.
+     * @param indicator     The indicator number for which to fetch the data.
+     * @param startYear     The first year of the span.
+     * @param endYear       The last year of the span.
+     * @return A CompletableFuture containing the parsed population statistics by year.
+     */
+    private CompletableFuture<Map<Integer, PopulationStatistics>> fetchMissingSpan(String countryNumber,
+            String indicator, int startYear, int endYear) {
+        if (!rangeFetchEnabled) {
+            return fetchYearByYear(countryNumber, indicator, startYear, endYear);
+        }
+        return fetchRangeData(countryNumber, indicator, startYear, endYear)
+                .thenCompose(populationsByYear -> {
+                    if (populationsByYear != null) {
+                        return CompletableFuture.completedFuture(populationsByYear);
+                    }
+                    System.out.println("Range request failed, fetching years " + startYear + "-" + endYear
+                            + " one by one.");
+                    return fetchYearByYear(countryNumber, indicator, startYear, endYear);
+                });
+    }
+
+    /**
+     * Creates one future per year of the timeperiod (startYear -> endYear). Cached years are
+     * completed immediately, and so are the other years while the circuit breaker of the UN
+     * API is open, with their last known data. Years already being fetched by a concurrent
+     * request share its future, and each contiguous span of the remaining years is fetched
+     * together, split into requests of at most {@code maxSpanYears} years.
+     *
+     * @param countryNumber The country number for which to fetch the data.
+     * @param indicator     The indicator number for which to fetch the data.
+     * @param startYear     The first year of the timeperiod.
+     * @param endYear       The last year of the timeperiod.
+     * @param maxSpanYears  The maximum number of years fetched with one range request.
+     * @return A list of futures in year order, each completing with the population data
+     *         of its year or {@code null} if there is none.
+     */
+    private List<CompletableFuture<PopulationStatistics>> fetchYearFutures(String countryNumber, String indicator,
+            int startYear, int endYear, int maxSpanYears) {
+        // Years that are cached or already being fetched by another request need no new upstream call,
+        // the other years are claimed for this request at once, so no concurrent request fetches them too
+        List<CompletableFuture<PopulationStatistics>> known = new ArrayList<>();
+        List<CompletableFuture<PopulationStatistics>> claimed = new ArrayList<>();
+        for (int year = startYear; year <= endYear; year++) {
+            String key = cacheKey(countryNumber, indicator, year);
+            PopulationStatistics cached = populationCache.get(key);
+            if (cached == null && circuitBreaker.isOpen()) {
+                cached = lastKnownPopulation(countryNumber, indicator, year);
+                // Without last known data the year stays missing, but it is not requested either
+                known.add(CompletableFuture.completedFuture(cached));
+                claimed.add(null);
+            } else if (cached != null) {
+                known.add(CompletableFuture.completedFuture(cached));
+                claimed.add(null);
+            } else {
+                CompletableFuture<PopulationStatistics> claim = new CompletableFuture<>();
+                CompletableFuture<PopulationStatistics> inFlight = inFlightYears.claim(key, claim);
+                known.add(inFlight);
+                claimed.add(inFlight == null ? claim : null);
+            }
+        }
+
+        List<CompletableFuture<PopulationStatistics>> futures = new ArrayList<>();
+        int year = startYear;
+        while (year <= endYear) {
+            if (known.get(year - startYear) != null) {
+                futures.add(known.get(year - startYear));
+                year++;
+                continue;
+            }
+            // Extend the span over the following years that are also claimed
+            int spanEnd = year;
+            while (spanEnd < endYear && spanEnd - year + 1 < maxSpanYears
+                    && known.get(spanEnd + 1 - startYear) == null) {
+                spanEnd++;
+            }
+            CompletableFuture<Map<Integer, PopulationStatistics>> span;
+            try {
+                span = fetchMissingSpan(countryNumber, indicator, year, spanEnd);
+            } catch (RuntimeException e) {
+                span = CompletableFuture.failedFuture(e);
+            }
+            for (int spanYear = year; spanYear <= spanEnd; spanYear++) {
+                final int key = spanYear;
+                CompletableFuture<PopulationStatistics> claim = claimed.get(spanYear - startYear);
+                inFlightYears.complete(cacheKey(countryNumber, indicator, spanYear), claim,
+                        span.thenApply(populationsByYear -> populationsByYear.get(key)));
+                futures.add(claim);
+            }
+            year = spanEnd + 1;
+        }
+        return futures;
     }
 
     /**
      * Fetches UN data from a timeperiod of (startYear -> endYear) asynchronously
      * and parses it into a list of PopulationStatistics.
+     * Years that are already cached are served from memory, only the missing years
+     * are fetched from the UN API.
      *
      * @param countryNumber The country number for which to fetch the data.
      * @param indicator     The indicator number for which to fetch the data.
      * @param startYear     The year for which to fetch the data.
      * @param endYear       The year for which to fetch the data.
-     * @return A CompletableFuture containing the CSV data as a string.
+     * @return A list of PopulationStatistics in year order.
      */
     public List<PopulationStatistics> fetchIntervalData(String countryNumber, String indicator, Integer startYear,
             Integer endYear) {
-        List<CompletableFuture<String>> futures = new ArrayList<>();
-        for (int year = startYear; year <= endYear; year++) {
-            futures.add(fetchOneYearData(countryNumber, indicator, year));
-        }
+        return fetchIntervalDataAsync(countryNumber, indicator, startYear, endYear).join();
+    }
 
-        List<PopulationStatistics> populations = new ArrayList<>();
-        List<String> csvDataList;
-        try {
-            csvDataList = futures.stream()
-                    .map(CompletableFuture::join)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return populations;
+    /**
+     * Starts fetching UN data for every year of a timeperiod of (startYear -> endYear) in
+     * short spans and returns one future per year, so that the first years can be used
+     * before the whole timeperiod has arrived. The span length is configured by
+     * {@code un.api.stream-span-years}.
+     *
+     * @param countryNumber The country number for which to fetch the data.
+     * @param indicator     The indicator number for which to fetch the data.
+     * @param startYear     The year for which to fetch the data.
+     * @param endYear       The year for which to fetch the data.
+     * @return A list of futures in year order, each completing with the population data
+     *         of its year or {@code null} if there is none.
+     */
+    public List<CompletableFuture<PopulationStatistics>> fetchPopulationFutures(String countryNumber,
+            String indicator, int startYear, int endYear) {
+        return fetchPopulationFutures(countryNumber, indicator, startYear, endYear, Math.max(1, streamSpanYears));
+    }
+
+    private List<CompletableFuture<PopulationStatistics>> fetchPopulationFutures(String countryNumber,
+            String indicator, int startYear, int endYear, int maxSpanYears) {
+        loadWarmCache();
+        List<CompletableFuture<PopulationStatistics>> futures = new ArrayList<>();
+        for (CompletableFuture<PopulationStatistics> future : fetchYearFutures(countryNumber, indicator, startYear,
+                endYear, maxSpanYears)) {
+            futures.add(future.exceptionally(e -> {
+                e.printStackTrace();
+                return null;
+            }));
         }
+        return futures;
+    }
 
-        for (String csvData : csvDataList) {
-            if (csvData != null) {
-                Utility.parseUnData(csvData, populations, countryNumber);
+    /**
+     * Fetches UN data from a timeperiod of (startYear -> endYear) without blocking the
+     * calling thread while the requests are in flight.
+     *
+     * @param countryNumber The country number for which to fetch the data.
+     * @param indicator     The indicator number for which to fetch the data.
+     * @param startYear     The year for which to fetch the data.
+     * @param endYear       The year for which to fetch the data.
+     * @return A CompletableFuture containing the list of PopulationStatistics in year order.
+     */
+    public CompletableFuture<List<PopulationStatistics>> fetchIntervalDataAsync(String countryNumber,
+            String indicator, int startYear, int endYear) {
+        List<CompletableFuture<PopulationStatistics>> futures = fetchPopulationFutures(countryNumber, indicator,
+                startYear, endYear, Integer.MAX_VALUE);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<PopulationStatistics> populations = new ArrayList<>();
+            for (CompletableFuture<PopulationStatistics> future : futures) {
+                PopulationStatistics population = future.join();
+                if (population != null) {
+                    populations.add(population);
+                }
             }
-        }
-        return populations;
+            return populations;
+        });
     }
 
-}
\ No newline at end of file
+}
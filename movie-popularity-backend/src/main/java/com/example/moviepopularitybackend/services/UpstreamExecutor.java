@@ -0,0 +1,300 @@
+package com.example.moviepopularitybackend.services;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service that runs the blocking calls to the upstream APIs (TMDB and UN) on a dedicated
+ * executor instead of the shared {@code ForkJoinPool.commonPool()}.
+ *
+ * <p>
+ * Each upstream has its own lane with a concurrency limit. Tasks above the limit wait in
+ * the lane's queue without holding an executor thread, so a burst of calls to one upstream
+ * cannot starve the other. Within a lane, the queries waiting for the upstream take turns.
+ * The executor is either a bounded platform thread pool or, when configured, a virtual
+ * thread per task executor.
+ * </p>
+ */
+@Service
+public class UpstreamExecutor {
+
+    /** Name of the lane used for TMDB API calls. */
+    public static final String TMDB = "tmdb";
+    /** Name of the lane used for UN API calls. */
+    public static final String UN = "un";
+
+    @Value("${upstream.executor.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${upstream.executor.pool-size:32}")
+    private int poolSize;
+
+    /** The maximum number of calls waiting in each lane, calls above it are rejected. */
+    @Value("${upstream.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${upstream.tmdb.max-concurrency:16}")
+    private int tmdbMaxConcurrency;
+
+    @Value("${upstream.un.max-concurrency:8}")
+    private int unMaxConcurrency;
+
+    private ExecutorService executor;
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    /**
+     * A per-upstream queue of tasks that hands at most {@code maxConcurrency} of them
+     * to the executor at a time.
+     *
+     * <p>
+     * Tasks are queued per flow, the query they belong to, and the flows take turns: the next
+     * free slot goes to the flow after the one that got the previous slot. A query fanning out
+     * over a hundred years therefore cannot make a small query queued behind it wait for all
+     * of its years, every query waiting in the lane gets an equal share of it. At most
+     * {@code maxQueued} tasks wait in the lane, a task above that is rejected instead.
+     * </p>
+     */
+    private final class Lane {
+        private final int maxConcurrency;
+        private final int maxQueued;
+        /** The queued tasks of every flow that has any, guarded by the lane. */
+        private final Map<String, Queue<Runnable>> flows = new HashMap<>();
+        /** The flows with queued tasks in the order of their turns, guarded by the lane. */
+        private final Queue<String> turns = new ArrayDeque<>();
+        private int queued;
+        private int active;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        private Lane(int maxConcurrency, int maxQueued) {
+            this.maxConcurrency = Math.max(1, maxConcurrency);
+            this.maxQueued = Math.max(0, maxQueued);
+        }
+
+        /**
+         * Queues a task and starts as many queued tasks as the concurrency limit allows.
+         *
+         * @param flow the flow the task belongs to.
+         * @param task the task to run.
+         * @return {@code false} if the queue of the lane is full and the task was not queued.
+         */
+        private boolean submit(String flow, Runnable task) {
+            synchronized (this) {
+                if (queued >= maxQueued && active >= maxConcurrency) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                flows.computeIfAbsent(flow, key -> {
+                    turns.add(key);
+                    return new ArrayDeque<>();
+                }).add(task);
+                queued++;
+            }
+            submitted.incrementAndGet();
+            drain();
+            return true;
+        }
+
+        /**
+         * Takes the next task of the flow whose turn it is, the flow goes to the back of the
+         * turns if it has more tasks. Must be called while holding the lane.
+         *
+         * @return the task, or {@code null} if no task is queued.
+         */
+        private Runnable poll() {
+            String flow = turns.poll();
+            if (flow == null) {
+                return null;
+            }
+            Queue<Runnable> tasks = flows.get(flow);
+            Runnable task = tasks.poll();
+            if (tasks.isEmpty()) {
+                flows.remove(flow);
+            } else {
+                turns.add(flow);
+            }
+            queued--;
+            return task;
+        }
+
+        /**
+         * Starts queued tasks until the lane is at its concurrency limit or the queue is empty.
+         */
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    if (active >= maxConcurrency || (task = poll()) == null) {
+                        return;
+                    }
+                    active++;
+                }
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        synchronized (this) {
+                            active--;
+                        }
+                        completed.incrementAndGet();
+                        drain();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Gets the counters of this lane.
+         *
+         * @return a map with the keys "maxConcurrency", "active", "queued", "queuedFlows",
+         *         "submitted", "completed" and "rejected".
+         */
+        private Map<String, Long> getStats() {
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("maxConcurrency", (long) maxConcurrency);
+            synchronized (this) {
+                stats.put("active", (long) active);
+                stats.put("queued", (long) queued);
+                stats.put("queuedFlows", (long) flows.size());
+            }
+            stats.put("submitted", submitted.get());
+            stats.put("completed", completed.get());
+            stats.put("rejected", rejected.get());
+            return stats;
+        }
+    }
+
+    /**
+     * Creates the executor and the upstream lanes once the configuration values have been injected.
+     */
+    @PostConstruct
+    void init() {
+        if (virtualThreads) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("upstream-", 0).factory());
+        } else {
+            // The lanes hand over at most their concurrency limits of tasks at a time, which bounds
+            // this queue, so a task is never rejected by the pool or run on the submitting thread.
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    Thread.ofPlatform().name("upstream-", 0).daemon(true).factory());
+        }
+        lanes.put(TMDB, new Lane(tmdbMaxConcurrency, queueCapacity));
+        lanes.put(UN, new Lane(unMaxConcurrency, queueCapacity));
+    }
+
+    /**
+     * Stops the executor when the application shuts down.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Asynchronously runs a blocking upstream call within the concurrency limit of its upstream.
+     * Calls of different flows waiting for the upstream are started in turns.
+     *
+     * @param <T>      The type of the result.
+     * @param upstream The name of the upstream, {@link #TMDB} or {@link #UN}.
+     * @param flow     The query the call belongs to, e.g. the genre and language of a
+     *                 movie count, which shares the upstream fairly with other queries.
+     * @param supplier The blocking call to run.
+     * @return A CompletableFuture completed with the result of the call, or exceptionally
+     *         if the call throws or, with a {@link RejectedExecutionException}, right away if
+     *         the queue of the upstream is full.
+     */
+    public <T> CompletableFuture<T> supply(String upstream, String flow, Supplier<T> supplier) {
+        CompletableFuture<T> future = submit(upstream, flow, supplier);
+        if (future == null) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("The queue of " + upstream + " is full"));
+        }
+        return future;
+    }
+
+    /**
+     * Asynchronously runs a blocking upstream call like {@link #supply(String, String, Supplier)},
+     * but answers with a fallback instead when the queue of the upstream is full. The fallback
+     * runs on the calling thread, so it must not call the upstream itself.
+     *
+     * @param <T>      The type of the result.
+     * @param upstream The name of the upstream, {@link #TMDB} or {@link #UN}.
+     * @param flow     The query the call belongs to.
+     * @param supplier The blocking call to run.
+     * @param fallback The result used when the call is rejected, e.g. the last known data.
+     * @return A CompletableFuture completed with the result of the call or of the fallback,
+     *         or exceptionally if the call throws.
+     */
+    public <T> CompletableFuture<T> supply(String upstream, String flow, Supplier<T> supplier,
+            Supplier<T> fallback) {
+        CompletableFuture<T> future = submit(upstream, flow, supplier);
+        if (future == null) {
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+        return future;
+    }
+
+    /**
+     * Queues a blocking upstream call in the lane of its upstream.
+     *
+     * @return A CompletableFuture completed with the result of the call, or {@code null} if
+     *         the queue of the upstream is full.
+     */
+    private <T> CompletableFuture<T> submit(String upstream, String flow, Supplier<T> supplier) {
+        Lane lane = lanes.get(upstream);
+        if (lane == null) {
+            throw new IllegalArgumentException("Unknown upstream: " + upstream);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        boolean queued = lane.submit(flow, () -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return queued ? future : null;
+    }
+
+    /**
+     * Gets the queue depth and active task counters of the executor and each upstream lane.
+     *
+     * @return A map where the key is "executor" or the name of an upstream, and the value
+     *         is a map of its counters.
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        Map<String, Long> executorStats = new LinkedHashMap<>();
+        if (executor instanceof ThreadPoolExecutor pool) {
+            executorStats.put("poolSize", (long) pool.getPoolSize());
+            executorStats.put("active", (long) pool.getActiveCount());
+            executorStats.put("queued", (long) pool.getQueue().size());
+            executorStats.put("completed", pool.getCompletedTaskCount());
+        } else {
+            executorStats.put("virtualThreads", 1L);
+        }
+        stats.put("executor", executorStats);
+        lanes.forEach((name, lane) -> stats.put(name, lane.getStats()));
+        return stats;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.moviepopularitybackend.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.moviepopularitybackend.utility.RateLimiter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service that owns the HTTP client shared by the calls to the upstream APIs (TMDB and UN).
+ *
+ * <p>
+ * Connections are pooled and kept alive between requests, so the per-year fan-out of a query
+ * reuses a handful of open TLS connections instead of setting up a new one for every request.
+ * The pool is bounded in total and per host. Responses are requested with gzip compression
+ * and decompressed transparently by the client.
+ * </p>
+ */
+@Service
+public class UpstreamHttpClient {
+
+    @Value("${http.client.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${http.client.max-connections-per-host:24}")
+    private int maxConnectionsPerHost;
+
+    @Value("${http.client.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${http.client.validate-after-inactivity:2s}")
+    private Duration validateAfterInactivity;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+
+    /**
+     * Creates the connection pool and the HTTP client once the configuration values have been injected.
+     */
+    @PostConstruct
+    void init() {
+        ManagedHttpClientConnectionFactory delegate = ManagedHttpClientConnectionFactory.INSTANCE;
+        HttpConnectionFactory<ManagedHttpClientConnection> countingFactory = socket -> {
+            connectionsCreated.incrementAndGet();
+            return delegate.createConnection(socket);
+        };
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setConnectionFactory(countingFactory)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivity.toMillis()))
+                        .build())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .evictExpiredConnections()
+                .addRequestInterceptorFirst((request, entity, context) -> requests.incrementAndGet())
+                .build();
+    }
+
+    /**
+     * Closes the HTTP client and its pooled connections when the application shuts down.
+     */
+    @PreDestroy
+    void shutdown() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Creates a RestTemplate that sends its requests through the shared connection pool.
+     *
+     * @param connectTimeout The timeout for opening a new connection.
+     * @param readTimeout    The timeout for waiting on response data.
+     * @return A RestTemplate with the given timeouts.
+     */
+    @SuppressWarnings("deprecation") // The connect timeout is per upstream here, not per pooled connection
+    public RestTemplate createRestTemplate(Duration connectTimeout, Duration readTimeout) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setResponseTimeout(Timeout.of(readTimeout))
+                .build();
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                httpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(requestConfig);
+            return context;
+        });
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Creates a RestTemplate that sends its requests through the shared connection pool, each
+     * request waiting for a token of the upstream's rate limiter first. Retries and hedged
+     * requests take tokens too. A 429 Too Many Requests answer pauses the limiter for the
+     * Retry-After delay.
+     *
+     * @param connectTimeout The timeout for opening a new connection.
+     * @param readTimeout    The timeout for waiting on response data.
+     * @param rateLimiter    The rate limiter of the upstream.
+     * @return A RestTemplate with the given timeouts and rate limit.
+     */
+    public RestTemplate createRestTemplate(Duration connectTimeout, Duration readTimeout, RateLimiter rateLimiter) {
+        RestTemplate restTemplate = createRestTemplate(connectTimeout, readTimeout);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            }
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().value() == 429) {
+                rateLimiter.onRejected(retryAfter(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)));
+            }
+            return response;
+        });
+        return restTemplate;
+    }
+
+    /**
+     * Parses a Retry-After header given in seconds.
+     *
+     * @param header The value of the header, may be {@code null}.
+     * @return The delay, or {@code null} if the header is missing or not a number of seconds.
+     */
+    private static Duration retryAfter(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the utilisation of the connection pool and how often connections are reused.
+     *
+     * @return A map where the key is "pool" or an upstream host, and the value is a map of its counters.
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        Map<String, Long> pool = poolStats(connectionManager.getTotalStats());
+        long requestCount = requests.get();
+        long created = connectionsCreated.get();
+        pool.put("requests", requestCount);
+        pool.put("connectionsCreated", created);
+        pool.put("connectionsReused", Math.max(0, requestCount - created));
+        stats.put("pool", pool);
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            stats.put(route.getTargetHost().toURI(), poolStats(connectionManager.getStats(route)));
+        }
+        return stats;
+    }
+
+    private static Map<String, Long> poolStats(PoolStats poolStats) {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("max", (long) poolStats.getMax());
+        stats.put("leased", (long) poolStats.getLeased());
+        stats.put("available", (long) poolStats.getAvailable());
+        stats.put("pending", (long) poolStats.getPending());
+        return stats;
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.moviepopularitybackend.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import com.example.moviepopularitybackend.model.AgeBucket;
+import com.example.moviepopularitybackend.model.MovieStatistics;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.model.SummaryStatistics;
+import com.example.moviepopularitybackend.utility.RecordLog;
+
+/**
+ * Service that keeps a persistent copy of the fetched movie and population statistics on disk,
+ * so that the in-memory caches of {@link TmdbService} and {@link UnPopulationService} can be
+ * warmed up after a restart instead of starting cold against the upstream APIs.
+ *
+ * <p>
+ * Each kind of record is written through to its own append-only {@link RecordLog} in the
+ * configured directory. Every refresh of a record appends a new one, so superseded records are
+ * compacted away when a log is loaded, and while the application runs once a log has had
+ * {@code cache.persistent.compaction-threshold} records appended, or as many as it held after
+ * its last compaction if that is more. Records that expired are loaded as well, as the last
+ * known data for an upstream outage, until they have been expired for longer than
+ * {@code cache.persistent.stale-retention}; older ones are dropped by the compaction.
+ * </p>
+ */
+@Service
+public class WarmCacheStore {
+
+    /** Version of the record payload format, bumped whenever the encoding changes. */
+    private static final int FORMAT_VERSION = 4;
+
+    @Value("${cache.persistent.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.persistent.dir:warm-cache}")
+    private String directory;
+
+    /** The least number of records appended to a log before it is compacted again. */
+    @Value("${cache.persistent.compaction-threshold:10000}")
+    private int compactionThreshold;
+
+    /** How long an expired record is kept as the last known data before it is dropped. */
+    @Value("${cache.persistent.stale-retention:30d}")
+    private Duration staleRetention;
+
+    private CompactedLog movieLog;
+    private CompactedLog populationLog;
+
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    /**
+     * A record log with the counts that decide when it is compacted next.
+     */
+    private static final class CompactedLog {
+        private final RecordLog log;
+        /** The records appended since the last compaction. */
+        private final AtomicLong appended = new AtomicLong();
+        /** The records kept by the last compaction. */
+        private volatile long kept;
+        private final AtomicBoolean compacting = new AtomicBoolean();
+
+        private CompactedLog(RecordLog log) {
+            this.log = log;
+        }
+    }
+
+    /**
+     * Receives a movie record read back from disk.
+     */
+    @FunctionalInterface
+    public interface MovieLoader {
+        /**
+         * Handles one stored movie record.
+         *
+         * @param movie     the stored movie statistics.
+         * @param expiresAt the time in milliseconds after which the record is no longer fresh.
+         */
+        void load(MovieStatistics movie, long expiresAt);
+    }
+
+    /**
+     * Receives a population record read back from disk.
+     */
+    @FunctionalInterface
+    public interface PopulationLoader {
+        /**
+         * Handles one stored population record.
+         *
+         * @param indicator  the indicator number the population statistics were fetched for.
+         * @param population the stored population statistics.
+         * @param expiresAt  the time in milliseconds after which the record is no longer fresh.
+         */
+        void load(String indicator, PopulationStatistics population, long expiresAt);
+    }
+
+    /**
+     * Opens the record logs once the configuration values have been injected.
+     */
+    @PostConstruct
+    void init() {
+        movieLog = new CompactedLog(new RecordLog(Path.of(directory, "movies.log"), FORMAT_VERSION));
+        populationLog = new CompactedLog(new RecordLog(Path.of(directory, "population.log"), FORMAT_VERSION));
+    }
+
+    /**
+     * Reads every stored movie record and hands it to the loader.
+     *
+     * @param loader receives the stored records, the latest record for each key last.
+     */
+    public void loadMovies(MovieLoader loader) {
+        if (!enabled) {
+            return;
+        }
+        for (byte[] payload : readCompacted(movieLog)) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                in.readUTF(); // key
+                long expiresAt = in.readLong();
+                String genre = in.readUTF();
+                int year = in.readInt();
+                String country = in.readUTF();
+                int movieCount = in.readInt();
+                MovieStatistics movie;
+                if (in.readBoolean()) {
+                    movie = new MovieStatistics(genre, year, country, movieCount, readSummary(in), readSummary(in),
+                            readSummary(in));
+                } else {
+                    movie = new MovieStatistics(genre, year, country, movieCount);
+                }
+                loader.load(movie, expiresAt);
+                loaded.incrementAndGet();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reads every stored population record and hands it to the loader.
+     *
+     * @param loader receives the stored records, the latest record for each key last.
+     */
+    public void loadPopulations(PopulationLoader loader) {
+        if (!enabled) {
+            return;
+        }
+        for (byte[] payload : readCompacted(populationLog)) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                in.readUTF(); // key
+                long expiresAt = in.readLong();
+                String indicator = in.readUTF();
+                PopulationStatistics population = new PopulationStatistics();
+                population.setCountry(in.readUTF());
+                population.setYear(in.readInt());
+                population.setIndicatorValue(in.readDouble());
+                for (AgeBucket bucket : AgeBucket.values()) {
+                    population.setPopulation(bucket, PopulationStatistics.MALE, in.readLong());
+                    population.setPopulation(bucket, PopulationStatistics.FEMALE, in.readLong());
+                    population.setPopulation(bucket, PopulationStatistics.BOTH_SEXES, in.readLong());
+                }
+                loader.load(indicator, population, expiresAt);
+                loaded.incrementAndGet();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Writes a fetched movie record through to disk.
+     *
+     * @param key       the cache key of the record.
+     * @param movie     the movie statistics.
+     * @param expiresAt the time in milliseconds after which the record is no longer fresh.
+     */
+    public void storeMovie(String key, MovieStatistics movie, long expiresAt) {
+        if (!enabled) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(key);
+            out.writeLong(expiresAt);
+            out.writeUTF(movie.getGenre());
+            out.writeInt(movie.getYearValue());
+            out.writeUTF(movie.getCountry());
+            out.writeInt(movie.getMovieCount());
+            boolean summarized = movie.getPopularity() != null;
+            out.writeBoolean(summarized);
+            if (summarized) {
+                writeSummary(out, movie.getPopularity());
+                writeSummary(out, movie.getVoteAverage());
+                writeSummary(out, movie.getVoteCount());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        append(movieLog, bytes.toByteArray());
+    }
+
+    /**
+     * Writes a fetched population record through to disk.
+     *
+     * @param key        the cache key of the record.
+     * @param indicator  the indicator number the population statistics were fetched for.
+     * @param population the population statistics.
+     * @param expiresAt  the time in milliseconds after which the record is no longer fresh.
+     */
+    public void storePopulation(String key, String indicator, PopulationStatistics population, long expiresAt) {
+        if (!enabled) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(key);
+            out.writeLong(expiresAt);
+            out.writeUTF(indicator);
+            out.writeUTF(population.getCountry());
+            out.writeInt(population.getYear());
+            out.writeDouble(population.getIndicatorValue());
+            // Every age group category in order, so no labels or count are needed
+            for (AgeBucket bucket : AgeBucket.values()) {
+                out.writeLong(population.getPopulation(bucket, PopulationStatistics.MALE));
+                out.writeLong(population.getPopulation(bucket, PopulationStatistics.FEMALE));
+                out.writeLong(population.getPopulation(bucket, PopulationStatistics.BOTH_SEXES));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        append(populationLog, bytes.toByteArray());
+    }
+
+    /**
+     * Gets the counters of the persistent store.
+     *
+     * @return A map of counter names to their values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded.get());
+        stats.put("written", written.get());
+        stats.put("writeErrors", writeErrors.get());
+        stats.put("compactions", compactions.get());
+        return stats;
+    }
+
+    private static void writeSummary(DataOutputStream out, SummaryStatistics summary) throws IOException {
+        out.writeLong(summary.getCount());
+        out.writeDouble(summary.getMean());
+        out.writeDouble(summary.getSumOfSquaredDeviations());
+        out.writeDouble(summary.getMin());
+        out.writeDouble(summary.getMax());
+    }
+
+    private static SummaryStatistics readSummary(DataInputStream in) throws IOException {
+        return new SummaryStatistics(in.readLong(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+    }
+
+    private void append(CompactedLog log, byte[] payload) {
+        try {
+            log.log.append(payload);
+            written.incrementAndGet();
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            e.printStackTrace();
+            return;
+        }
+        long appended = log.appended.incrementAndGet();
+        if (appended >= Math.max(compactionThreshold, log.kept) && log.compacting.compareAndSet(false, true)) {
+            try {
+                readCompacted(log);
+            } finally {
+                log.compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Reads a log and keeps only the latest record of each key, unless it has been expired for
+     * longer than the stale retention. If records were dropped, the log is rewritten so that it
+     * does not grow without bound. Appends wait while the log is being compacted, so that none
+     * is lost by the rewrite.
+     *
+     * @param log the log to read.
+     * @return the payloads of the latest record of each key.
+     */
+    private List<byte[]> readCompacted(CompactedLog log) {
+        try {
+            synchronized (log.log) {
+                // Counted from here, so that a failed compaction is not retried on every append
+                log.appended.set(0);
+                List<byte[]> payloads = log.log.readAll();
+                long retainedAfter = System.currentTimeMillis() - staleRetention.toMillis();
+                Map<String, byte[]> latest = new LinkedHashMap<>();
+                for (byte[] payload : payloads) {
+                    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                        String key = in.readUTF();
+                        latest.remove(key);
+                        if (in.readLong() > retainedAfter) {
+                            latest.put(key, payload);
+                        }
+                    }
+                }
+                List<byte[]> compacted = new ArrayList<>(latest.values());
+                if (compacted.size() < payloads.size()) {
+                    log.log.rewrite(compacted);
+                    compactions.incrementAndGet();
+                }
+                log.kept = compacted.size();
+                return compacted;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.moviepopularitybackend.utility;
 
-import java.util.HashMap;
 import java.util.Map;
 
+import com.example.moviepopularitybackend.model.AgeBucket;
 import com.example.moviepopularitybackend.model.AgeGroup;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
 
 /**
  * A utility class responsible for combining smaller age groups into broader age
@@ -33,65 +34,53 @@ public class AgeGroupCombiner {
      *                          and the second key represents gender ("Male",
      *                          "Female", "Both sexes").
      *                          The value represents the population count for that
-     *                          age group and gender.
+     *                          age group and gender, as served by the API.
      * @return a map where the key is the age category (e.g., "0-14", "15-24"), and
      *         the value is
      *         an AgeGroup object containing the aggregated population data for each
      *         category.
      */
-    public static Map<String, AgeGroup> combineAgeGroups(Map<String, Map<String, Integer>> rawPopulationAges) {
-
-        // Define categories and the age ranges they will aggregate
-        String[] childrenAges = { "0-4", "5-9", "10-14" };
-        String[] youthAges = { "15-19", "20-24" };
-        String[] adultsAges = { "25-29", "30-34", "35-39", "40-44", "45-49", "50-54", "55-59", "60-64" };
-        String[] eldersAges = { "65-69", "70-74", "75-79", "80-84", "85-89", "90-94", "95-99", "100+" };
-
-        // Initialize categories in categorizedPopulationAges
-        Map<String, AgeGroup> categorizedPopulationAges = new HashMap<>();
-        categorizedPopulationAges.put("0-14", new AgeGroup("0-14", 0, 0, 0));
-        categorizedPopulationAges.put("15-24", new AgeGroup("15-24", 0, 0, 0));
-        categorizedPopulationAges.put("25-64", new AgeGroup("25-64", 0, 0, 0));
-        categorizedPopulationAges.put("+65", new AgeGroup("+65", 0, 0, 0));
-
-        // Combine data for each category "0-14", "15-24", "25-64", "+65"
-        combineAgeGroupCategory("0-14", childrenAges, rawPopulationAges, categorizedPopulationAges);
-        combineAgeGroupCategory("15-24", youthAges, rawPopulationAges, categorizedPopulationAges);
-        combineAgeGroupCategory("25-64", adultsAges, rawPopulationAges, categorizedPopulationAges);
-        combineAgeGroupCategory("+65", eldersAges, rawPopulationAges, categorizedPopulationAges);
-
-        return categorizedPopulationAges;
+    public static Map<String, AgeGroup> combineAgeGroups(Map<String, Map<String, Double>> rawPopulationAges) {
+        PopulationStatistics population = new PopulationStatistics();
+        combineAgeGroups(rawPopulationAges, population);
+        return population.getPopulationAges();
     }
 
     /**
-     * Helper method to combine the population data for a specific age category.
-     * This method sums up the male, female, and both sexes populations for the
-     * specified
-     * age ranges and stores the result in the provided age category.
+     * Combines smaller age groups into broader age categories and stores the result
+     * in the compact age group storage of the given population data.
+     * Age groups that are not part of any category are ignored.
      *
-     * @param category                  the broader age category (e.g., "0-14",
-     *                                  "15-24").
-     * @param ageRanges                 an array of smaller age ranges that belong
-     *                                  to the category (e.g., "0-4", "5-9").
-     * @param rawPopulationAges         a map containing the raw population data for
-     *                                  each age range and gender.
-     * @param categorizedPopulationAges a map to store the aggregated population
-     *                                  data by category.
+     * @param rawPopulationAges a map where the first key is the age group (e.g.,
+     *                          "0-4", "5-9"), and the second key represents gender
+     *                          ("Male", "Female", "Both sexes").
+     * @param population        the population data to add the combined counts to.
      */
-    private static void combineAgeGroupCategory(String category, String[] ageRanges,
-            Map<String, Map<String, Integer>> rawPopulationAges,
-            Map<String, AgeGroup> categorizedPopulationAges) {
-        AgeGroup ageGroup = categorizedPopulationAges.get(category);
-
-        for (String ageRange : ageRanges) {
-            Map<String, Integer> genderMap = rawPopulationAges.get(ageRange);
-            if (genderMap != null) {
+    public static void combineAgeGroups(Map<String, Map<String, Double>> rawPopulationAges,
+            PopulationStatistics population) {
+        for (Map.Entry<String, Map<String, Double>> entry : rawPopulationAges.entrySet()) {
+            AgeBucket bucket = AgeBucket.ofAgeRange(entry.getKey());
+            if (bucket != null) {
                 // Sum male, female, and both sexes populations for the category
-                ageGroup.setMalePopulation(ageGroup.getMalePopulation() + genderMap.getOrDefault("Male", 0));
-                ageGroup.setFemalePopulation(ageGroup.getFemalePopulation() + genderMap.getOrDefault("Female", 0));
-                ageGroup.setBothSexesPopulation(
-                        ageGroup.getBothSexesPopulation() + genderMap.getOrDefault("Both sexes", 0));
+                Map<String, Double> genderMap = entry.getValue();
+                population.addPopulation(bucket, PopulationStatistics.MALE, toCount(genderMap.getOrDefault("Male", 0.0)));
+                population.addPopulation(bucket, PopulationStatistics.FEMALE,
+                        toCount(genderMap.getOrDefault("Female", 0.0)));
+                population.addPopulation(bucket, PopulationStatistics.BOTH_SEXES,
+                        toCount(genderMap.getOrDefault("Both sexes", 0.0)));
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts a population value served by the UN API into a whole count.
+     * The API serves counts with decimals, they are rounded to the nearest whole
+     * number instead of being cut off.
+     *
+     * @param value the value as parsed from the CSV data.
+     * @return the rounded count, 0 for a value that is not a number.
+     */
+    public static long toCount(double value) {
+        return Math.round(value);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker for the calls to one upstream API.
+ *
+ * <p>
+ * While the breaker is closed every call goes through. Once {@code failureThreshold} calls in a
+ * row have failed, the upstream is taken to be down and the breaker opens: calls are rejected
+ * right away with an {@link OpenException} instead of waiting for the timeouts, so callers can
+ * fall back to cached data. After {@code openDuration} the breaker lets a single probe call
+ * through. If the probe succeeds the breaker closes and the close listener is handed to the
+ * close executor, so the probe's caller does not wait for it; otherwise the breaker stays open
+ * for another period.
+ * </p>
+ *
+ * <p>
+ * Only failures that point to an outage are counted: client errors other than 429 Too Many
+ * Requests mean that the upstream is answering, and count as a success.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /** The states of the breaker. */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of running a call while the breaker is open.
+     */
+    public static class OpenException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private OpenException(String name) {
+            super("Circuit breaker of " + name + " is open");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    /** Source of the current time in milliseconds, replaceable for testing. */
+    private final LongSupplier clock;
+    /** Run whenever the breaker closes after having been open. */
+    private final Runnable onClose;
+    /** Runs the close listener away from the thread of the probe. */
+    private final Executor closeExecutor;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    /**
+     * Constructs a new closed breaker that uses the system clock and runs the close listener
+     * on a virtual thread of its own.
+     *
+     * @param name             the name of the upstream, used in messages.
+     * @param failureThreshold the number of consecutive failures that opens the breaker.
+     * @param openDuration     how long the breaker stays open before a probe call is let through.
+     * @param onClose          run when the breaker closes again, e.g. to refresh stale data.
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Runnable onClose) {
+        this(name, failureThreshold, openDuration, onClose, System::currentTimeMillis,
+                task -> Thread.ofVirtual().name(name + "-breaker-closed").start(task));
+    }
+
+    /**
+     * Constructs a new closed breaker with the given time source.
+     *
+     * @param name             the name of the upstream, used in messages.
+     * @param failureThreshold the number of consecutive failures that opens the breaker.
+     * @param openDuration     how long the breaker stays open before a probe call is let through.
+     * @param onClose          run when the breaker closes again, e.g. to refresh stale data.
+     * @param clock            supplier of the current time in milliseconds.
+     * @param closeExecutor    runs the close listener.
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Runnable onClose,
+            LongSupplier clock, Executor closeExecutor) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openDuration.toMillis();
+        this.onClose = onClose;
+        this.clock = clock;
+        this.closeExecutor = closeExecutor;
+    }
+
+    /**
+     * Runs the call if the breaker allows it and records whether it succeeded.
+     *
+     * @param <T>  the type of the result.
+     * @param call the call to the upstream, including its retries.
+     * @return the result of the call.
+     * @throws OpenException if the breaker is open, the call is not run then.
+     * @throws Exception     the failure of the call.
+     */
+    public <T> T call(Callable<T> call) throws Exception {
+        if (!tryAcquirePermission()) {
+            rejected.incrementAndGet();
+            throw new OpenException(name);
+        }
+        calls.incrementAndGet();
+        T result;
+        try {
+            result = call.call();
+        } catch (Exception e) {
+            if (RetryingCaller.isRetryable(e)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    /**
+     * Checks whether calls are currently rejected, without taking the probe permission of a
+     * breaker whose open period has passed.
+     *
+     * @return {@code true} if the breaker is open and not ready for a probe yet.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.getAsLong() - openedAt < openMillis
+                || state == State.HALF_OPEN && probeInFlight;
+    }
+
+    /**
+     * Gets the current state of the breaker.
+     *
+     * @return the state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    private void onSuccess() {
+        boolean closed;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            closed = state != State.CLOSED;
+            state = State.CLOSED;
+            probeInFlight = false;
+        }
+        if (closed) {
+            System.out.println("Circuit breaker of " + name + " closed, the upstream has recovered.");
+            closeExecutor.execute(onClose);
+        }
+    }
+
+    private synchronized void onFailure() {
+        failures.incrementAndGet();
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            if (state == State.CLOSED) {
+                System.out.println("Circuit breaker of " + name + " opened after " + consecutiveFailures
+                        + " consecutive failures.");
+                opened.incrementAndGet();
+            }
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            probeInFlight = false;
+        }
+    }
+
+    /**
+     * Gets the state and counters of this breaker for monitoring.
+     *
+     * @return a map with the keys "state", "calls", "failures", "rejected" and "opened".
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState().name());
+        stats.put("calls", calls.get());
+        stats.put("failures", failures.get());
+        stats.put("rejected", rejected.get());
+        stats.put("opened", opened.get());
+        return stats;
+    }
+}
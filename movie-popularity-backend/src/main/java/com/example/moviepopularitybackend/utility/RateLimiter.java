@@ -0,0 +1,127 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket rate limiter for the requests sent to one upstream API.
+ *
+ * <p>
+ * The bucket holds up to {@code burst} tokens and is refilled at {@code permitsPerSecond}.
+ * Every request takes a token, and a request finding the bucket empty reserves the next token
+ * and waits for it instead of failing, so callers are served in the order they arrived and the
+ * upstream never sees more than the burst followed by the steady rate. A 429 Too Many Requests
+ * answer with a Retry-After delay empties the bucket for that long.
+ * </p>
+ */
+public class RateLimiter {
+
+    private final double permitsPerSecond;
+    private final int burst;
+
+    /** The tokens left in the bucket, negative when callers are waiting for reserved tokens. */
+    private double tokens;
+    private long refilledAt;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructs a new rate limiter with a full bucket.
+     *
+     * @param permitsPerSecond the steady rate of requests, 0 or less disables the limit.
+     * @param burst            the number of requests that can be sent at once after an idle period.
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Checks whether requests are limited at all.
+     *
+     * @return {@code true} if a positive rate has been configured.
+     */
+    public boolean isEnabled() {
+        return permitsPerSecond > 0;
+    }
+
+    /**
+     * Takes a token, waiting until one is available.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        acquired.incrementAndGet();
+        if (!isEnabled()) {
+            return;
+        }
+        long wait = reserve();
+        if (wait > 0) {
+            throttled.incrementAndGet();
+            waitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Takes the next token from the bucket, possibly one that has not been refilled yet.
+     *
+     * @return how long the caller has to wait for its token in nanoseconds, 0 if it is available now.
+     */
+    private synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerSecond * 1e9);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerSecond / 1e9);
+        refilledAt = now;
+    }
+
+    /**
+     * Records that the upstream rejected a request as over its limit, and pauses the bucket
+     * for the delay the upstream asked for.
+     *
+     * @param retryAfter the delay from the Retry-After header, or {@code null} if there was none.
+     */
+    public void onRejected(Duration retryAfter) {
+        rejected.incrementAndGet();
+        if (!isEnabled() || retryAfter == null || retryAfter.isNegative() || retryAfter.isZero()) {
+            return;
+        }
+        synchronized (this) {
+            refill();
+            tokens = Math.min(tokens, 0) - retryAfter.toNanos() / 1e9 * permitsPerSecond;
+        }
+    }
+
+    /**
+     * Gets the configuration and counters of this limiter for monitoring.
+     *
+     * @return a map with the keys "permitsPerSecond", "burst", "acquired", "throttled",
+     *         "waitMillisTotal", "waitMillisMax" and "rejected".
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("permitsPerSecond", Math.round(permitsPerSecond));
+        stats.put("burst", (long) burst);
+        stats.put("acquired", acquired.get());
+        stats.put("throttled", throttled.get());
+        stats.put("waitMillisTotal", TimeUnit.NANOSECONDS.toMillis(waitNanos.get()));
+        stats.put("waitMillisMax", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of binary records that survives crashes without corrupting.
+ *
+ * <p>
+ * The file starts with a magic number and a format version. Every record is stored as its
+ * length, its payload and a CRC32 checksum of the payload. A record torn by a crash in the
+ * middle of a write fails the length or checksum check when the file is read back; reading
+ * stops there and the file is truncated to the last complete record, so that new records are
+ * never appended after garbage. Rewrites go to a temporary file that is synced and then
+ * atomically moved over the log, and the directory is synced so that the move survives a crash.
+ * </p>
+ *
+ * <p>
+ * A file with an unknown header or format version is deleted when the log is a cache that
+ * can be filled again. A durable log moves such a file aside and fails instead, so that its
+ * records are kept for recovery.
+ * </p>
+ */
+public class RecordLog {
+
+    private static final int MAGIC = 0x4D445243; // "MDRC"
+    private static final int HEADER_LENGTH = 8;
+    /** Upper bound for a single record, anything larger is treated as corruption. */
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final Path file;
+    private final int formatVersion;
+    private final boolean durable;
+
+    /**
+     * Constructs a new log of cached records backed by the given file. The file is created on
+     * the first write.
+     *
+     * @param file          the file holding the records.
+     * @param formatVersion the version of the record payload format, a file written with
+     *                      another version is discarded when read.
+     */
+    public RecordLog(Path file, int formatVersion) {
+        this(file, formatVersion, false);
+    }
+
+    /**
+     * Constructs a new log backed by the given file. The file is created on the first write.
+     *
+     * @param file          the file holding the records.
+     * @param formatVersion the version of the record payload format.
+     * @param durable       {@code true} if the records cannot be recreated, a file written
+     *                      with another version is then moved aside instead of deleted.
+     */
+    public RecordLog(Path file, int formatVersion, boolean durable) {
+        this.file = file;
+        this.formatVersion = formatVersion;
+        this.durable = durable;
+    }
+
+    /**
+     * Reads every complete record from the log. A torn or corrupted tail is cut off. A file
+     * with an unknown header or format version is deleted, or moved aside if the log is durable.
+     *
+     * @return the payloads of the records in the order they were appended.
+     * @throws IOException if reading the file fails, or if the log is durable and its file has
+     *                     an unknown header or format version.
+     */
+    public synchronized List<byte[]> readAll() throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return payloads;
+        }
+        long validLength = HEADER_LENGTH;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+                DataInputStream data = new DataInputStream(in)) {
+            try {
+                if (data.readInt() != MAGIC || data.readInt() != formatVersion) {
+                    discardUnknownFormat();
+                    return payloads;
+                }
+            } catch (EOFException e) {
+                // Shorter than the header, so no record was ever completely written
+                Files.delete(file);
+                return payloads;
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                int checksum;
+                try {
+                    data.readFully(payload);
+                    checksum = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                payloads.add(payload);
+                validLength += 8L + length;
+            }
+        }
+        if (Files.size(file) > validLength) {
+            System.out.println("Truncating incomplete records at the end of " + file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * Deletes a file with an unknown header or format version, or moves it aside and fails if
+     * the log is durable.
+     *
+     * @throws IOException if the log is durable, or if the file cannot be deleted.
+     */
+    private void discardUnknownFormat() throws IOException {
+        if (!durable) {
+            System.out.println("Discarding cache file with unknown format: " + file);
+            Files.delete(file);
+            return;
+        }
+        Path aside = file.resolveSibling(file.getFileName() + ".unreadable-" + System.currentTimeMillis());
+        Files.move(file, aside, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+        throw new IOException("Log " + file + " has an unknown format, moved it to " + aside);
+    }
+
+    /**
+     * Appends a record to the end of the log, creating the file if needed.
+     *
+     * @param payload the record payload.
+     * @throws IOException if writing the file fails.
+     */
+    public void append(byte[] payload) throws IOException {
+        append(payload, false);
+    }
+
+    /**
+     * Appends a record to the end of the log, creating the file if needed, and optionally
+     * waits until it has been written to the storage device.
+     *
+     * @param payload the record payload.
+     * @param force   {@code true} to sync the file before returning, so that the record
+     *                survives a crash of the machine and not only of the process.
+     * @throws IOException if writing the file fails.
+     */
+    public void append(byte[] payload, boolean force) throws IOException {
+        appendAll(List.of(payload), force);
+    }
+
+    /**
+     * Appends records to the end of the log in one write, creating the file if needed, and
+     * optionally waits until they have been written to the storage device. Syncing a batch
+     * costs the same as syncing a single record.
+     *
+     * @param payloads the record payloads in the order they are appended.
+     * @param force    {@code true} to sync the file before returning.
+     * @throws IOException if writing the file fails.
+     */
+    public synchronized void appendAll(List<byte[]> payloads, boolean force) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            boolean empty = channel.size() == 0;
+            int length = empty ? HEADER_LENGTH : 0;
+            for (byte[] payload : payloads) {
+                length += 8 + payload.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            if (empty) {
+                buffer.putInt(MAGIC).putInt(formatVersion);
+            }
+            for (byte[] payload : payloads) {
+                putRecord(buffer, payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Replaces the whole log with the given records. The records are written to a temporary
+     * file, which is synced to disk and then atomically moved over the log, so a crash leaves
+     * either the old or the new log in place.
+     *
+     * @param payloads the payloads of the records to keep.
+     * @throws IOException if writing the file fails.
+     */
+    public synchronized void rewrite(List<byte[]> payloads) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(formatVersion);
+                header.flip();
+                channel.write(header);
+                for (byte[] payload : payloads) {
+                    ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+                    putRecord(buffer, payload);
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Syncs a directory, so that files created, moved or deleted in it stay that way after a
+     * crash of the machine. Platforms that cannot open a directory, like Windows, are skipped.
+     *
+     * @param directory the directory to sync.
+     */
+    public static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be synced on this platform
+        }
+    }
+
+    private static void putRecord(ByteBuffer buffer, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+    }
+}
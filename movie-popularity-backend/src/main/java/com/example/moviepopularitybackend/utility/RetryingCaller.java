@@ -0,0 +1,315 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.web.client.HttpClientErrorException;
+
+/**
+ * Runs blocking upstream calls with retries and, optionally, hedged requests.
+ *
+ * <p>
+ * A failed attempt is retried after a jittered exponential backoff: the delay before retry
+ * {@code n} is drawn uniformly between zero and {@code initialBackoff * 2^(n-1)}, capped at
+ * {@code maxBackoff}, so that callers failing together do not retry together. Client errors
+ * other than 429 Too Many Requests are not retried, since repeating the request cannot help.
+ * </p>
+ *
+ * <p>
+ * With hedging enabled, an attempt that has not answered within the configured percentile of
+ * recent successful latencies gets a duplicate request, and whichever answers first wins. The
+ * loser is cancelled by interrupting its thread, which closes its connection, so it does not
+ * keep holding a connection after the call has returned. This cuts the tail latency caused by
+ * a single slow upstream instance at the cost of a few extra requests. Hedging starts once
+ * enough latency samples have been collected.
+ * </p>
+ *
+ * <p>
+ * Backoff delays are spent on the calling thread, which for the upstream services is an
+ * upstream lane thread, so a struggling upstream also gets fewer concurrent requests.
+ * </p>
+ */
+public class RetryingCaller {
+
+    /** Number of recent successful latencies kept for the hedging percentile. */
+    private static final int LATENCY_SAMPLES = 256;
+    /** Number of samples needed before requests are hedged. */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    /**
+     * The retry and hedging configuration of a caller.
+     *
+     * @param maxAttempts     the maximum number of attempts per call, including the first one.
+     * @param initialBackoff  the upper bound of the delay before the first retry.
+     * @param maxBackoff      the upper bound of the delay before any retry.
+     * @param hedgingEnabled  whether slow attempts get a duplicate request.
+     * @param hedgePercentile the latency percentile after which a duplicate is sent, between 0 and 1.
+     * @param minHedgeDelay   the minimum time to wait before sending a duplicate.
+     */
+    public record Settings(int maxAttempts, Duration initialBackoff, Duration maxBackoff, boolean hedgingEnabled,
+            double hedgePercentile, Duration minHedgeDelay) {
+    }
+
+    private final Settings settings;
+    /** Runs hedged attempts, so that the calling thread can wait for whichever answers first. */
+    private final ExecutorService hedgeExecutor;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * An attempt running on the hedge executor.
+     *
+     * @param result completed with the result or the failure of the attempt.
+     * @param task   the running task, cancelled to interrupt the attempt.
+     */
+    private record Running<T>(CompletableFuture<T> result, Future<?> task) {
+    }
+
+    /**
+     * Constructs a new caller with the given configuration.
+     *
+     * @param settings the retry and hedging configuration.
+     */
+    public RetryingCaller(Settings settings) {
+        if (settings.maxAttempts() < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + settings.maxAttempts());
+        }
+        this.settings = settings;
+        this.hedgeExecutor = settings.hedgingEnabled()
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("hedge-", 0).factory())
+                : null;
+    }
+
+    /**
+     * Runs the call, retrying failed attempts until one succeeds or the attempts run out.
+     *
+     * @param <T>     the type of the result.
+     * @param attempt a single attempt of the call, must be safe to run more than once and,
+     *                with hedging, concurrently with itself.
+     * @return the result of the first successful attempt.
+     * @throws Exception the failure of the last attempt if no attempt succeeded.
+     */
+    public <T> T call(Callable<T> attempt) throws Exception {
+        calls.incrementAndGet();
+        for (int attemptNumber = 1;; attemptNumber++) {
+            try {
+                return hedgeExecutor != null ? runHedged(attempt) : runTimed(attempt);
+            } catch (Exception e) {
+                if (attemptNumber >= settings.maxAttempts() || !isRetryable(e)) {
+                    failures.incrementAndGet();
+                    throw e;
+                }
+                retries.incrementAndGet();
+                Thread.sleep(backoffMillis(attemptNumber));
+            }
+        }
+    }
+
+    /**
+     * Runs one attempt on the calling thread and records its latency if it succeeds.
+     */
+    private <T> T runTimed(Callable<T> attempt) throws Exception {
+        attempts.incrementAndGet();
+        long start = System.nanoTime();
+        T result = attempt.call();
+        recordLatency(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Runs one attempt and, if it is slower than the hedging threshold, a duplicate of it.
+     * Returns the first successful result, or fails once both have failed.
+     */
+    private <T> T runHedged(Callable<T> attempt) throws Exception {
+        Running<T> primary = start(attempt);
+        Running<T> hedge = null;
+        try {
+            long hedgeDelayMillis = hedgeDelayMillis();
+            if (hedgeDelayMillis < 0) {
+                return await(primary.result());
+            }
+            try {
+                return primary.result().get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The primary is slow, race it with a duplicate
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+            hedges.incrementAndGet();
+            Running<T> duplicate = start(attempt);
+            hedge = duplicate;
+            CompletableFuture<Running<T>> first = new CompletableFuture<>();
+            AtomicInteger failed = new AtomicInteger();
+            primary.result().whenComplete((value, error) -> complete(first, primary, error, failed));
+            duplicate.result().whenComplete((value, error) -> complete(first, duplicate, error, failed));
+            // The win is counted before the call returns, so the stats are settled for the caller
+            Running<T> winner = await(first);
+            if (winner == duplicate) {
+                hedgesWon.incrementAndGet();
+            }
+            return winner.result().join();
+        } finally {
+            // The loser, or both if the calling thread was interrupted, stops holding its connection
+            cancel(primary);
+            if (hedge != null) {
+                cancel(hedge);
+            }
+        }
+    }
+
+    /**
+     * Interrupts an attempt that is still running.
+     */
+    private void cancel(Running<?> running) {
+        if (!running.result().isDone() && running.task().cancel(true)) {
+            cancelled.incrementAndGet();
+        }
+    }
+
+    /**
+     * Completes the race with the first racer that succeeded, or with the failure once both
+     * racers have failed.
+     */
+    private static <T> void complete(CompletableFuture<Running<T>> first, Running<T> racer, Throwable error,
+            AtomicInteger failed) {
+        if (error == null) {
+            first.complete(racer);
+        } else if (failed.incrementAndGet() == 2) {
+            first.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Starts an attempt on the hedge executor. Unlike a CompletableFuture, the task can be
+     * cancelled with an interrupt of the thread running it.
+     */
+    private <T> Running<T> start(Callable<T> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = hedgeExecutor.submit(() -> {
+            try {
+                result.complete(runTimed(attempt));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return new Running<>(result, task);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static Exception unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof Exception exception) {
+            return exception;
+        }
+        throw (Error) error;
+    }
+
+    /**
+     * Checks whether a failed attempt is worth retrying. Client errors are final, except for
+     * 429 Too Many Requests which asks the client to come back later.
+     *
+     * @param e the failure of the attempt.
+     * @return {@code true} if the call should be retried.
+     */
+    static boolean isRetryable(Exception e) {
+        if (e instanceof InterruptedException) {
+            return false;
+        }
+        if (e instanceof HttpClientErrorException clientError) {
+            return clientError.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    /**
+     * Draws the delay before the given retry, with full jitter.
+     *
+     * @param attemptNumber the number of the attempt that failed, starting from 1.
+     * @return the delay in milliseconds.
+     */
+    long backoffMillis(int attemptNumber) {
+        long initial = settings.initialBackoff().toMillis();
+        long max = settings.maxBackoff().toMillis();
+        long bound = initial << Math.min(attemptNumber - 1, 30);
+        if (bound <= 0 || bound > max) {
+            bound = max;
+        }
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyIndex] = nanos;
+        latencyIndex = (latencyIndex + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+    }
+
+    /**
+     * Gets how long to wait before hedging an attempt, from the recent successful latencies.
+     *
+     * @return the delay in milliseconds, or -1 if there are too few samples to hedge yet.
+     */
+    private long hedgeDelayMillis() {
+        long[] samples;
+        synchronized (this) {
+            if (latencyCount < MIN_HEDGE_SAMPLES) {
+                return -1;
+            }
+            samples = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(settings.hedgePercentile() * samples.length) - 1;
+        long percentile = samples[Math.max(0, Math.min(index, samples.length - 1))];
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(percentile), settings.minHedgeDelay().toMillis());
+    }
+
+    /**
+     * Gets the counters of this caller for monitoring.
+     *
+     * @return a map with the keys "calls", "attempts", "retries", "failures", "hedges",
+     *         "hedgesWon" and "cancelled".
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.get());
+        stats.put("attempts", attempts.get());
+        stats.put("retries", retries.get());
+        stats.put("failures", failures.get());
+        stats.put("hedges", hedges.get());
+        stats.put("hedgesWon", hedgesWon.get());
+        stats.put("cancelled", cancelled.get());
+        return stats;
+    }
+}
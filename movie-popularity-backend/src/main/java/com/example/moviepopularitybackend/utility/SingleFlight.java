@@ -0,0 +1,143 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent work by key. While a computation for a key is in flight, every
+ * other caller asking for the same key gets the same future instead of starting its own
+ * computation. Once the computation completes, the key is released and the next call
+ * starts a fresh one.
+ *
+ * @param <K> the type of the keys identifying the work.
+ * @param <V> the type of the results.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Starts the asynchronous computation for the key, or joins the one already in flight.
+     *
+     * @param key    the key identifying the work.
+     * @param loader starts the computation, only called if none is in flight for the key.
+     * @return the future of the computation for the key.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        calls.incrementAndGet();
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Runs the blocking computation for the key on the calling thread, or waits for the one
+     * already in flight and returns its result.
+     *
+     * @param key      the key identifying the work.
+     * @param supplier the computation, only called if none is in flight for the key.
+     * @return the result of the computation for the key.
+     */
+    public V run(K key, Supplier<V> supplier) {
+        calls.incrementAndGet();
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            V value = supplier.get();
+            inFlight.remove(key, created);
+            created.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Claims the key for a computation the caller is about to start, or joins the one already
+     * in flight. The claim is atomic, so of several callers asking for the same key at once
+     * exactly one gets to start the computation. A caller that claimed the key must hand the
+     * computation to {@link #complete}.
+     *
+     * @param key     the key identifying the work.
+     * @param claimed the future later callers of the key get, completed through {@link #complete}.
+     * @return the future in flight for the key, or {@code null} if the caller claimed the key.
+     */
+    public CompletableFuture<V> claim(K key, CompletableFuture<V> claimed) {
+        calls.incrementAndGet();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, claimed);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+        }
+        return existing;
+    }
+
+    /**
+     * Completes a claimed key with the outcome of the computation started for it. The key is
+     * released when the computation completes.
+     *
+     * @param key         the key identifying the work.
+     * @param claimed     the future the key was claimed with.
+     * @param computation the future of the computation.
+     */
+    public void complete(K key, CompletableFuture<V> claimed, CompletableFuture<V> computation) {
+        computation.whenComplete((value, error) -> {
+            inFlight.remove(key, claimed);
+            if (error != null) {
+                claimed.completeExceptionally(error);
+            } else {
+                claimed.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Gets the counters of this single flight group.
+     *
+     * @return a map with the keys "inFlight", "calls" and "coalesced".
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("inFlight", (long) inFlight.size());
+        stats.put("calls", calls.get());
+        stats.put("coalesced", coalesced.get());
+        return stats;
+    }
+}
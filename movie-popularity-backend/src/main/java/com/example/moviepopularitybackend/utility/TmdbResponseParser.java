@@ -0,0 +1,51 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A streaming reader for the discover responses of the TMDB API.
+ *
+ * <p>
+ * The movie count of a year only needs the {@code total_results} field of the first result
+ * page. Instead of binding the whole page to a map of maps, the response is read as a token
+ * stream from the response body: the results array is skipped without building any objects or
+ * Strings for it, and reading stops as soon as {@code total_results} has been found.
+ * </p>
+ */
+public final class TmdbResponseParser {
+
+    /** Shared factory, thread-safe once configured, so parsers are cheap to create. */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private TmdbResponseParser() {
+    }
+
+    /**
+     * Reads the total number of results from a discover response.
+     *
+     * @param body The response body.
+     * @return The value of the {@code total_results} field.
+     * @throws IOException if the body cannot be read or has no {@code total_results} field.
+     */
+    public static int readTotalResults(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected TMDB response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("total_results") && value == JsonToken.VALUE_NUMBER_INT) {
+                    return parser.getIntValue();
+                }
+                parser.skipChildren();
+            }
+        }
+        throw new IOException("TMDB response has no total_results");
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A small, thread-safe, size-bounded cache where every entry carries its own time-to-live.
+ * Entries are kept in least-recently-used order, so once the cache is full the entry
+ * that has gone unused the longest is evicted first.
+ * Expired entries are not served by {@link #get}, but are kept until they are replaced or
+ * evicted, so that the last known value can still be served with {@link #getStale} while the
+ * source of fresh values is unavailable.
+ * Every entry also records when it was stored, which tells whether a fresh value may have
+ * changed without reading it.
+ * Hit, miss, eviction and expiration counts are tracked for monitoring.
+ *
+ * @param <K> the type of the cache keys.
+ * @param <V> the type of the cached values.
+ */
+public class TtlCache<K, V> {
+
+    /**
+     * A cached value together with the time it was stored and the time after which it is no
+     * longer fresh.
+     *
+     * @param <V> the type of the cached value.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long storedAt;
+        private final long expiresAt;
+
+        private Entry(V value, long storedAt, long expiresAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** The maximum number of entries held before the least recently used one is evicted. */
+    private final int maxEntries;
+    /** Source of the current time in milliseconds, replaceable for testing. */
+    private final LongSupplier clock;
+    /** Entries in access order, the eldest (least recently used) first. */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+
+    /**
+     * Constructs a new cache that uses the system clock.
+     *
+     * @param maxEntries the maximum number of entries to keep, must be positive.
+     */
+    public TtlCache(int maxEntries) {
+        this(maxEntries, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new cache with the given time source.
+     *
+     * @param maxEntries the maximum number of entries to keep, must be positive.
+     * @param clock      supplier of the current time in milliseconds.
+     */
+    public TtlCache(int maxEntries, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached value for the key if it exists and has not expired.
+     * Expired entries count as a miss, but stay available to {@link #getStale}.
+     *
+     * @param key the key to look up.
+     * @return the cached value, or {@code null} if there is no fresh value.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Returns the last value stored for the key, even if it has expired. Meant as a fallback
+     * when a fresh value cannot be obtained.
+     *
+     * @param key the key to look up.
+     * @return the last cached value, or {@code null} if there is none or it has been evicted.
+     */
+    public synchronized V getStale(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        staleHits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Returns when the fresh value for the key was stored, without counting a hit or a miss.
+     * The time changes whenever a new value is stored for the key, so it can stand in for the
+     * value when checking whether it has changed.
+     *
+     * @param key the key to look up.
+     * @return the time in milliseconds the value was stored, or 0 if there is no fresh value.
+     */
+    public synchronized long getStoredAt(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= clock.getAsLong()) {
+            return 0;
+        }
+        return entry.storedAt;
+    }
+
+    /**
+     * Stores a value in the cache, replacing any earlier value for the same key.
+     * If the cache grows past its size bound, the least recently used entries are evicted.
+     *
+     * @param key        the key to store the value under.
+     * @param value      the value to store, {@code null} values are ignored.
+     * @param ttlMillis  how long the value stays fresh, in milliseconds.
+     */
+    public synchronized void put(K key, V value, long ttlMillis) {
+        if (value == null || ttlMillis <= 0) {
+            return;
+        }
+        store(key, value, clock.getAsLong() + ttlMillis);
+    }
+
+    /**
+     * Stores a value and evicts the least recently used entries beyond the size bound. A value
+     * replacing one stored in the same millisecond gets a later stored-at time all the same.
+     */
+    private void store(K key, V value, long expiresAt) {
+        Entry<V> previous = entries.get(key);
+        long storedAt = clock.getAsLong();
+        if (previous != null && storedAt <= previous.storedAt) {
+            storedAt = previous.storedAt + 1;
+        }
+        entries.put(key, new Entry<>(value, storedAt, expiresAt));
+        evictEldest();
+    }
+
+    /**
+     * Evicts the least recently used entries while the cache is over its size bound.
+     */
+    private void evictEldest() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stores a value that stays fresh until the given time, which may already have passed. An
+     * expired value is not served by {@link #get}, but is kept for {@link #getStale}, so that
+     * values restored after a restart can serve as the last known values.
+     *
+     * @param key       the key to store the value under.
+     * @param value     the value to store, {@code null} values are ignored.
+     * @param expiresAt the time in milliseconds after which the value is no longer fresh.
+     */
+    public synchronized void putUntil(K key, V value, long expiresAt) {
+        if (value == null) {
+            return;
+        }
+        store(key, value, expiresAt);
+    }
+
+    /**
+     * Removes every entry from the cache. Counters are left untouched.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of entries currently held, including ones that have expired.
+     *
+     * @return the number of entries in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the cache counters for monitoring.
+     *
+     * @return a map with the keys "size", "maxEntries", "hits", "misses", "evictions", "expirations"
+     *         and "staleHits".
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) size());
+        stats.put("maxEntries", (long) maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("staleHits", staleHits.get());
+        return stats;
+    }
+}
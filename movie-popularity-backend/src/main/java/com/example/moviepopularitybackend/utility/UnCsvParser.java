@@ -0,0 +1,361 @@
+package com.example.moviepopularitybackend.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.example.moviepopularitybackend.model.AgeBucket;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+
+/**
+ * A streaming parser for the pipe separated CSV served by the UN API.
+ *
+ * <p>
+ * Unlike {@link Utility#parseUnData}, the parser reads straight from the response stream
+ * and never materialises the response or its rows as Strings. It walks every row byte by
+ * byte, only looks at the columns it needs (variant, year, sex, age group and value) and
+ * parses the numbers directly from the bytes. Rows can be fed from several streams, for
+ * example the pages of a range request, and the results are collected per year.
+ * </p>
+ */
+public class UnCsvParser {
+
+    /** Column index of the projection variant, only "Median" rows are used. */
+    private static final int VARIANT_COLUMN = 12;
+    /** Column index of the year. */
+    private static final int YEAR_COLUMN = 16;
+    /** Column index of the sex. */
+    private static final int SEX_COLUMN = 25;
+    /** Column index of the age group label. */
+    private static final int AGE_COLUMN = 27;
+    /** Column index of the value. */
+    private static final int VALUE_COLUMN = 31;
+
+    private static final byte[] MEDIAN = bytes("Median");
+    private static final String[] SEXES = { "Male", "Female", "Both sexes" };
+    private static final byte[][] SEX_BYTES = { bytes("Male"), bytes("Female"), bytes("Both sexes") };
+    /** The five year age groups served by the UN API, matched without creating Strings. */
+    private static final String[] AGE_GROUPS = { "0-4", "5-9", "10-14", "15-19", "20-24", "25-29", "30-34",
+            "35-39", "40-44", "45-49", "50-54", "55-59", "60-64", "65-69", "70-74", "75-79", "80-84", "85-89",
+            "90-94", "95-99", "100+" };
+    private static final byte[][] AGE_GROUP_BYTES = new byte[AGE_GROUPS.length][];
+    /** The age group category each five year age group is combined into. */
+    private static final AgeBucket[] AGE_GROUP_BUCKETS = new AgeBucket[AGE_GROUPS.length];
+
+    static {
+        for (int i = 0; i < AGE_GROUPS.length; i++) {
+            AGE_GROUP_BYTES[i] = bytes(AGE_GROUPS[i]);
+            AGE_GROUP_BUCKETS[i] = AgeBucket.ofAgeRange(AGE_GROUPS[i]);
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18 };
+
+    /**
+     * Raw values of one year, indexed by age group and sex. Rows with an age group that is
+     * not one of the known five year groups are kept in a map keyed by the label.
+     */
+    private static final class YearValues {
+        private final double[][] values = new double[AGE_GROUPS.length][SEXES.length];
+        private final boolean[][] present = new boolean[AGE_GROUPS.length][SEXES.length];
+        private Map<String, Map<String, Double>> otherAgeGroups;
+    }
+
+    private final String countryNumber;
+    private final Map<Integer, YearValues> years = new TreeMap<>();
+
+    private final byte[] buffer = new byte[8192];
+    /** Bounds of the fields read from the current row, as offsets into {@link #line}. */
+    private final int[] fieldStart = new int[VALUE_COLUMN + 1];
+    private final int[] fieldEnd = new int[VALUE_COLUMN + 1];
+    /** The bytes of the current row. */
+    private byte[] line = new byte[1024];
+    private int lineLength;
+
+    /**
+     * Constructs a new parser for the data of one country.
+     *
+     * @param countryNumber The country number to set in the parsed PopulationStatistics.
+     */
+    public UnCsvParser(String countryNumber) {
+        this.countryNumber = countryNumber;
+    }
+
+    /**
+     * Reads every row from the given stream and collects the "Median" rows per year.
+     * The stream is read until its end but not closed.
+     *
+     * @param in The stream of the UN API response body.
+     * @return The number of non-empty rows read, including the header row but not the "sep=" row.
+     * @throws IOException If reading the stream fails.
+     */
+    public int parse(InputStream in) throws IOException {
+        int rows = 0;
+        lineLength = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    append(start, i - start);
+                    rows += endLine();
+                    start = i + 1;
+                }
+            }
+            append(start, read - start);
+        }
+        rows += endLine();
+        return rows;
+    }
+
+    /**
+     * Appends bytes of the read buffer to the current row.
+     *
+     * @param offset The offset of the first byte in the read buffer.
+     * @param length The number of bytes to append.
+     */
+    private void append(int offset, int length) {
+        if (lineLength + length > line.length) {
+            byte[] larger = new byte[Math.max(line.length * 2, lineLength + length)];
+            System.arraycopy(line, 0, larger, 0, lineLength);
+            line = larger;
+        }
+        System.arraycopy(buffer, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    /**
+     * Handles the row collected so far and starts a new one.
+     *
+     * @return 1 if the row counted as a row, 0 for empty and "sep=" rows.
+     */
+    private int endLine() {
+        int length = lineLength;
+        lineLength = 0;
+        if (length == 0 || (length == 1 && line[0] == '\r')) {
+            return 0;
+        }
+        if (length >= 3 && line[0] == 's' && line[1] == 'e' && line[2] == 'p') {
+            return 0;
+        }
+        handleRow(length);
+        return 1;
+    }
+
+    /**
+     * Locates the needed fields of a row and records its value if it is a "Median" row.
+     *
+     * @param length The number of bytes in the row.
+     */
+    private void handleRow(int length) {
+        int column = 0;
+        int start = 0;
+        for (int i = 0; i <= length && column <= VALUE_COLUMN; i++) {
+            if (i == length || line[i] == '|') {
+                fieldStart[column] = start;
+                fieldEnd[column] = i;
+                column++;
+                start = i + 1;
+            }
+        }
+        if (column <= VALUE_COLUMN) {
+            // Too few columns to hold a value
+            return;
+        }
+        trim(VARIANT_COLUMN);
+        if (!fieldEquals(VARIANT_COLUMN, MEDIAN)) {
+            return;
+        }
+        trim(YEAR_COLUMN);
+        trim(SEX_COLUMN);
+        trim(AGE_COLUMN);
+        trim(VALUE_COLUMN);
+        double value = parseNumber(VALUE_COLUMN);
+        double year = parseNumber(YEAR_COLUMN);
+        if (Double.isNaN(value) || Double.isNaN(year)) {
+            return;
+        }
+        int sex = indexOf(SEX_COLUMN, SEX_BYTES);
+        YearValues yearValues = years.computeIfAbsent((int) year, k -> new YearValues());
+        int ageGroup = indexOf(AGE_COLUMN, AGE_GROUP_BYTES);
+        if (ageGroup >= 0 && sex >= 0) {
+            yearValues.values[ageGroup][sex] = value;
+            yearValues.present[ageGroup][sex] = true;
+        } else {
+            // Rare labels are kept as Strings so that they still count towards the indicator value
+            if (yearValues.otherAgeGroups == null) {
+                yearValues.otherAgeGroups = new HashMap<>();
+            }
+            String label = ageGroup >= 0 ? AGE_GROUPS[ageGroup] : fieldString(AGE_COLUMN);
+            String sexLabel = sex >= 0 ? SEXES[sex] : fieldString(SEX_COLUMN);
+            yearValues.otherAgeGroups.computeIfAbsent(label, k -> new HashMap<>()).put(sexLabel, value);
+        }
+    }
+
+    /**
+     * Narrows a field so that it excludes surrounding whitespace and double quotes.
+     *
+     * @param column The column index of the field.
+     */
+    private void trim(int column) {
+        int start = fieldStart[column];
+        int end = fieldEnd[column];
+        while (start < end && isPadding(line[start])) {
+            start++;
+        }
+        while (end > start && isPadding(line[end - 1])) {
+            end--;
+        }
+        fieldStart[column] = start;
+        fieldEnd[column] = end;
+    }
+
+    private static boolean isPadding(byte b) {
+        return b == ' ' || b == '"' || b == '\t' || b == '\r';
+    }
+
+    private boolean fieldEquals(int column, byte[] expected) {
+        int start = fieldStart[column];
+        if (fieldEnd[column] - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (line[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(int column, byte[][] candidates) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (fieldEquals(column, candidates[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String fieldString(int column) {
+        return new String(line, fieldStart[column], fieldEnd[column] - fieldStart[column], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a decimal number such as {@code 1234}, {@code -12.5} or {@code 1.5E3} straight from the row bytes.
+     *
+     * @param column The column index of the field.
+     * @return The parsed number, or {@code NaN} if the field is not a number.
+     */
+    private double parseNumber(int column) {
+        int i = fieldStart[column];
+        int end = fieldEnd[column];
+        if (i == end) {
+            return Double.NaN;
+        }
+        boolean negative = false;
+        if (line[i] == '-' || line[i] == '+') {
+            negative = line[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte b = line[i];
+            if (b >= '0' && b <= '9') {
+                if (mantissa < 100_000_000_000_000_000L) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (!fraction) {
+                    exponent++;
+                }
+                digits++;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < end) {
+            // Exponent part
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (line[i] == '-' || line[i] == '+')) {
+                negativeExponent = line[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                return Double.NaN;
+            }
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                byte b = line[i];
+                if (b < '0' || b > '9') {
+                    return Double.NaN;
+                }
+                explicitExponent = explicitExponent * 10 + (b - '0');
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        double value = mantissa;
+        if (exponent > 0) {
+            value *= exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[exponent] : Math.pow(10, exponent);
+        } else if (exponent < 0) {
+            value /= -exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[-exponent] : Math.pow(10, -exponent);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Builds one PopulationStatistics per parsed year, the same way as {@link Utility#parseUnDataByYear}.
+     *
+     * @return A map sorted by year, where the key is the year and the value is the parsed population data.
+     */
+    public Map<Integer, PopulationStatistics> getPopulationsByYear() {
+        Map<Integer, PopulationStatistics> populationsByYear = new TreeMap<>();
+        for (Map.Entry<Integer, YearValues> entry : years.entrySet()) {
+            YearValues yearValues = entry.getValue();
+            PopulationStatistics population = new PopulationStatistics();
+            population.setCountry(countryNumber);
+            population.setYear(entry.getKey());
+            double indicatorValue = 0;
+            // The sexes are in the index order of PopulationStatistics, so the values are added as they are
+            for (int age = 0; age < AGE_GROUPS.length; age++) {
+                for (int sex = 0; sex < SEXES.length; sex++) {
+                    if (yearValues.present[age][sex]) {
+                        population.addPopulation(AGE_GROUP_BUCKETS[age], sex,
+                                AgeGroupCombiner.toCount(yearValues.values[age][sex]));
+                    }
+                }
+                if (yearValues.present[age][PopulationStatistics.BOTH_SEXES]) {
+                    indicatorValue += yearValues.values[age][PopulationStatistics.BOTH_SEXES];
+                }
+            }
+            // The indicator value sums the "Both sexes" values over every age group, including unknown ones
+            if (yearValues.otherAgeGroups != null) {
+                for (Map<String, Double> ageGroup : yearValues.otherAgeGroups.values()) {
+                    indicatorValue += ageGroup.getOrDefault("Both sexes", 0.0);
+                }
+            }
+            population.setIndicatorValue(indicatorValue);
+            populationsByYear.put(entry.getKey(), population);
+        }
+        return populationsByYear;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -2,8 +2,8 @@ package com.example.moviepopularitybackend.utility;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
-import com.example.moviepopularitybackend.model.AgeGroup;
 import com.example.moviepopularitybackend.model.PopulationStatistics;
 
 
@@ -24,11 +24,40 @@ public class Utility {
      * @param countryNumber The country number to set in the PopulationStatistics.
      */
     public static void parseUnData(String csvData, List<PopulationStatistics> populations, String countryNumber) {
+        Map<Integer, PopulationStatistics> populationsByYear = parseUnDataByYear(csvData, countryNumber);
+        if (populationsByYear.isEmpty()) {
+            // Keep an empty entry so that callers still get one result per request
+            populations.add(emptyPopulation(countryNumber));
+            return;
+        }
+        populations.addAll(populationsByYear.values());
+    }
+
+    /**
+     * Creates the PopulationStatistics used for a response without any data rows:
+     * the year and indicator value are zero and every age group category is empty.
+     * 
+     * @param countryNumber The country number to set in the PopulationStatistics.
+     * @return The empty population data.
+     */
+    public static PopulationStatistics emptyPopulation(String countryNumber) {
         PopulationStatistics population = new PopulationStatistics();
         population.setCountry(countryNumber);
- 
-        // Temporary map to hold raw population data
-        Map<String, Map<String, Integer>> rawPopulationAges = new HashMap<>();
+        return population;
+    }
+
+    /**
+     * Parses UN data covering any number of years from a CSV string in a single pass,
+     * and splits it into one PopulationStatistics per year.
+     * Used for range requests, where one response holds the rows of many years.
+     * 
+     * @param csvData The CSV data as a string.
+     * @param countryNumber The country number to set in the PopulationStatistics.
+     * @return A map sorted by year, where the key is the year and the value is the parsed population data.
+     */
+    public static Map<Integer, PopulationStatistics> parseUnDataByYear(String csvData, String countryNumber) {
+        // Temporary map to hold raw population data per year
+        Map<Integer, Map<String, Map<String, Double>>> rawPopulationAgesByYear = new TreeMap<>();
 
         String[] lines = csvData.split("\n");
         for (String line : lines) {
@@ -43,41 +72,49 @@ public class Utility {
                 if (values[12].equals("Median")) {
                     String sex = values[25].trim();
                     String ageGroup = values[27].trim();
-                    int populationCount;
+                    double populationCount;
                     int year;
                     try {
-                        populationCount = (int) Double.parseDouble(values[31].trim().replaceAll("\"", ""));
+                        // Kept with its decimals, counts are rounded when combined and rates are not cut off
+                        populationCount = Double.parseDouble(values[31].trim().replaceAll("\"", ""));
                         year = (int) Double.parseDouble(values[16].trim().replaceAll("\"", ""));
-                        population.setYear(year);
                     } catch (NumberFormatException e) {
                         continue;
                     }
                     //Use existing or create new age map
-                    Map<String, Integer> ageGroupMap = rawPopulationAges.computeIfAbsent(ageGroup, k -> new HashMap<>());
+                    Map<String, Map<String, Double>> rawPopulationAges = rawPopulationAgesByYear.computeIfAbsent(year, k -> new HashMap<>());
+                    Map<String, Double> ageGroupMap = rawPopulationAges.computeIfAbsent(ageGroup, k -> new HashMap<>());
                     ageGroupMap.put(sex, populationCount);
-                    rawPopulationAges.put(ageGroup, ageGroupMap);
                 }
             } else {
                 System.out.println("Empty row " + line);
             }
         }
-        int indicatorValue = 0;
-        // Calculate the indicator value
-        // The indicator value is selected by the user, representing one of the following metrics:
-        // total population, life expectancy, population change, or total net migration.
-        for (Map<String, Integer> ageGroup : rawPopulationAges.values()) {
-            for (Map.Entry<String, Integer> entry : ageGroup.entrySet()) {
-                if (entry.getKey().equals("Both sexes")) {
-                    indicatorValue += entry.getValue();
+
+        Map<Integer, PopulationStatistics> populationsByYear = new TreeMap<>();
+        for (Map.Entry<Integer, Map<String, Map<String, Double>>> yearEntry : rawPopulationAgesByYear.entrySet()) {
+            Map<String, Map<String, Double>> rawPopulationAges = yearEntry.getValue();
+            PopulationStatistics population = new PopulationStatistics();
+            population.setCountry(countryNumber);
+            population.setYear(yearEntry.getKey());
+
+            double indicatorValue = 0;
+            // Calculate the indicator value
+            // The indicator value is selected by the user, representing one of the following metrics:
+            // total population, life expectancy, population change, or total net migration.
+            for (Map<String, Double> ageGroup : rawPopulationAges.values()) {
+                for (Map.Entry<String, Double> entry : ageGroup.entrySet()) {
+                    if (entry.getKey().equals("Both sexes")) {
+                        indicatorValue += entry.getValue();
+                    }
                 }
             }
-        }
-        population.setIndicatorValue(indicatorValue);
+            population.setIndicatorValue(indicatorValue);
 
-        // Use AgeGroupCombiner to combine age groups from rawPopulationAges
-        Map<String, AgeGroup> combinedAgeGroups = AgeGroupCombiner.combineAgeGroups(rawPopulationAges);
-        population.setPopulationAges(combinedAgeGroups);
-        // Add the population to the list given as parameter
-        populations.add(population);
+            // Use AgeGroupCombiner to combine age groups from rawPopulationAges
+            AgeGroupCombiner.combineAgeGroups(rawPopulationAges, population);
+            populationsByYear.put(yearEntry.getKey(), population);
+        }
+        return populationsByYear;
     }
 }
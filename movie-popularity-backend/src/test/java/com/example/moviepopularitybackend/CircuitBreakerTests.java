@@ -0,0 +1,132 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.example.moviepopularitybackend.utility.CircuitBreaker;
+
+/**
+ * Test class for testing the states of CircuitBreaker
+ */
+public class CircuitBreakerTests {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final AtomicInteger closes = new AtomicInteger();
+    private final CircuitBreaker breaker = new CircuitBreaker("tmdb", 3, Duration.ofSeconds(30),
+            closes::incrementAndGet, now::get, Runnable::run);
+
+    private void fail() {
+        assertThrows(IOException.class, () -> breaker.call(() -> {
+            throw new IOException("connection refused");
+        }));
+    }
+
+    /**
+    * Test for call. The breaker opens after the threshold of consecutive failures and then
+    * rejects calls without running them.
+    */
+    @Test
+    void testOpensAfterConsecutiveFailures() throws Exception {
+        fail();
+        fail();
+        assertEquals("ok", breaker.call(() -> "ok"));
+        fail();
+        fail();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        fail();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        AtomicInteger runs = new AtomicInteger();
+        assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(runs::incrementAndGet));
+        assertEquals(0, runs.get());
+        assertEquals(1L, breaker.getStats().get("rejected"));
+    }
+
+    /**
+    * Test for call. After the open period a single probe is let through, and its success closes
+    * the breaker and runs the close listener.
+    */
+    @Test
+    void testProbeClosesBreaker() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            fail();
+        }
+        now.addAndGet(30_000);
+        assertFalse(breaker.isOpen());
+
+        assertEquals("probe", breaker.call(() -> {
+            // Other calls are rejected while the probe is in flight
+            assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(() -> "other"));
+            return "probe";
+        }));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, closes.get());
+    }
+
+    /**
+    * Test for call. A failed probe opens the breaker for another period.
+    */
+    @Test
+    void testFailedProbeReopens() {
+        for (int i = 0; i < 3; i++) {
+            fail();
+        }
+        now.addAndGet(30_000);
+        fail();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertEquals(0, closes.get());
+        assertEquals(1L, breaker.getStats().get("opened"));
+    }
+
+    /**
+    * Test for call. Client errors show that the upstream is answering and do not open the breaker.
+    */
+    @Test
+    void testClientErrorsAreNotOutages() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(HttpClientErrorException.class, () -> breaker.call(() -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+    * Test for call. The close listener is handed to the close executor instead of being run
+    * on the thread of the probe.
+    */
+    @Test
+    void testCloseListenerRunsOnExecutor() throws Exception {
+        List<Runnable> handedOff = new ArrayList<>();
+        CircuitBreaker deferred = new CircuitBreaker("un", 1, Duration.ofSeconds(30), closes::incrementAndGet,
+                now::get, handedOff::add);
+        assertThrows(IOException.class, () -> deferred.call(() -> {
+            throw new IOException("connection refused");
+        }));
+        now.addAndGet(30_000);
+
+        assertEquals("probe", deferred.call(() -> "probe"));
+        assertEquals(0, closes.get());
+        assertEquals(1, handedOff.size());
+        handedOff.get(0).run();
+        assertEquals(1, closes.get());
+    }
+}
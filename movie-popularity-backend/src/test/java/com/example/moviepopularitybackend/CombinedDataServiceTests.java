@@ -0,0 +1,227 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.moviepopularitybackend.controller.DataController;
+import com.example.moviepopularitybackend.model.ApiCodes;
+import com.example.moviepopularitybackend.model.CombinedDataQuery;
+import com.example.moviepopularitybackend.model.CombinedDataSeries;
+import com.example.moviepopularitybackend.model.DataCombiner;
+import com.example.moviepopularitybackend.model.MovieStatistics;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.services.CombinedDataService;
+import com.example.moviepopularitybackend.services.TmdbService;
+import com.example.moviepopularitybackend.services.UnPopulationService;
+import com.example.moviepopularitybackend.services.UpstreamExecutor;
+
+/**
+ * Test class for testing the batch requests and streams of CombinedDataService with stubbed upstream services
+ */
+public class CombinedDataServiceTests {
+
+    private CombinedDataService service;
+    private TmdbService tmdbService;
+    private UnPopulationService unPopulationService;
+
+    @BeforeEach
+    void setUp() {
+        tmdbService = mock(TmdbService.class);
+        unPopulationService = mock(UnPopulationService.class);
+        when(tmdbService.fetchMoviesAsync(anyString(), anyString(), anyInt(), anyInt())).thenAnswer(call -> {
+            List<MovieStatistics> movies = new ArrayList<>();
+            for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                movies.add(new MovieStatistics(call.getArgument(0), year, call.getArgument(1), year - 1990));
+            }
+            return CompletableFuture.completedFuture(movies);
+        });
+        when(unPopulationService.fetchIntervalDataAsync(anyString(), anyString(), anyInt(), anyInt()))
+                .thenAnswer(call -> {
+                    List<PopulationStatistics> populations = new ArrayList<>();
+                    for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                        PopulationStatistics population = new PopulationStatistics();
+                        population.setCountry(call.getArgument(0));
+                        population.setYear(year);
+                        populations.add(population);
+                    }
+                    return CompletableFuture.completedFuture(populations);
+                });
+
+        service = new CombinedDataService();
+        ReflectionTestUtils.setField(service, "dataCombiner", new DataCombiner());
+        ReflectionTestUtils.setField(service, "apiCodes", new ApiCodes());
+        ReflectionTestUtils.setField(service, "tmdbService", tmdbService);
+        ReflectionTestUtils.setField(service, "unPopulationService", unPopulationService);
+    }
+
+    /**
+    * Test for getCombinedDataBatch. Queries sharing a country or a genre share one fetch of the
+    * union of their years, and every query gets back exactly its own years.
+    */
+    @Test
+    void testBatchSharesFetches() {
+        List<CombinedDataQuery> queries = List.of(
+                new CombinedDataQuery("Germany", "Action", "47", 2000, 2005),
+                new CombinedDataQuery("Germany", "Comedy", "47", 2003, 2008),
+                new CombinedDataQuery("Finland", "Action", "47", 2001, 2002));
+
+        List<CombinedDataSeries> series = service.getCombinedDataBatch(queries).join();
+
+        assertEquals(3, series.size());
+        assertEquals(6, series.get(0).getData().size());
+        assertEquals(2000, series.get(0).getData().firstKey());
+        assertEquals("35", series.get(1).getData().get(2008).getGenre());
+        assertEquals("246", series.get(2).getData().get(2001).getCountry());
+        assertEquals(2, series.get(2).getData().size());
+        // One population fetch per country, one movie fetch per genre and language
+        verify(unPopulationService, times(1)).fetchIntervalDataAsync("276", "47", 2000, 2008);
+        verify(unPopulationService, times(1)).fetchIntervalDataAsync("246", "47", 2001, 2002);
+        verify(tmdbService, times(1)).fetchMoviesAsync("28", "de", 2000, 2005);
+        verify(tmdbService, times(1)).fetchMoviesAsync("35", "de", 2003, 2008);
+        verify(tmdbService, times(1)).fetchMoviesAsync("28", "fi", 2001, 2002);
+        assertEquals(3L, service.getBatchStats().get("queries"));
+        assertEquals(3L, service.getBatchStats().get("movieFetches"));
+        assertEquals(2L, service.getBatchStats().get("populationFetches"));
+    }
+
+    /**
+    * Test for getCombinedDataBatch. Years that are not contiguous are fetched in separate runs
+    * instead of fetching the gap between them.
+    */
+    @Test
+    void testBatchFetchesContiguousRuns() {
+        List<CombinedDataQuery> queries = List.of(
+                new CombinedDataQuery("Germany", "Action", "47", 1960, 1962),
+                new CombinedDataQuery("Germany", "Action", "47", 2010, 2011),
+                new CombinedDataQuery("Germany", "Action", "47", 1961, 1963));
+
+        List<CombinedDataSeries> series = service.getCombinedDataBatch(queries).join();
+
+        assertEquals(3, series.get(2).getData().size());
+        verify(unPopulationService, times(1)).fetchIntervalDataAsync("276", "47", 1960, 1963);
+        verify(unPopulationService, times(1)).fetchIntervalDataAsync("276", "47", 2010, 2011);
+        verify(tmdbService, times(1)).fetchMoviesAsync("28", "de", 1960, 1963);
+        verify(tmdbService, times(1)).fetchMoviesAsync("28", "de", 2010, 2011);
+    }
+
+    /**
+    * Test for getCombinedDataETag. The tag stays the same while the cached statistics of the
+    * query do, changes when one year is stored again, and there is none while a year is not
+    * fresh in the caches.
+    */
+    @Test
+    void testETagFollowsCachedData() {
+        when(tmdbService.getCachedAt("28", "de", 2000, 2002)).thenReturn(new long[] { 1, 2, 3 });
+        when(unPopulationService.getCachedAt("276", "47", 2000, 2002))
+                .thenReturn(new long[] { 4, 5, 6 }, new long[] { 4, 5, 6 }, new long[] { 4, 7, 6 }, null);
+
+        String tag = service.getCombinedDataETag("Germany", "Action", 2000, 2002, "47");
+        assertEquals(tag, service.getCombinedDataETag("Germany", "Action", 2000, 2002, "47"));
+        assertNotEquals(tag, service.getCombinedDataETag("Germany", "Action", 2000, 2002, "47"));
+        assertNull(service.getCombinedDataETag("Germany", "Action", 2000, 2002, "47"));
+        assertNull(service.getCombinedDataETag("Germany", "Comedy", 2000, 2002, "47"));
+        verify(tmdbService, never()).fetchMoviesAsync(anyString(), anyString(), anyInt(), anyInt());
+    }
+
+    /**
+    * Test for the batch endpoint of DataController. A query with more years than
+    * combined-data.max-year-span is rejected with 400 before anything is fetched.
+    */
+    @Test
+    void testBatchRejectsLongYearRange() {
+        DataController controller = new DataController();
+        ReflectionTestUtils.setField(controller, "combinedDataService", service);
+        ReflectionTestUtils.setField(controller, "batchMaxQueries", 25);
+        ReflectionTestUtils.setField(controller, "maxYearSpan", 100);
+        List<CombinedDataQuery> queries = List.of(
+                new CombinedDataQuery("Germany", "Action", "47", 2000, 2005),
+                new CombinedDataQuery("Germany", "Action", "47", 1, 1000000));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> controller.getCombinedDataBatch(queries));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verify(tmdbService, never()).fetchMoviesAsync(anyString(), anyString(), anyInt(), anyInt());
+        assertEquals(1, controller.getCombinedDataBatch(List.of(
+                new CombinedDataQuery("Germany", "Action", "47", 1926, 2025))).join().size());
+    }
+
+    /**
+    * Test for streamCombinedData. A client that blocks while a year is written holds no slot of
+    * the upstream lanes, so the other upstream calls go on meanwhile.
+    */
+    @Test
+    void testBlockedStreamDoesNotHoldUpstreamLane() throws Exception {
+        UpstreamExecutor executor = new UpstreamExecutor();
+        ReflectionTestUtils.setField(executor, "virtualThreads", false);
+        ReflectionTestUtils.setField(executor, "poolSize", 4);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 100);
+        ReflectionTestUtils.setField(executor, "tmdbMaxConcurrency", 1);
+        ReflectionTestUtils.setField(executor, "unMaxConcurrency", 1);
+        ReflectionTestUtils.invokeMethod(executor, "init");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // The movie counts are fetched on the single TMDB slot, the population data is already there
+            when(tmdbService.fetchMovieFutures(anyString(), anyString(), anyInt(), anyInt())).thenAnswer(call -> {
+                List<CompletableFuture<MovieStatistics>> futures = new ArrayList<>();
+                for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                    MovieStatistics movie = new MovieStatistics(call.getArgument(0), year, call.getArgument(1), 5);
+                    futures.add(executor.supply(UpstreamExecutor.TMDB, "stream", () -> movie));
+                }
+                return futures;
+            });
+            when(unPopulationService.fetchPopulationFutures(anyString(), anyString(), anyInt(), anyInt()))
+                    .thenAnswer(call -> {
+                        List<CompletableFuture<PopulationStatistics>> futures = new ArrayList<>();
+                        for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                            PopulationStatistics population = new PopulationStatistics();
+                            population.setYear(year);
+                            futures.add(CompletableFuture.completedFuture(population));
+                        }
+                        return futures;
+                    });
+
+            CountDownLatch writing = new CountDownLatch(1);
+            CompletableFuture<Void> stream = service.streamCombinedData("Germany", "Action", 2000, 2002, "47",
+                    combined -> {
+                        writing.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+            assertTrue(writing.await(1, TimeUnit.SECONDS));
+
+            assertEquals("other", executor.supply(UpstreamExecutor.TMDB, "other", () -> "other")
+                    .get(1, TimeUnit.SECONDS));
+            release.countDown();
+            stream.get(1, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.invokeMethod(executor, "shutdown");
+        }
+    }
+}
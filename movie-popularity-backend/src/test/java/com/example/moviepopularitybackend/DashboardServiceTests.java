@@ -0,0 +1,173 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.moviepopularitybackend.model.ApiCodes;
+import com.example.moviepopularitybackend.model.DataCombiner;
+import com.example.moviepopularitybackend.model.MovieStatistics;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.model.PreferenceSeries;
+import com.example.moviepopularitybackend.model.PreferencesPage;
+import com.example.moviepopularitybackend.model.UserPreferences;
+import com.example.moviepopularitybackend.services.CombinedDataService;
+import com.example.moviepopularitybackend.services.DashboardService;
+import com.example.moviepopularitybackend.services.SaveService;
+import com.example.moviepopularitybackend.services.TmdbService;
+import com.example.moviepopularitybackend.services.UnPopulationService;
+
+/**
+ * Test class for testing the saved preferences dashboard of DashboardService with stubbed
+ * upstream services and saved preferences
+ */
+public class DashboardServiceTests {
+
+    private DashboardService service;
+    private SaveService saveService;
+    private TmdbService tmdbService;
+    private UnPopulationService unPopulationService;
+
+    @BeforeEach
+    void setUp() {
+        tmdbService = mock(TmdbService.class);
+        unPopulationService = mock(UnPopulationService.class);
+        when(tmdbService.fetchMoviesAsync(anyString(), anyString(), anyInt(), anyInt())).thenAnswer(call -> {
+            List<MovieStatistics> movies = new ArrayList<>();
+            for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                movies.add(new MovieStatistics(call.getArgument(0), year, call.getArgument(1), year - 1990));
+            }
+            return CompletableFuture.completedFuture(movies);
+        });
+        when(unPopulationService.fetchIntervalDataAsync(anyString(), anyString(), anyInt(), anyInt()))
+                .thenAnswer(call -> {
+                    List<PopulationStatistics> populations = new ArrayList<>();
+                    for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                        PopulationStatistics population = new PopulationStatistics();
+                        population.setCountry(call.getArgument(0));
+                        population.setYear(year);
+                        populations.add(population);
+                    }
+                    return CompletableFuture.completedFuture(populations);
+                });
+
+        CombinedDataService combinedDataService = new CombinedDataService();
+        ReflectionTestUtils.setField(combinedDataService, "dataCombiner", new DataCombiner());
+        ReflectionTestUtils.setField(combinedDataService, "apiCodes", new ApiCodes());
+        ReflectionTestUtils.setField(combinedDataService, "tmdbService", tmdbService);
+        ReflectionTestUtils.setField(combinedDataService, "unPopulationService", unPopulationService);
+
+        saveService = mock(SaveService.class);
+        service = new DashboardService();
+        ReflectionTestUtils.setField(service, "saveService", saveService);
+        ReflectionTestUtils.setField(service, "combinedDataService", combinedDataService);
+        ReflectionTestUtils.setField(service, "warmBatchSize", 25);
+        ReflectionTestUtils.setField(service, "maxYearSpan", 100);
+    }
+
+    private static UserPreferences preference(long id, String genre, String startYear, String endYear) {
+        UserPreferences up = new UserPreferences(genre, "Germany", "47", startYear, endYear);
+        up.setId(id);
+        return up;
+    }
+
+    /**
+    * Test for getDashboard. The preferences of a page are answered in their order with one
+    * shared fetch per country and genre, and a preference without a valid year range or with
+    * more years than a query may have gets an empty series.
+    */
+    @Test
+    void testPageSharesFetches() {
+        List<UserPreferences> preferences = List.of(
+                preference(1, "Action", "2000", "2005"),
+                preference(2, "Comedy", "2003", "2008"),
+                preference(3, "Action", "2010", "x"),
+                preference(4, "Action", "1", "1000000"));
+        when(saveService.getPreferencesPage(0, 4)).thenReturn(new PreferencesPage<>(preferences, 0, 4, 7));
+
+        PreferencesPage<PreferenceSeries> dashboard = service.getDashboard(0, 4).join();
+
+        assertEquals(7, dashboard.getTotalItems());
+        List<PreferenceSeries> series = dashboard.getItems();
+        assertEquals(4, series.size());
+        assertEquals(2L, series.get(1).getPreference().getId());
+        assertEquals(6, series.get(0).getData().size());
+        assertEquals("35", series.get(1).getData().get(2008).getGenre());
+        assertTrue(series.get(2).getData().isEmpty());
+        assertTrue(series.get(3).getData().isEmpty());
+        verify(unPopulationService, times(1)).fetchIntervalDataAsync("276", "47", 2000, 2008);
+        verify(tmdbService, times(1)).fetchMoviesAsync("28", "de", 2000, 2005);
+        verify(tmdbService, times(1)).fetchMoviesAsync("35", "de", 2003, 2008);
+    }
+
+    /**
+    * Test for warmAll. With warming enabled the dashboard is served from memory without
+    * upstream fetches, and the results of deleted preferences are dropped by the next pass.
+    */
+    @Test
+    void testWarmedDashboardIsReadFromMemory() {
+        ReflectionTestUtils.setField(service, "warmEnabled", true);
+        UserPreferences action = preference(1, "Action", "2000", "2005");
+        UserPreferences comedy = preference(2, "Comedy", "2003", "2008");
+        when(saveService.GetFileContents()).thenReturn(new LinkedHashSet<>(List.of(action, comedy)));
+
+        service.warmAll();
+        List<PreferenceSeries> series = service.getDashboard().join().getItems();
+
+        assertEquals(2, series.size());
+        assertEquals(6, series.get(1).getData().size());
+        assertEquals(2L, service.getStats().get("materializedHits"));
+        verify(tmdbService, times(1)).fetchMoviesAsync("28", "de", 2000, 2005);
+
+        when(saveService.GetFileContents()).thenReturn(new LinkedHashSet<>(List.of(comedy)));
+        service.warmAll();
+        assertEquals(1L, service.getStats().get("materialized"));
+    }
+
+    /**
+    * Test for warmAll. A result with a stale year or a missing year is not kept, so the next
+    * dashboard load fetches it again instead of serving it until the next pass.
+    */
+    @Test
+    void testIncompleteResultsAreNotKept() {
+        ReflectionTestUtils.setField(service, "warmEnabled", true);
+        when(tmdbService.fetchMoviesAsync(eq("35"), anyString(), anyInt(), anyInt())).thenAnswer(call -> {
+            List<MovieStatistics> movies = new ArrayList<>();
+            for (int year = call.<Integer>getArgument(2); year <= call.<Integer>getArgument(3); year++) {
+                movies.add(new MovieStatistics("35", year, call.getArgument(1), 3).asStale());
+            }
+            return CompletableFuture.completedFuture(movies);
+        });
+        when(tmdbService.fetchMoviesAsync(eq("18"), anyString(), anyInt(), anyInt())).thenReturn(
+                CompletableFuture.completedFuture(List.of(new MovieStatistics("18", 2000, "de", 3))));
+        UserPreferences action = preference(1, "Action", "2000", "2005");
+        UserPreferences comedy = preference(2, "Comedy", "2003", "2008");
+        UserPreferences drama = preference(3, "Drama", "2000", "2001");
+        when(saveService.GetFileContents()).thenReturn(new LinkedHashSet<>(List.of(action, comedy, drama)));
+
+        service.warmAll();
+        assertEquals(1L, service.getStats().get("materialized"));
+
+        List<PreferenceSeries> series = service.getDashboard().join().getItems();
+        assertTrue(series.get(1).getData().get(2008).isStale());
+        assertEquals(1, series.get(2).getData().size());
+        assertEquals(1L, service.getStats().get("materializedHits"));
+        assertEquals(1L, service.getStats().get("materialized"));
+        verify(tmdbService, times(2)).fetchMoviesAsync("35", "de", 2003, 2008);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.model.CombinedDataByYear;
+import com.example.moviepopularitybackend.model.DataCombiner;
+import com.example.moviepopularitybackend.model.MovieStatistics;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+
+/**
+ * Test class for testing the DataCombiner
+ */
+public class DataCombinerTests {
+
+    private final DataCombiner dataCombiner = new DataCombiner();
+
+    private static List<MovieStatistics> movies(String genre, int startYear, int endYear, int count) {
+        List<MovieStatistics> movies = new ArrayList<>();
+        for (int year = startYear; year <= endYear; year++) {
+            movies.add(new MovieStatistics(genre, year, "de", count + year));
+        }
+        return movies;
+    }
+
+    private static List<PopulationStatistics> populations(String country, int startYear, int endYear) {
+        List<PopulationStatistics> populations = new ArrayList<>();
+        for (int year = startYear; year <= endYear; year++) {
+            PopulationStatistics population = new PopulationStatistics();
+            population.setCountry(country);
+            population.setYear(year);
+            populations.add(population);
+        }
+        return populations;
+    }
+
+    /**
+    * Test for combineData. Only years present in both lists are combined, in year order.
+    */
+    @Test
+    void testCombinesMatchingYears() {
+        TreeMap<Integer, CombinedDataByYear> combined = dataCombiner.combineData(
+                movies("28", 1995, 2005, 0), populations("276", 2000, 2010));
+
+        assertEquals(6, combined.size());
+        assertEquals(2000, combined.firstKey());
+        assertEquals(2005, combined.lastKey());
+        assertEquals("276", combined.get(2003).getCountry());
+        assertEquals(2003, combined.get(2003).getHowManyMovies());
+    }
+
+    /**
+    * Test for combineData. An empty population entry without a year is skipped, so the
+    * years are still indexed from the first year with data.
+    */
+    @Test
+    void testSkipsPopulationWithoutYear() {
+        List<PopulationStatistics> populationData = populations("276", 2000, 2002);
+        PopulationStatistics empty = new PopulationStatistics();
+        empty.setCountry("276");
+        populationData.add(1, empty);
+
+        TreeMap<Integer, CombinedDataByYear> combined = dataCombiner.combineData(
+                movies("28", 2000, 2002, 0), populationData);
+
+        assertEquals(3, combined.size());
+        assertEquals(2000, combined.firstKey());
+        assertTrue(dataCombiner.combineData(movies("28", 2000, 2002, 0), List.of(empty)).isEmpty());
+    }
+
+    /**
+    * Stress test for combineData. Many threads combine different inputs with the same
+    * DataCombiner at the same time, and every result must only contain the data of its own request.
+    */
+    @Test
+    void testConcurrentRequestsNeverMix() throws Exception {
+        int threads = 16;
+        int requestsPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int checked = 0;
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        String genre = "genre-" + thread + "-" + i;
+                        String country = "country-" + thread + "-" + i;
+                        int startYear = 1950 + (thread * 7 + i) % 50;
+                        int endYear = startYear + 1 + i % 30;
+                        TreeMap<Integer, CombinedDataByYear> combined = dataCombiner.combineData(
+                                movies(genre, startYear, endYear, i), populations(country, startYear, endYear));
+
+                        assertEquals(endYear - startYear + 1, combined.size());
+                        for (CombinedDataByYear data : combined.values()) {
+                            assertEquals(genre, data.getGenre());
+                            assertEquals(country, data.getCountry());
+                            assertEquals(i + data.getYear(), data.getHowManyMovies());
+                            checked++;
+                        }
+                    }
+                    return checked;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+    * Test for combineYear. A single year is combined only when both halves are present
+    * and belong to the same year.
+    */
+    @Test
+    void testCombineYear() {
+        DataCombiner combiner = new DataCombiner();
+        MovieStatistics movie = movies("35", 2001, 2001, 10).get(0);
+        PopulationStatistics population = populations("276", 2001, 2001).get(0);
+
+        CombinedDataByYear combined = combiner.combineYear(movie, population);
+        assertEquals(2001, combined.getYear());
+        assertEquals("35", combined.getGenre());
+        assertEquals("276", combined.getCountry());
+        assertEquals(2011, combined.getHowManyMovies());
+
+        assertNull(combiner.combineYear(movie, null));
+        assertNull(combiner.combineYear(null, population));
+        assertNull(combiner.combineYear(movie, populations("276", 2002, 2002).get(0)));
+    }
+
+    /**
+    * Test for combineYear. A year is stale if either of its halves is the last known data.
+    */
+    @Test
+    void testCombineYearStale() {
+        DataCombiner combiner = new DataCombiner();
+        MovieStatistics movie = movies("35", 2001, 2001, 10).get(0);
+        PopulationStatistics population = populations("276", 2001, 2001).get(0);
+
+        assertFalse(combiner.combineYear(movie, population).isStale());
+        assertTrue(combiner.combineYear(movie.asStale(), population).isStale());
+        assertTrue(combiner.combineYear(movie, population.asStale()).isStale());
+        assertFalse(movie.isStale());
+        assertFalse(population.isStale());
+    }
+}
@@ -35,7 +35,7 @@ public class DataControllerTests {
 		int endy = 2020;
         String indicator = "46"; //population
 
-        TreeMap<Integer, CombinedDataByYear> result = testDC.getCombinedData(cc, genre, sty, endy, indicator);
+        TreeMap<Integer, CombinedDataByYear> result = testDC.getCombinedData(cc, genre, sty, endy, indicator, null).getBody();
         
         CombinedDataByYear testyear = result.get(1999);
         
@@ -0,0 +1,162 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.moviepopularitybackend.controller.DataController;
+import com.example.moviepopularitybackend.model.ApiCodes;
+import com.example.moviepopularitybackend.model.CombinedDataByYear;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.services.CombinedDataService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test class for testing the entity tags, Cache-Control headers and conditional requests of
+ * DataController with a stubbed CombinedDataService
+ */
+public class HttpCachingTests {
+
+    private DataController controller;
+    private CombinedDataService combinedDataService;
+
+    @BeforeEach
+    void setUp() {
+        combinedDataService = mock(CombinedDataService.class);
+
+        controller = new DataController();
+        ReflectionTestUtils.setField(controller, "combinedDataService", combinedDataService);
+        ReflectionTestUtils.setField(controller, "apiCodes", new ApiCodes());
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "codeMappingsMaxAge", Duration.ofDays(1));
+        ReflectionTestUtils.setField(controller, "combinedDataMaxAge", Duration.ofHours(1));
+        ReflectionTestUtils.setField(controller, "combinedDataCurrentYearMaxAge", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(controller, "maxYearSpan", 100);
+        ReflectionTestUtils.invokeMethod(controller, "init");
+    }
+
+    private static TreeMap<Integer, CombinedDataByYear> years(int startYear, int endYear) {
+        return years(startYear, endYear, 5);
+    }
+
+    private static TreeMap<Integer, CombinedDataByYear> years(int startYear, int endYear, int movies) {
+        TreeMap<Integer, CombinedDataByYear> data = new TreeMap<>();
+        for (int year = startYear; year <= endYear; year++) {
+            data.put(year, new CombinedDataByYear("276", "28", year, new PopulationStatistics(), movies));
+        }
+        return data;
+    }
+
+    /**
+    * Test for getCombinedData. Complete data is sent with its tag and max age, and a request
+    * with the current tag gets 304 without the data.
+    */
+    @Test
+    void testCombinedDataNotModified() {
+        when(combinedDataService.getCombinedData("Germany", "Action", 2000, 2002, "47"))
+                .thenReturn(years(2000, 2002));
+
+        ResponseEntity<TreeMap<Integer, CombinedDataByYear>> response = controller.getCombinedData("Germany",
+                "Action", 2000, 2002, "47", null);
+        String tag = response.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(tag);
+        assertEquals("max-age=3600, public", response.getHeaders().getCacheControl());
+
+        response = controller.getCombinedData("Germany", "Action", 2000, 2002, "47", "\"other\", W/" + tag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(tag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    /**
+    * Test for getCombinedData. A request with the tag of the cached upstream data gets 304
+    * without the data being computed, and the data is sent with that tag otherwise.
+    */
+    @Test
+    void testCombinedDataValidatedBeforeComputing() {
+        when(combinedDataService.getCombinedDataETag("Germany", "Action", 2000, 2002, "47")).thenReturn("\"cached\"");
+        when(combinedDataService.getCombinedData("Germany", "Action", 2000, 2002, "47"))
+                .thenReturn(years(2000, 2002));
+
+        ResponseEntity<TreeMap<Integer, CombinedDataByYear>> response = controller.getCombinedData("Germany",
+                "Action", 2000, 2002, "47", "\"cached\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"cached\"", response.getHeaders().getETag());
+        verify(combinedDataService, never()).getCombinedData("Germany", "Action", 2000, 2002, "47");
+
+        response = controller.getCombinedData("Germany", "Action", 2000, 2002, "47", "\"other\"");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"cached\"", response.getHeaders().getETag());
+        assertEquals(3, response.getBody().size());
+    }
+
+    /**
+    * Test for getCombinedData. Without a tag of the cached upstream data, the tag follows the
+    * returned data only: the same data keeps its
+    * tag, and changed data gets a new one that an old tag does not match.
+    */
+    @Test
+    void testCombinedDataTagFollowsData() {
+        when(combinedDataService.getCombinedData("Germany", "Action", 2000, 2002, "47"))
+                .thenReturn(years(2000, 2002), years(2000, 2002), years(2000, 2002, 6));
+
+        String tag = controller.getCombinedData("Germany", "Action", 2000, 2002, "47", null).getHeaders().getETag();
+        assertEquals(tag, controller.getCombinedData("Germany", "Action", 2000, 2002, "47", null).getHeaders()
+                .getETag());
+
+        ResponseEntity<TreeMap<Integer, CombinedDataByYear>> response = controller.getCombinedData("Germany",
+                "Action", 2000, 2002, "47", tag);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(tag, response.getHeaders().getETag());
+        assertEquals(6, response.getBody().get(2001).getHowManyMovies());
+    }
+
+    /**
+    * Test for getCombinedData. Data with missing years gets no tag and must be revalidated, so
+    * that the missing years are fetched again by the next request.
+    */
+    @Test
+    void testIncompleteCombinedDataHasNoTag() {
+        when(combinedDataService.getCombinedData("Germany", "Action", 2000, 2002, "47"))
+                .thenReturn(years(2000, 2001));
+
+        ResponseEntity<TreeMap<Integer, CombinedDataByYear>> response = controller.getCombinedData("Germany",
+                "Action", 2000, 2002, "47", "\"other\"");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+
+    /**
+    * Test for getCodeMappings. The mappings are sent with a tag that does not change, and a
+    * request with that tag gets 304.
+    */
+    @Test
+    void testCodeMappingsNotModified() {
+        ResponseEntity<Map<String, Map<String, String>>> response = controller.getCodeMappings(null);
+        String tag = response.getHeaders().getETag();
+        assertEquals(4, response.getBody().size());
+        assertEquals("max-age=86400, public", response.getHeaders().getCacheControl());
+        assertEquals(tag, controller.getCodeMappings("\"other\"").getHeaders().getETag());
+
+        response = controller.getCodeMappings(tag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+}
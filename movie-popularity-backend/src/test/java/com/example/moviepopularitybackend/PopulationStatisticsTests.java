@@ -0,0 +1,97 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.model.AgeBucket;
+import com.example.moviepopularitybackend.model.AgeGroup;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.AgeGroupCombiner;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test class for testing the compact age group storage of PopulationStatistics
+ */
+public class PopulationStatisticsTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Map<String, AgeGroup> ageGroups() {
+        Map<String, AgeGroup> ageGroups = new HashMap<>();
+        ageGroups.put("0-14", new AgeGroup("0-14", 10, 11, 21));
+        ageGroups.put("15-24", new AgeGroup("15-24", 20, 22, 42));
+        ageGroups.put("25-64", new AgeGroup("25-64", 30, 33, 63));
+        ageGroups.put("+65", new AgeGroup("+65", 40, 44, 84));
+        return ageGroups;
+    }
+
+    /**
+    * Test for the JSON of PopulationStatistics. The age groups are serialized exactly as the
+    * HashMap of AgeGroup objects that used to be stored.
+    */
+    @Test
+    void testJsonMatchesMapOfAgeGroups() throws JsonProcessingException {
+        PopulationStatistics population = new PopulationStatistics();
+        population.setCountry("246");
+        population.setYear(2000);
+        population.setIndicatorValue(210);
+        population.setPopulationAges(ageGroups());
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("country", "246");
+        expected.put("year", 2000);
+        expected.put("indicatorValue", 210);
+        expected.put("populationAges", ageGroups());
+
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(population));
+    }
+
+    /**
+    * Test for setPopulation and getPopulationAges. Values set by category and sex are read back
+    * through the age group map.
+    */
+    @Test
+    void testSetPopulationByBucket() {
+        PopulationStatistics population = new PopulationStatistics();
+        population.setPopulation(AgeBucket.YOUTH, PopulationStatistics.MALE, 5);
+        population.addPopulation(AgeBucket.YOUTH, PopulationStatistics.MALE, 7);
+        population.setPopulation(AgeBucket.ELDERS, PopulationStatistics.BOTH_SEXES, 9);
+
+        Map<String, AgeGroup> ageGroups = population.getPopulationAges();
+        assertEquals(4, ageGroups.size());
+        assertEquals(12, ageGroups.get("15-24").getMalePopulation());
+        assertEquals(0, ageGroups.get("15-24").getFemalePopulation());
+        assertEquals(9, ageGroups.get("+65").getBothSexesPopulation());
+        assertEquals("+65", ageGroups.get("+65").getAgeRange());
+        assertEquals(0, ageGroups.get("0-14").getBothSexesPopulation());
+    }
+
+    /**
+    * Test for AgeGroupCombiner. The five year age groups are summed into their categories and
+    * age groups outside of the categories are ignored.
+    */
+    @Test
+    void testCombineAgeGroupsIntoPopulation() {
+        Map<String, Map<String, Double>> raw = new HashMap<>();
+        raw.put("0-4", Map.of("Male", 1.0, "Female", 2.0, "Both sexes", 3.0));
+        raw.put("10-14", Map.of("Male", 4.0, "Female", 5.0, "Both sexes", 9.0));
+        raw.put("100+", Map.of("Both sexes", 6.0));
+        raw.put("Total", Map.of("Both sexes", 1000.0));
+
+        PopulationStatistics population = new PopulationStatistics();
+        AgeGroupCombiner.combineAgeGroups(raw, population);
+
+        assertEquals(5, population.getPopulation(AgeBucket.CHILDREN, PopulationStatistics.MALE));
+        assertEquals(7, population.getPopulation(AgeBucket.CHILDREN, PopulationStatistics.FEMALE));
+        assertEquals(12, population.getPopulation(AgeBucket.CHILDREN, PopulationStatistics.BOTH_SEXES));
+        assertEquals(6, population.getPopulation(AgeBucket.ELDERS, PopulationStatistics.BOTH_SEXES));
+        assertEquals(0, population.getPopulation(AgeBucket.ADULTS, PopulationStatistics.BOTH_SEXES));
+        assertEquals(12, AgeGroupCombiner.combineAgeGroups(raw).get("0-14").getBothSexesPopulation());
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.moviepopularitybackend.controller.DataController;
+import com.example.moviepopularitybackend.model.PreferencesPage;
+import com.example.moviepopularitybackend.model.UserPreferences;
+import com.example.moviepopularitybackend.services.SaveService;
+import com.example.moviepopularitybackend.utility.RecordLog;
+
+/**
+ * Test class for testing the snapshot and change log of SaveService without the Spring context
+ */
+public class PreferenceStoreTests {
+
+    @TempDir
+    Path tempDir;
+
+    private SaveService newService(int compactionThreshold) {
+        SaveService service = new SaveService();
+        ReflectionTestUtils.setField(service, "fileName", tempDir.resolve("preferences.json").toString());
+        ReflectionTestUtils.setField(service, "compactionThreshold", compactionThreshold);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    private SaveService newWriteBehindService(int compactionThreshold, int batchSize, Duration flushInterval) {
+        SaveService service = new SaveService();
+        ReflectionTestUtils.setField(service, "fileName", tempDir.resolve("preferences.json").toString());
+        ReflectionTestUtils.setField(service, "compactionThreshold", compactionThreshold);
+        ReflectionTestUtils.setField(service, "writeBehind", true);
+        ReflectionTestUtils.setField(service, "flushBatchSize", batchSize);
+        ReflectionTestUtils.setField(service, "flushInterval", flushInterval);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    private static UserPreferences preference(int i) {
+        return new UserPreferences("Action", "Finland", "46", Integer.toString(1950 + i), "2020");
+    }
+
+    /**
+    * Test for SavetoFile and GetFileContents. Saved preferences are kept once and in order,
+    * and a new instance reading the same files sees the same preferences.
+    */
+    @Test
+    void testSaveIsDurableAndOrdered() {
+        SaveService service = newService(1000);
+        service.SavetoFile(preference(2));
+        service.SavetoFile(preference(1));
+        service.SavetoFile(preference(2));
+
+        assertEquals(List.of(preference(2), preference(1)), new ArrayList<>(service.GetFileContents()));
+        assertEquals(List.of(preference(2), preference(1)), new ArrayList<>(newService(1000).GetFileContents()));
+    }
+
+    /**
+    * Test for deletePreference. The preference at the index is removed, also after a restart,
+    * and an invalid index changes nothing.
+    */
+    @Test
+    void testDeleteByIndex() {
+        SaveService service = newService(1000);
+        for (int i = 0; i < 3; i++) {
+            service.SavetoFile(preference(i));
+        }
+
+        assertTrue(service.deletePreference(1));
+        assertFalse(service.deletePreference(2));
+
+        List<UserPreferences> expected = List.of(preference(0), preference(2));
+        assertEquals(expected, new ArrayList<>(service.GetFileContents()));
+        assertEquals(expected, new ArrayList<>(newService(1000).GetFileContents()));
+    }
+
+    /**
+    * Test for the compaction. Once the log holds the threshold number of changes it is folded
+    * into the json snapshot, and the changes after it are replayed from the log on a restart.
+    */
+    @Test
+    void testCompactsLogIntoSnapshot() throws IOException {
+        SaveService service = newService(3);
+        for (int i = 0; i < 4; i++) {
+            service.SavetoFile(preference(i));
+        }
+
+        // The snapshot was written after the third change, the fourth is in the log
+        String json = Files.readString(tempDir.resolve("preferences.json"));
+        assertTrue(json.contains("\"startYear\":\"1952\""));
+        assertFalse(json.contains("\"startYear\":\"1953\""));
+        assertEquals(1L, service.getStats().get("loggedChanges"));
+
+        Set<UserPreferences> reloaded = newService(1000).GetFileContents();
+        assertEquals(4, reloaded.size());
+    }
+
+    /**
+    * Test for the recovery. A change torn by a crash at the end of the log is dropped and
+    * the complete changes before it are kept.
+    */
+    @Test
+    void testIgnoresTornLogTail() throws IOException {
+        SaveService service = newService(1000);
+        service.SavetoFile(preference(0));
+        service.SavetoFile(preference(1));
+        Files.write(tempDir.resolve("preferences.json.log"), "\0\0\0ÿ{\"genre".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(List.of(preference(0), preference(1)), new ArrayList<>(newService(1000).GetFileContents()));
+    }
+
+    /**
+    * Test for concurrent writers. No save is lost when many threads save at once,
+    * with compactions in between.
+    */
+    @Test
+    void testConcurrentSavesAreKept() throws Exception {
+        SaveService service = newService(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int first = thread * 40;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + 40; i++) {
+                        service.SavetoFile(preference(i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(320, service.GetFileContents().size());
+        assertEquals(320, newService(1000).GetFileContents().size());
+    }
+
+    /**
+    * Test for savePreference and deletePreferenceById. Every preference keeps its id, a duplicate
+    * gets the id of the saved one, and the id of a deleted preference is not given out again
+    * after a restart.
+    */
+    @Test
+    void testStableIds() {
+        SaveService service = newService(1000);
+        long first = service.savePreference(preference(0));
+        long second = service.savePreference(preference(1));
+        long third = service.savePreference(preference(2));
+
+        assertEquals(second, service.savePreference(preference(1)));
+        assertTrue(service.deletePreferenceById(third));
+        assertFalse(service.deletePreferenceById(third));
+
+        SaveService restarted = newService(1000);
+        assertEquals(preference(1), restarted.getPreference(second));
+        assertEquals(first, restarted.getPreference(first).getId());
+        assertNull(restarted.getPreference(third));
+        assertEquals(third + 1, restarted.savePreference(preference(3)));
+    }
+
+    /**
+    * Test for savePreference and the preference endpoints. A change that cannot be written to
+    * the log is not applied, and the endpoints answer with status 500 instead of reporting success.
+    */
+    @Test
+    void testWriteFailureIsReported() throws IOException {
+        SaveService service = newService(1000);
+        long first = service.savePreference(preference(0));
+        // A directory in place of the log makes every append fail
+        Files.deleteIfExists(tempDir.resolve("preferences.json.log"));
+        Files.createDirectory(tempDir.resolve("preferences.json.log"));
+
+        assertThrows(UncheckedIOException.class, () -> service.savePreference(preference(1)));
+        assertEquals(1, service.GetFileContents().size());
+        assertEquals(1, service.getStats().get("writeErrors"));
+        // A duplicate needs no write and still gets its id
+        assertEquals(first, service.savePreference(preference(0)));
+
+        DataController controller = new DataController();
+        ReflectionTestUtils.setField(controller, "saveService", service);
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> controller.savePreferences(preference(2)));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, error.getStatusCode());
+        error = assertThrows(ResponseStatusException.class, () -> controller.deletePreference(first));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, error.getStatusCode());
+        assertEquals(preference(0), service.getPreference(first));
+    }
+
+    /**
+    * Test for getPreferencesPage. Pages follow the order the preferences were saved in,
+    * and a page after the last one is empty.
+    */
+    @Test
+    void testPages() {
+        SaveService service = newService(1000);
+        for (int i = 0; i < 5; i++) {
+            service.SavetoFile(preference(i));
+        }
+
+        PreferencesPage<UserPreferences> page = service.getPreferencesPage(1, 2);
+        assertEquals(List.of(preference(2), preference(3)), page.getItems());
+        assertEquals(5, page.getTotalItems());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(List.of(preference(4)), service.getPreferencesPage(2, 2).getItems());
+        assertTrue(service.getPreferencesPage(3, 2).getItems().isEmpty());
+    }
+
+    /**
+    * Test for loading a json file saved before preferences had ids. The preferences get ids
+    * in the order of the file, and the ids are written back to the file.
+    */
+    @Test
+    void testAssignsIdsToOldFile() throws IOException {
+        Files.writeString(tempDir.resolve("preferences.json"),
+                "[{\"genre\":\"Action\",\"country\":\"Finland\",\"startYear\":\"1950\",\"endYear\":\"2020\",\"indicator\":\"46\"},"
+                + "{\"genre\":\"Action\",\"country\":\"Finland\",\"startYear\":\"1951\",\"endYear\":\"2020\",\"indicator\":\"46\"}]");
+
+        SaveService service = newService(1000);
+
+        assertEquals(preference(0), service.getPreference(1));
+        assertEquals(preference(1), service.getPreference(2));
+        assertTrue(Files.readString(tempDir.resolve("preferences.json")).contains("\"id\":2"));
+    }
+
+    /**
+    * Test for write-behind mode. Saves are visible at once but only queued, a full batch is
+    * written by the writer thread, and the rest of the queue is written when the service stops.
+    */
+    @Test
+    void testWriteBehindWritesQueueOnStop() throws InterruptedException {
+        SaveService service = newWriteBehindService(1000, 4, Duration.ofHours(1));
+        for (int i = 0; i < 4; i++) {
+            service.SavetoFile(preference(i));
+        }
+
+        // The fourth save filled a batch and woke the writer, the interval alone would not
+        for (int i = 0; i < 100 && service.getStats().get("flushedBatches") == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1L, service.getStats().get("flushedBatches"));
+
+        service.SavetoFile(preference(4));
+        service.SavetoFile(preference(5));
+        assertEquals(6, service.GetFileContents().size());
+        assertEquals(2L, service.getStats().get("pendingChanges"));
+
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+        assertEquals(0L, service.getStats().get("pendingChanges"));
+        assertEquals(6, newService(1000).GetFileContents().size());
+    }
+
+    /**
+    * Test for concurrent writers in write-behind mode. Batches and compactions of the writer
+    * thread keep every save and delete in order.
+    */
+    @Test
+    void testWriteBehindConcurrentSavesAreKept() throws Exception {
+        SaveService service = newWriteBehindService(50, 16, Duration.ofMillis(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int first = thread * 40;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + 40; i++) {
+                        long id = service.savePreference(preference(i));
+                        if (i % 4 == 0) {
+                            service.deletePreferenceById(id);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+
+        assertEquals(240, service.GetFileContents().size());
+        assertEquals(service.GetFileContents(), newService(1000).GetFileContents());
+    }
+
+    /**
+    * Test for compactions in write-behind mode. A crash after the new snapshot is in place but
+    * before the log is emptied leaves a log that still ends with the queued deletion, so the
+    * deleted preference does not come back after a restart.
+    */
+    @Test
+    void testCrashDuringCompactionKeepsDeletions() throws IOException {
+        SaveService service = newWriteBehindService(3, 1000, Duration.ofHours(1));
+        long deleted = service.savePreference(preference(0));
+        service.savePreference(preference(1));
+        ReflectionTestUtils.invokeMethod(service, "flush");
+        service.deletePreferenceById(deleted);
+
+        // The process dies while the log is rewritten, after the snapshot has been moved in place
+        Path logFile = tempDir.resolve("preferences.json.log");
+        ReflectionTestUtils.setField(service, "changeLog", new RecordLog(logFile, 1, true) {
+            @Override
+            public synchronized void rewrite(List<byte[]> payloads) throws IOException {
+                throw new IOException("crashed");
+            }
+        });
+        ReflectionTestUtils.invokeMethod(service, "flush");
+        String snapshot = Files.readString(tempDir.resolve("preferences.json"));
+        assertTrue(snapshot.contains("1951"));
+        assertFalse(snapshot.contains("1950"));
+
+        SaveService restarted = newService(1000);
+        assertNull(restarted.getPreference(deleted));
+        assertEquals(Set.of(preference(1)), restarted.GetFileContents());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.moviepopularitybackend.model.ApiCodes;
+import com.example.moviepopularitybackend.services.PrefetchScheduler;
+import com.example.moviepopularitybackend.services.TmdbService;
+import com.example.moviepopularitybackend.services.UnPopulationService;
+import com.example.moviepopularitybackend.services.UpstreamExecutor;
+import com.example.moviepopularitybackend.services.UpstreamHttpClient;
+import com.example.moviepopularitybackend.services.WarmCacheStore;
+import com.example.moviepopularitybackend.utility.RateLimiter;
+
+/**
+ * Test class for testing a prefetch pass of PrefetchScheduler against a TmdbService whose
+ * requests are answered by a stubbed RestTemplate
+ */
+public class PrefetchSchedulerTests {
+
+    private UpstreamExecutor upstreamExecutor;
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(upstreamExecutor, "shutdown");
+    }
+
+    /** Answers every discover request with the same total number of movies. */
+    private static final class StubRestTemplate extends RestTemplate {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(String url, HttpMethod method, RequestCallback requestCallback,
+                ResponseExtractor<T> responseExtractor, Object... uriVariables) {
+            return (T) Integer.valueOf(10);
+        }
+    }
+
+    private TmdbService tmdbService(int cacheMaxEntries) {
+        upstreamExecutor = new UpstreamExecutor();
+        ReflectionTestUtils.setField(upstreamExecutor, "virtualThreads", false);
+        ReflectionTestUtils.setField(upstreamExecutor, "poolSize", 4);
+        ReflectionTestUtils.setField(upstreamExecutor, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(upstreamExecutor, "tmdbMaxConcurrency", 4);
+        ReflectionTestUtils.setField(upstreamExecutor, "unMaxConcurrency", 1);
+        ReflectionTestUtils.invokeMethod(upstreamExecutor, "init");
+
+        UpstreamHttpClient upstreamHttpClient = mock(UpstreamHttpClient.class);
+        when(upstreamHttpClient.createRestTemplate(any(), any(), any(RateLimiter.class)))
+                .thenReturn(new StubRestTemplate());
+
+        TmdbService tmdbService = new TmdbService();
+        ReflectionTestUtils.setField(tmdbService, "tmdbApiKey", "key");
+        ReflectionTestUtils.setField(tmdbService, "tmdbApiUrl", "http://localhost");
+        ReflectionTestUtils.setField(tmdbService, "cacheMaxEntries", cacheMaxEntries);
+        ReflectionTestUtils.setField(tmdbService, "cacheTtlClosedYearHours", 168L);
+        ReflectionTestUtils.setField(tmdbService, "cacheTtlCurrentYearMinutes", 60L);
+        ReflectionTestUtils.setField(tmdbService, "retryMaxAttempts", 1);
+        ReflectionTestUtils.setField(tmdbService, "retryInitialBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(tmdbService, "retryMaxBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(tmdbService, "hedgeMinDelay", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(tmdbService, "hedgePercentile", 0.95);
+        ReflectionTestUtils.setField(tmdbService, "rateLimitPermitsPerSecond", 40.0);
+        ReflectionTestUtils.setField(tmdbService, "rateLimitBurst", 20);
+        ReflectionTestUtils.setField(tmdbService, "circuitBreakerFailureThreshold", 5);
+        ReflectionTestUtils.setField(tmdbService, "circuitBreakerOpenDuration", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(tmdbService, "upstreamExecutor", upstreamExecutor);
+        ReflectionTestUtils.setField(tmdbService, "upstreamHttpClient", upstreamHttpClient);
+        ReflectionTestUtils.setField(tmdbService, "warmCacheStore", new WarmCacheStore());
+        ReflectionTestUtils.invokeMethod(tmdbService, "initCache");
+        ReflectionTestUtils.invokeMethod(tmdbService, "initClient");
+        return tmdbService;
+    }
+
+    /**
+     * Gets the default of a configuration value from its annotation, so that the test follows
+     * the default the application starts with.
+     */
+    private static int defaultValue(Class<?> type, String field) throws NoSuchFieldException {
+        String expression = type.getDeclaredField(field).getAnnotation(Value.class).value();
+        return Integer.parseInt(expression.substring(expression.lastIndexOf(':') + 1, expression.length() - 1));
+    }
+
+    /**
+    * Test for prefetchAll. With the default size of the movie count cache, a full pass over every
+    * language, genre and year since 1950 leaves every movie count in the cache.
+    */
+    @Test
+    void testPassFitsInDefaultCache() throws NoSuchFieldException {
+        TmdbService tmdbService = tmdbService(defaultValue(TmdbService.class, "cacheMaxEntries"));
+        UnPopulationService unPopulationService = mock(UnPopulationService.class);
+        when(unPopulationService.fetchIntervalData(anyString(), anyString(), anyInt(), anyInt()))
+                .thenReturn(List.of());
+        ApiCodes apiCodes = new ApiCodes();
+
+        PrefetchScheduler scheduler = new PrefetchScheduler();
+        ReflectionTestUtils.setField(scheduler, "tmdbService", tmdbService);
+        ReflectionTestUtils.setField(scheduler, "unPopulationService", unPopulationService);
+        ReflectionTestUtils.setField(scheduler, "apiCodes", apiCodes);
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "startYear", 1950);
+        ReflectionTestUtils.setField(scheduler, "endYear", 0);
+        ReflectionTestUtils.setField(scheduler, "pauseBetweenQueries", Duration.ZERO);
+        scheduler.prefetchAll();
+
+        int years = Year.now().getValue() - 1950 + 1;
+        Map<String, Long> stats = tmdbService.getCacheStats();
+        assertEquals(0L, stats.get("evictions"));
+        assertEquals((long) apiCodes.getMovieCountryCodeMap().size() * apiCodes.getGenreCodeMap().size() * years,
+                stats.get("size"));
+
+        // A second pass is served from the cache alone
+        long misses = stats.get("misses");
+        scheduler.prefetchAll();
+        assertEquals(misses, tmdbService.getCacheStats().get("misses"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.utility.RateLimiter;
+
+/**
+ * Test class for testing the token bucket of RateLimiter
+ */
+public class RateLimiterTests {
+
+    /**
+    * Test for acquire. The burst is let through at once, the requests after it wait for the steady rate.
+    */
+    @Test
+    void testBurstThenSteadyRate() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(20, 5);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 40, "the burst was throttled");
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Four tokens at 20 per second take 200 ms to refill
+        assertTrue(elapsedMillis >= 180, "steady rate not enforced, took " + elapsedMillis + " ms");
+        Map<String, Long> stats = limiter.getStats();
+        assertEquals(9L, stats.get("acquired"));
+        assertTrue(stats.get("throttled") >= 3);
+        assertTrue(stats.get("waitMillisMax") > 0);
+    }
+
+    /**
+    * Test for acquire. A limiter without a rate never waits.
+    */
+    @Test
+    void testDisabledLimiterDoesNotWait() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(0, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire();
+        }
+
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 100);
+        assertEquals(0L, limiter.getStats().get("throttled"));
+    }
+
+    /**
+    * Test for onRejected. A Retry-After delay pauses the bucket, even if it had tokens left.
+    */
+    @Test
+    void testRejectionPausesBucket() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1000, 10);
+        limiter.onRejected(Duration.ofMillis(150));
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 140, "bucket not paused, took " + elapsedMillis + " ms");
+        assertEquals(1L, limiter.getStats().get("rejected"));
+    }
+}
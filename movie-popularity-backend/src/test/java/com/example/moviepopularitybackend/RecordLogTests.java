@@ -0,0 +1,117 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.moviepopularitybackend.utility.RecordLog;
+
+/**
+ * Test class for testing the crash safety of the RecordLog
+ */
+public class RecordLogTests {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+    * Test for readAll. A record torn in the middle of a write is cut off, and records
+    * appended afterwards are read back normally.
+    */
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        Path file = tempDir.resolve("movies.log");
+        RecordLog log = new RecordLog(file, 1);
+        log.append(bytes("first"));
+        log.append(bytes("second"));
+        long completeLength = Files.size(file);
+
+        // Simulate a crash that left half a record behind
+        Files.write(file, new byte[] { 0, 0, 0, 20, 'x', 'y' }, StandardOpenOption.APPEND);
+
+        List<byte[]> records = new RecordLog(file, 1).readAll();
+        assertEquals(2, records.size());
+        assertEquals(completeLength, Files.size(file));
+
+        log.append(bytes("third"));
+        records = log.readAll();
+        assertEquals(3, records.size());
+        assertArrayEquals(bytes("third"), records.get(2));
+    }
+
+    /**
+    * Test for readAll. A record whose checksum does not match ends the log.
+    */
+    @Test
+    void testCorruptedRecordEndsLog() throws IOException {
+        Path file = tempDir.resolve("population.log");
+        RecordLog log = new RecordLog(file, 1);
+        log.append(bytes("first"));
+        log.append(bytes("second"));
+
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 6] ^= 0x55; // flip bits in the payload of the last record
+        Files.write(file, content);
+
+        List<byte[]> records = log.readAll();
+        assertEquals(1, records.size());
+        assertArrayEquals(bytes("first"), records.get(0));
+    }
+
+    /**
+    * Test for rewrite and format versions. A rewritten log holds exactly the given records, and
+    * a log written with another format version is discarded.
+    */
+    @Test
+    void testRewriteAndVersionMismatch() throws IOException {
+        Path file = tempDir.resolve("movies.log");
+        RecordLog log = new RecordLog(file, 1);
+        log.append(bytes("old"));
+        log.rewrite(List.of(bytes("kept")));
+
+        assertEquals(1, log.readAll().size());
+        assertEquals(0, new RecordLog(file, 2).readAll().size());
+    }
+
+    /**
+    * Test for readAll. A durable log with another format version fails and is moved aside with
+    * its records intact, and new records then start a fresh log.
+    */
+    @Test
+    void testDurableVersionMismatchIsMovedAside() throws IOException {
+        Path file = tempDir.resolve("preferences.json.log");
+        new RecordLog(file, 1, true).append(bytes("saved"));
+
+        RecordLog log = new RecordLog(file, 2, true);
+        assertThrows(IOException.class, log::readAll);
+        assertFalse(Files.exists(file));
+
+        Path aside;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            aside = files.filter(path -> path.getFileName().toString().startsWith("preferences.json.log.unreadable-"))
+                    .findFirst().orElseThrow();
+        }
+        List<byte[]> records = new RecordLog(aside, 1, true).readAll();
+        assertEquals(1, records.size());
+        assertArrayEquals(bytes("saved"), records.get(0));
+
+        log.append(bytes("new"));
+        assertEquals(1, log.readAll().size());
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.moviepopularitybackend.utility.RetryingCaller;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test class for testing the retries and hedged requests of RetryingCaller against a local
+ * stub server that injects latency and errors. Every call requests a path of its own, and the
+ * stub keeps the scripted replies and numbers the responses per path, so a duplicate request
+ * of an earlier call still in flight cannot take the replies scripted for a later call.
+ */
+public class RetryingCallerTests {
+
+    /** What the stub server does for one request: delay the response, then answer with the status. */
+    private record Reply(long delayMillis, int status) {
+    }
+
+    private HttpServer server;
+    private String url;
+    private RestTemplate restTemplate;
+    /** Scripted replies by path, taken in order. Once they run out the server answers quickly with 200. */
+    private final Map<String, ConcurrentLinkedQueue<Reply>> replies = new ConcurrentHashMap<>();
+    /** The number of requests by path. */
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int number = requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            Reply reply = replies.computeIfAbsent(path, key -> new ConcurrentLinkedQueue<>()).poll();
+            if (reply == null) {
+                reply = new Reply(0, 200);
+            }
+            try {
+                Thread.sleep(reply.delayMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("response " + number).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(reply.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException e) {
+                // The client gave up waiting
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(1));
+        requestFactory.setReadTimeout(Duration.ofMillis(300));
+        restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static RetryingCaller caller(int maxAttempts, boolean hedging) {
+        return new RetryingCaller(new RetryingCaller.Settings(maxAttempts, Duration.ofMillis(10),
+                Duration.ofMillis(50), hedging, 0.9, Duration.ofMillis(50)));
+    }
+
+    private String get() {
+        return get("data");
+    }
+
+    private String get(String path) {
+        return restTemplate.getForObject(url + path, String.class);
+    }
+
+    private void script(String path, Reply... scripted) {
+        replies.computeIfAbsent("/" + path, key -> new ConcurrentLinkedQueue<>()).addAll(List.of(scripted));
+    }
+
+    private int requests(String path) {
+        AtomicInteger count = requests.get("/" + path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Collects enough latency samples for the caller to start hedging, each from a call of its own.
+     */
+    private void warmUp(RetryingCaller caller) throws Exception {
+        for (int i = 0; i < 25; i++) {
+            String path = "warm-up-" + i;
+            caller.call(() -> get(path));
+        }
+    }
+
+    /**
+    * Test for call. Server errors are retried until an attempt succeeds.
+    */
+    @Test
+    void testRetriesServerErrors() throws Exception {
+        script("data", new Reply(0, 503), new Reply(0, 500));
+        RetryingCaller caller = caller(4, false);
+
+        assertEquals("response 3", caller.call(this::get));
+
+        Map<String, Long> stats = caller.getStats();
+        assertEquals(3L, stats.get("attempts"));
+        assertEquals(2L, stats.get("retries"));
+        assertEquals(0L, stats.get("failures"));
+    }
+
+    /**
+    * Test for call. An attempt that runs into the read timeout is retried.
+    */
+    @Test
+    void testRetriesReadTimeout() throws Exception {
+        script("data", new Reply(1000, 200));
+        RetryingCaller caller = caller(2, false);
+
+        assertEquals("response 2", caller.call(this::get));
+        assertEquals(1L, caller.getStats().get("retries"));
+    }
+
+    /**
+    * Test for call. The failure of the last attempt is thrown once the attempts run out.
+    */
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        for (int i = 0; i < 5; i++) {
+            script("data", new Reply(0, 503));
+        }
+        RetryingCaller caller = caller(3, false);
+
+        assertThrows(Exception.class, () -> caller.call(this::get));
+        assertEquals(3, requests("data"));
+        assertEquals(1L, caller.getStats().get("failures"));
+    }
+
+    /**
+    * Test for call. Client errors are not retried, except for 429 Too Many Requests.
+    */
+    @Test
+    void testDoesNotRetryClientErrors() throws Exception {
+        script("data", new Reply(0, 404));
+        RetryingCaller caller = caller(3, false);
+        assertThrows(HttpClientErrorException.class, () -> caller.call(this::get));
+        assertEquals(1, requests("data"));
+
+        script("data", new Reply(0, 429));
+        assertEquals("response 3", caller.call(this::get));
+    }
+
+    /**
+    * Test for call. Once enough latencies have been sampled, an attempt slower than the
+    * percentile gets a duplicate request which answers first.
+    */
+    @Test
+    void testHedgedRequestWins() throws Exception {
+        RetryingCaller caller = caller(1, true);
+        warmUp(caller);
+        // A warm-up call may have been hedged by a JIT or GC pause, so only the change is checked
+        long hedgesBefore = caller.getStats().get("hedges");
+        long hedgesWonBefore = caller.getStats().get("hedgesWon");
+        // The first request of the call stalls, its duplicate is answered right away
+        script("hedged", new Reply(250, 200));
+
+        long start = System.nanoTime();
+        String result = caller.call(() -> get("hedged"));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("response 2", result);
+        assertTrue(elapsedMillis < 250, "hedged call took " + elapsedMillis + " ms");
+        Map<String, Long> stats = caller.getStats();
+        assertEquals(hedgesBefore + 1, stats.get("hedges"));
+        assertEquals(hedgesWonBefore + 1, stats.get("hedgesWon"));
+    }
+
+    /**
+    * Test for call. A hedged call only fails once both the attempt and its duplicate have failed.
+    */
+    @Test
+    void testHedgedCallFailsWhenBothFail() throws Exception {
+        RetryingCaller caller = caller(1, true);
+        warmUp(caller);
+        long hedgesBefore = caller.getStats().get("hedges");
+        long hedgesWonBefore = caller.getStats().get("hedgesWon");
+        script("failing", new Reply(1000, 200), new Reply(1000, 200));
+
+        assertThrows(ResourceAccessException.class, () -> caller.call(() -> get("failing")));
+        assertEquals(hedgesBefore + 1, caller.getStats().get("hedges"));
+        assertEquals(hedgesWonBefore, caller.getStats().get("hedgesWon"));
+    }
+
+    /**
+    * Test for call. Once the duplicate has won, the slow attempt is cancelled by interrupting
+    * it instead of being left running.
+    */
+    @Test
+    void testLosingAttemptIsCancelled() throws Exception {
+        RetryingCaller caller = caller(1, true);
+        warmUp(caller);
+        long cancelledBefore = caller.getStats().get("cancelled");
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        String result = caller.call(() -> {
+            if (attempts.incrementAndGet() > 1) {
+                return "duplicate";
+            }
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "slow";
+        });
+
+        assertEquals("duplicate", result);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertEquals(cancelledBefore + 1, caller.getStats().get("cancelled"));
+    }
+}
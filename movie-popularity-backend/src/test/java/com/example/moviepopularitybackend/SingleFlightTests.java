@@ -0,0 +1,145 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.utility.SingleFlight;
+
+/**
+ * Test class for testing the SingleFlight request coalescing
+ */
+public class SingleFlightTests {
+
+    /**
+    * Test for execute. Calls for a key that is in flight share the same future, and the key
+    * is released once the computation completes.
+    */
+    @Test
+    void testExecuteSharesFutureWhileInFlight() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<Integer> first = flights.execute("28|de|1999", () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<Integer> second = flights.execute("28|de|1999", () -> {
+            loads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertSame(first, second);
+
+        upstream.complete(42);
+        assertEquals(42, second.join());
+        flights.execute("28|de|1999", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(43);
+        });
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, flights.getStats().get("coalesced"));
+    }
+
+    /**
+    * Test for run. Concurrent blocking callers of the same key get the result of a single computation.
+    */
+    @Test
+    void testRunComputesOnceForConcurrentCallers() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flights.run("Germany|Action", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "combined";
+            })));
+            started.await();
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> flights.run("Germany|Action", () -> {
+                    computations.incrementAndGet();
+                    return "duplicate";
+                })));
+            }
+            // Wait until every follower has joined the computation in flight
+            while (flights.getStats().get("coalesced") < 7) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("combined", result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, computations.get());
+    }
+
+    /**
+    * Test for claim. Of many callers claiming the same key at once exactly one claims it, the
+    * others join its future, which completes with the computation handed to complete.
+    */
+    @Test
+    void testClaimIsAtomic() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Integer>> claims = new ArrayList<>();
+        try {
+            List<Future<CompletableFuture<Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> {
+                    CompletableFuture<Integer> claim = new CompletableFuture<>();
+                    start.await();
+                    CompletableFuture<Integer> inFlight = flights.claim("276|47|2000", claim);
+                    if (inFlight == null) {
+                        synchronized (claims) {
+                            claims.add(claim);
+                        }
+                        flights.complete("276|47|2000", claim, upstream);
+                        return claim;
+                    }
+                    return inFlight;
+                }));
+            }
+            start.countDown();
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (Future<CompletableFuture<Integer>> result : results) {
+                futures.add(result.get());
+            }
+            upstream.complete(7);
+            for (CompletableFuture<Integer> future : futures) {
+                assertEquals(7, future.join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, claims.size());
+        assertEquals(0L, flights.getStats().get("inFlight"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
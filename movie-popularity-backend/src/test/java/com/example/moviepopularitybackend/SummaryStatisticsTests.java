@@ -0,0 +1,83 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.model.SummaryStatistics;
+
+/**
+ * Test class for testing the running SummaryStatistics
+ */
+public class SummaryStatisticsTests {
+
+    /**
+    * Test for add. The running mean, standard deviation, minimum and maximum match the
+    * values computed over the whole series.
+    */
+    @Test
+    void testAddMatchesDirectComputation() {
+        double[] values = { 12.5, 3.0, 7.25, 99.0, 0.5, 42.0 };
+        SummaryStatistics summary = new SummaryStatistics();
+        for (double value : values) {
+            summary.add(value);
+        }
+        summary.add(Double.NaN);
+
+        double mean = 0;
+        for (double value : values) {
+            mean += value / values.length;
+        }
+        double variance = 0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean) / values.length;
+        }
+        assertEquals(6, summary.getCount());
+        assertEquals(mean, summary.getMean(), 1e-9);
+        assertEquals(Math.sqrt(variance), summary.getStandardDeviation(), 1e-9);
+        assertEquals(0.5, summary.getMin());
+        assertEquals(99.0, summary.getMax());
+    }
+
+    /**
+    * Test for merge. Merging the summaries of pages gives the same result as adding every
+    * value to a single summary, whatever the page sizes.
+    */
+    @Test
+    void testMergeEqualsSingleSummary() {
+        Random random = new Random(7);
+        SummaryStatistics single = new SummaryStatistics();
+        SummaryStatistics merged = new SummaryStatistics();
+        for (int page = 0; page < 50; page++) {
+            SummaryStatistics pageSummary = new SummaryStatistics();
+            int size = random.nextInt(21);
+            for (int i = 0; i < size; i++) {
+                double value = random.nextDouble() * 1000;
+                single.add(value);
+                pageSummary.add(value);
+            }
+            merged.merge(pageSummary);
+        }
+        assertEquals(single.getCount(), merged.getCount());
+        assertEquals(single.getMean(), merged.getMean(), 1e-9);
+        assertEquals(single.getStandardDeviation(), merged.getStandardDeviation(), 1e-9);
+        assertEquals(single.getMin(), merged.getMin());
+        assertEquals(single.getMax(), merged.getMax());
+    }
+
+    /**
+    * Test for the empty summary. Everything is zero until a value is added.
+    */
+    @Test
+    void testEmptySummary() {
+        SummaryStatistics summary = new SummaryStatistics();
+        summary.merge(new SummaryStatistics());
+        assertEquals(0, summary.getCount());
+        assertEquals(0, summary.getMean());
+        assertEquals(0, summary.getStandardDeviation());
+        assertEquals(0, summary.getMin());
+        assertEquals(0, summary.getMax());
+    }
+}
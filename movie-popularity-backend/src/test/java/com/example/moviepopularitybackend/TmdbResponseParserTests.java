@@ -0,0 +1,54 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.benchmark.UpstreamStub;
+import com.example.moviepopularitybackend.utility.TmdbResponseParser;
+
+/**
+ * Test class for testing the streaming reader of TMDB discover responses
+ */
+public class TmdbResponseParserTests {
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+    * Test for readTotalResults. The count is read from a full result page, after the results array.
+    */
+    @Test
+    void testReadTotalResultsFromFullPage() throws IOException {
+        assertEquals(2561, TmdbResponseParser.readTotalResults(stream(UpstreamStub.discoverPage(1, 2561))));
+        assertEquals(0, TmdbResponseParser.readTotalResults(stream(UpstreamStub.discoverPage(1, 0))));
+    }
+
+    /**
+    * Test for readTotalResults. Nested objects with a field of the same name are skipped, and
+    * reading stops at the count even if the rest of the body is cut off.
+    */
+    @Test
+    void testReadTotalResultsSkipsNestedFields() throws IOException {
+        String json = "{\"results\":[{\"total_results\":7,\"genre_ids\":[1,2]}],\"total_results\":42,\"page\":";
+
+        assertEquals(42, TmdbResponseParser.readTotalResults(stream(json)));
+    }
+
+    /**
+    * Test for readTotalResults. A response without the count, such as an error body, is rejected.
+    */
+    @Test
+    void testReadTotalResultsMissing() {
+        assertThrows(IOException.class,
+                () -> TmdbResponseParser.readTotalResults(stream("{\"status_code\":7,\"success\":false}")));
+        assertThrows(IOException.class, () -> TmdbResponseParser.readTotalResults(stream("[]")));
+    }
+}
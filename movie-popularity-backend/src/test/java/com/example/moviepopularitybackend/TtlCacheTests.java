@@ -0,0 +1,109 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.utility.TtlCache;
+
+/**
+ * Test class for testing the TtlCache
+ */
+public class TtlCacheTests {
+
+    /**
+    * Test for expiry. A value is served while fresh and dropped once its TTL has passed.
+    */
+    @Test
+    void testEntryExpires() {
+        AtomicLong now = new AtomicLong(1000);
+        TtlCache<String, String> cache = new TtlCache<>(10, now::get);
+
+        cache.put("28|de|1999", "value", 500);
+        assertEquals("value", cache.get("28|de|1999"));
+
+        now.addAndGet(500);
+        assertNull(cache.get("28|de|1999"));
+        assertEquals(1L, cache.getStats().get("expirations"));
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    /**
+    * Test for size bound. The least recently used entry is evicted when the cache is full.
+    */
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        TtlCache<String, String> cache = new TtlCache<>(2);
+
+        cache.put("a", "1", 10_000);
+        cache.put("b", "2", 10_000);
+        cache.get("a");
+        cache.put("c", "3", 10_000);
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    /**
+    * Test for getStale. An expired value is no longer served fresh, but stays available as the
+    * last known value until it is replaced.
+    */
+    @Test
+    void testExpiredEntryServedStale() {
+        AtomicLong now = new AtomicLong(1000);
+        TtlCache<String, String> cache = new TtlCache<>(10, now::get);
+
+        cache.put("276|47|1999", "old", 500);
+        now.addAndGet(1000);
+        assertNull(cache.get("276|47|1999"));
+        assertEquals("old", cache.getStale("276|47|1999"));
+        assertNull(cache.getStale("276|47|2000"));
+
+        cache.put("276|47|1999", "new", 500);
+        assertEquals("new", cache.get("276|47|1999"));
+        assertEquals(1L, cache.getStats().get("staleHits"));
+    }
+
+    /**
+    * Test for putUntil. A value restored with an expiry time that has passed is not served as
+    * fresh, but is still the last known value, and a value that is still fresh is served.
+    */
+    @Test
+    void testPutUntilKeepsExpiredValue() {
+        AtomicLong now = new AtomicLong(1000);
+        TtlCache<String, String> cache = new TtlCache<>(10, now::get);
+
+        cache.putUntil("276|47|1999", "expired", 500);
+        cache.putUntil("276|47|2000", "fresh", 1500);
+
+        assertNull(cache.get("276|47|1999"));
+        assertEquals("expired", cache.getStale("276|47|1999"));
+        assertEquals("fresh", cache.get("276|47|2000"));
+    }
+
+    /**
+    * Test for getStoredAt. The time changes with every stored value, also within the same
+    * millisecond, and there is none once the value has expired.
+    */
+    @Test
+    void testStoredAtChangesWithValue() {
+        AtomicLong now = new AtomicLong(1000);
+        TtlCache<String, String> cache = new TtlCache<>(10, now::get);
+        assertEquals(0L, cache.getStoredAt("28|de|1999"));
+
+        cache.put("28|de|1999", "value", 500);
+        assertEquals(1000L, cache.getStoredAt("28|de|1999"));
+        cache.put("28|de|1999", "other", 500);
+        assertEquals(1001L, cache.getStoredAt("28|de|1999"));
+        assertEquals(0L, cache.getStats().get("hits") + cache.getStats().get("misses"));
+
+        now.addAndGet(600);
+        assertEquals(0L, cache.getStoredAt("28|de|1999"));
+    }
+}
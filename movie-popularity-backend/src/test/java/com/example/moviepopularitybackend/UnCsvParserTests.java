@@ -0,0 +1,71 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.benchmark.WppPayload;
+import com.example.moviepopularitybackend.model.AgeGroup;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.UnCsvParser;
+import com.example.moviepopularitybackend.utility.Utility;
+
+/**
+ * Test class for testing the streaming UnCsvParser
+ */
+public class UnCsvParserTests {
+
+    /**
+    * Test for parse. The streaming parser gives the same per year results as
+    * Utility.parseUnDataByYear on a multi-year WPP payload.
+    */
+    @Test
+    void testMatchesStringParser() throws IOException {
+        String csv = WppPayload.csv(2000, 2004);
+
+        Map<Integer, PopulationStatistics> expected = Utility.parseUnDataByYear(csv, "276");
+        UnCsvParser parser = new UnCsvParser("276");
+        parser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        Map<Integer, PopulationStatistics> actual = parser.getPopulationsByYear();
+
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Integer year : expected.keySet()) {
+            assertEquals(expected.get(year).getIndicatorValue(), actual.get(year).getIndicatorValue());
+            for (String category : expected.get(year).getPopulationAges().keySet()) {
+                AgeGroup expectedGroup = expected.get(year).getPopulationAges().get(category);
+                AgeGroup actualGroup = actual.get(year).getPopulationAges().get(category);
+                assertEquals(expectedGroup.getMalePopulation(), actualGroup.getMalePopulation());
+                assertEquals(expectedGroup.getFemalePopulation(), actualGroup.getFemalePopulation());
+                assertEquals(expectedGroup.getBothSexesPopulation(), actualGroup.getBothSexesPopulation());
+            }
+        }
+    }
+
+    /**
+    * Test for parse. Rows split over several streams, like the pages of a range request,
+    * are combined and the row count includes the header row.
+    */
+    @Test
+    void testCombinesPagesAndCountsRows() throws IOException {
+        String header = "sep=|\n" + WppPayload.HEADER + "\n";
+        UnCsvParser parser = new UnCsvParser("246");
+
+        int firstPage = parser.parse(new ByteArrayInputStream((header
+                + UtilityTests.row("Median", 2000, "Both sexes", "15-19", "\"1.5E2\"") + "\r\n")
+                .getBytes(StandardCharsets.UTF_8)));
+        int secondPage = parser.parse(new ByteArrayInputStream((header
+                + UtilityTests.row("Median", 2000, "Both sexes", "20-24", "\"50.9\"") + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, firstPage);
+        assertEquals(2, secondPage);
+        PopulationStatistics year2000 = parser.getPopulationsByYear().get(2000);
+        assertEquals(200.9, year2000.getIndicatorValue(), 1e-9);
+        assertEquals(201, year2000.getPopulationAges().get("15-24").getBothSexesPopulation());
+    }
+}
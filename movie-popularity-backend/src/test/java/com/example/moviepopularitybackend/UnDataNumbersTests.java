@@ -0,0 +1,150 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.example.moviepopularitybackend.model.AgeBucket;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.UnCsvParser;
+import com.example.moviepopularitybackend.utility.Utility;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.DoubleRange;
+import net.jqwik.api.constraints.LongRange;
+import net.jqwik.api.constraints.Size;
+
+/**
+ * Property based tests for the numbers of the UN data: long counts that do not overflow for
+ * the most populous countries, and indicator values that keep their decimals.
+ * Both the streaming UnCsvParser and the String based Utility parser are checked.
+ */
+public class UnDataNumbersTests {
+
+    private static final String[] AGES = { "0-4", "5-9", "10-14", "15-19", "20-24", "25-29", "30-34", "35-39",
+            "40-44", "45-49", "50-54", "55-59", "60-64", "65-69", "70-74", "75-79", "80-84", "85-89", "90-94",
+            "95-99", "100+" };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+    * Builds a UN data response for the year 2000 with one "Both sexes" and one "Male" row per
+    * five year age group, the values written with three decimals.
+    */
+    private static String csv(List<Long> bothSexesThousandths, List<Long> maleThousandths) {
+        StringBuilder csv = new StringBuilder("sep=|\n")
+                .append(UtilityTests.row("Variant", 0, "Sex", "AgeLabel", "Value")).append('\n');
+        for (int age = 0; age < bothSexesThousandths.size(); age++) {
+            csv.append(UtilityTests.row("Median", 2000, "Both sexes", AGES[age],
+                    "\"" + decimal(bothSexesThousandths.get(age)) + "\"")).append('\n');
+            if (maleThousandths != null) {
+                csv.append(UtilityTests.row("Median", 2000, "Male", AGES[age],
+                        "\"" + decimal(maleThousandths.get(age)) + "\"")).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    private static String decimal(long thousandths) {
+        return BigDecimal.valueOf(thousandths, 3).toPlainString();
+    }
+
+    private static PopulationStatistics parseStreaming(String csv) throws IOException {
+        UnCsvParser parser = new UnCsvParser("356");
+        parser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        return parser.getPopulationsByYear().get(2000);
+    }
+
+    private static PopulationStatistics parseString(String csv) {
+        return Utility.parseUnDataByYear(csv, "356").get(2000);
+    }
+
+    /**
+    * Whole counts of up to three billion per age group, far over the int range once summed,
+    * add up to the exact long totals in every age group category and in the indicator value.
+    */
+    @Property(tries = 200)
+    void largeCountsAreSummedExactly(
+            @ForAll @Size(21) List<@LongRange(min = 0, max = 3_000_000_000L) Long> counts) throws IOException {
+        List<Long> thousandths = counts.stream().map(count -> count * 1000).toList();
+        long[] expected = new long[AgeBucket.values().length];
+        long total = 0;
+        for (int age = 0; age < AGES.length; age++) {
+            expected[AgeBucket.ofAgeRange(AGES[age]).ordinal()] += counts.get(age);
+            total += counts.get(age);
+        }
+
+        String csv = csv(thousandths, null);
+        for (PopulationStatistics population : List.of(parseStreaming(csv), parseString(csv))) {
+            for (AgeBucket bucket : AgeBucket.values()) {
+                assertEquals(expected[bucket.ordinal()],
+                        population.getPopulation(bucket, PopulationStatistics.BOTH_SEXES));
+            }
+            assertEquals((double) total, population.getIndicatorValue());
+        }
+    }
+
+    /**
+    * A single value with decimals, such as a life expectancy or a negative net migration,
+    * is kept exactly as the indicator value, and its count is the nearest whole number.
+    */
+    @Property(tries = 500)
+    void decimalsAreKeptAndCountsRounded(
+            @ForAll @LongRange(min = -5_000_000_000_000L, max = 5_000_000_000_000L) long thousandths)
+            throws IOException {
+        String csv = csv(List.of(thousandths), null);
+        double value = Double.parseDouble(decimal(thousandths));
+
+        for (PopulationStatistics population : List.of(parseStreaming(csv), parseString(csv))) {
+            assertEquals(value, population.getIndicatorValue());
+            long count = population.getPopulation(AgeBucket.CHILDREN, PopulationStatistics.BOTH_SEXES);
+            assertTrue(Math.abs(count * 1000 - thousandths) <= 500, "count " + count + " for " + value);
+        }
+    }
+
+    /**
+    * The streaming parser and the String based parser give the same counts for any values,
+    * and indicator values that only differ by the order of the additions.
+    */
+    @Property(tries = 200)
+    void parsersAgree(
+            @ForAll @Size(21) List<@LongRange(min = -1_000_000_000_000L, max = 1_000_000_000_000L) Long> bothSexes,
+            @ForAll @Size(21) List<@LongRange(min = 0, max = 1_000_000_000_000L) Long> male) throws IOException {
+        String csv = csv(bothSexes, male);
+        PopulationStatistics streaming = parseStreaming(csv);
+        PopulationStatistics string = parseString(csv);
+
+        for (AgeBucket bucket : AgeBucket.values()) {
+            for (int sex : new int[] { PopulationStatistics.MALE, PopulationStatistics.BOTH_SEXES }) {
+                assertEquals(string.getPopulation(bucket, sex), streaming.getPopulation(bucket, sex));
+            }
+        }
+        double tolerance = Math.ulp(1e10) * AGES.length;
+        assertEquals(string.getIndicatorValue(), streaming.getIndicatorValue(), tolerance);
+    }
+
+    /**
+    * Whole indicator values are written to JSON as integers, as when they were stored as ints,
+    * and other values as decimals that read back to the same double.
+    */
+    @Property(tries = 500)
+    void indicatorJsonKeepsWholeNumbers(
+            @ForAll @LongRange(min = -1L << 53, max = 1L << 53) long whole,
+            @ForAll @DoubleRange(min = -1e12, max = 1e12) double rate) throws Exception {
+        PopulationStatistics population = new PopulationStatistics();
+        population.setIndicatorValue(whole);
+        assertEquals(Long.toString(whole),
+                objectMapper.readTree(objectMapper.writeValueAsString(population)).get("indicatorValue").toString());
+
+        population.setIndicatorValue(rate);
+        assertEquals(rate,
+                objectMapper.readTree(objectMapper.writeValueAsString(population)).get("indicatorValue").asDouble());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.moviepopularitybackend.services.UpstreamExecutor;
+
+/**
+ * Test class for testing the upstream lanes of UpstreamExecutor
+ */
+public class UpstreamExecutorTests {
+
+    private UpstreamExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new UpstreamExecutor();
+        ReflectionTestUtils.setField(executor, "virtualThreads", false);
+        ReflectionTestUtils.setField(executor, "poolSize", 4);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 100);
+        ReflectionTestUtils.setField(executor, "tmdbMaxConcurrency", 1);
+        ReflectionTestUtils.setField(executor, "unMaxConcurrency", 1);
+        ReflectionTestUtils.invokeMethod(executor, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(executor, "shutdown");
+    }
+
+    /**
+    * Test for supply. Queued calls of different flows take turns, so a small query queued after
+    * a large one does not wait for all of the large one's calls.
+    */
+    @Test
+    void testFlowsTakeTurns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = executor.supply(UpstreamExecutor.TMDB, "blocker", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+
+        List<String> order = new ArrayList<>();
+        List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String call = "large-" + i;
+            calls.add(executor.supply(UpstreamExecutor.TMDB, "large", () -> order.add(call)));
+        }
+        calls.add(executor.supply(UpstreamExecutor.TMDB, "small", () -> order.add("small-0")));
+        assertEquals(5L, executor.getStats().get(UpstreamExecutor.TMDB).get("queued"));
+        assertEquals(2L, executor.getStats().get(UpstreamExecutor.TMDB).get("queuedFlows"));
+
+        release.countDown();
+        blocker.get();
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get();
+
+        assertEquals(List.of("large-0", "small-0", "large-1", "large-2", "large-3"), order);
+    }
+
+    /**
+    * Test for supply. A call above the queue capacity of its lane is rejected right away, or
+    * answered with the fallback, and never run on the submitting thread.
+    */
+    @Test
+    void testFullLaneRejects() throws Exception {
+        ReflectionTestUtils.invokeMethod(executor, "shutdown");
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.invokeMethod(executor, "init");
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = executor.supply(UpstreamExecutor.UN, "blocker", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        CompletableFuture<Thread> queued = executor.supply(UpstreamExecutor.UN, "queued", Thread::currentThread);
+
+        CompletableFuture<Thread> rejected = executor.supply(UpstreamExecutor.UN, "rejected", Thread::currentThread);
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals("fallback", executor.supply(UpstreamExecutor.UN, "rejected", () -> "call", () -> "fallback")
+                .get());
+        assertEquals(2L, executor.getStats().get(UpstreamExecutor.UN).get("rejected"));
+
+        release.countDown();
+        blocker.get();
+        assertNotEquals(Thread.currentThread(), queued.get());
+    }
+}
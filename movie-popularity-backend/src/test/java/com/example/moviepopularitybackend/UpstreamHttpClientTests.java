@@ -0,0 +1,103 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.moviepopularitybackend.services.UpstreamHttpClient;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test class for testing the pooled upstream HTTP client against a local stub server
+ */
+public class UpstreamHttpClientTests {
+
+    private static final String BODY = "{\"page\":1,\"total_results\":42}";
+
+    private HttpServer server;
+    private String url;
+    private UpstreamHttpClient client;
+    private final AtomicInteger gzipResponses = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                gzipResponses.incrementAndGet();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/3/discover/movie";
+
+        client = new UpstreamHttpClient();
+        ReflectionTestUtils.setField(client, "maxConnections", 8);
+        ReflectionTestUtils.setField(client, "maxConnectionsPerHost", 4);
+        ReflectionTestUtils.setField(client, "keepAlive", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(client, "validateAfterInactivity", Duration.ofSeconds(2));
+        ReflectionTestUtils.invokeMethod(client, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(client, "shutdown");
+        server.stop(0);
+    }
+
+    /**
+    * Test for createRestTemplate. Sequential requests to the same host share one kept-alive
+    * connection, and the pool counters show the reuse.
+    */
+    @Test
+    void testConnectionsAreReused() {
+        RestTemplate restTemplate = client.createRestTemplate(Duration.ofSeconds(1), Duration.ofSeconds(1));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BODY, restTemplate.getForObject(url, String.class));
+        }
+
+        Map<String, Long> pool = client.getStats().get("pool");
+        assertEquals(5L, pool.get("requests"));
+        assertEquals(1L, pool.get("connectionsCreated"));
+        assertEquals(4L, pool.get("connectionsReused"));
+        assertEquals(0L, pool.get("leased"));
+        assertEquals(1L, pool.get("available"));
+    }
+
+    /**
+    * Test for createRestTemplate. Responses are requested with gzip and decompressed by the client.
+    */
+    @Test
+    void testGzipResponsesAreDecompressed() {
+        RestTemplate restTemplate = client.createRestTemplate(Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        assertEquals(BODY, restTemplate.getForObject(url, String.class));
+        assertEquals(1, gzipResponses.get());
+    }
+}
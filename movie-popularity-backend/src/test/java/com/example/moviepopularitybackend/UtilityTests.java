@@ -0,0 +1,57 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.Utility;
+
+/**
+ * Test class for testing the UN data parsing in Utility
+ */
+public class UtilityTests {
+
+    /**
+    * Builds one pipe separated UN data row with the columns read by the parser filled in.
+    */
+    static String row(String variant, int year, String sex, String ageGroup, String value) {
+        String[] values = new String[35];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "x" + i;
+        }
+        values[12] = variant;
+        values[16] = Integer.toString(year);
+        values[25] = sex;
+        values[27] = ageGroup;
+        values[31] = value;
+        return String.join("|", values);
+    }
+
+    /**
+    * Test for parseUnDataByYear. A response covering two years is split into one
+    * PopulationStatistics per year, ignoring rows of other variants.
+    */
+    @Test
+    void testParseUnDataByYearSplitsYears() {
+        String csv = "sep=|\n"
+                + row("Variant", 0, "Sex", "AgeLabel", "Value") + "\n"
+                + row("Median", 2000, "Both sexes", "15-19", "\"100.0\"") + "\n"
+                + row("Median", 2000, "Both sexes", "20-24", "\"50.0\"") + "\n"
+                + row("Median", 2000, "Male", "20-24", "\"20.0\"") + "\n"
+                + row("Lower 95 PI", 2000, "Both sexes", "20-24", "\"999.0\"") + "\n"
+                + row("Median", 2001, "Both sexes", "0-4", "\"7.0\"") + "\n";
+
+        Map<Integer, PopulationStatistics> byYear = Utility.parseUnDataByYear(csv, "246");
+
+        assertEquals(2, byYear.size());
+        PopulationStatistics year2000 = byYear.get(2000);
+        assertEquals("246", year2000.getCountry());
+        assertEquals(150, year2000.getIndicatorValue());
+        assertEquals(150, year2000.getPopulationAges().get("15-24").getBothSexesPopulation());
+        assertEquals(20, year2000.getPopulationAges().get("15-24").getMalePopulation());
+        assertEquals(7, byYear.get(2001).getPopulationAges().get("0-14").getBothSexesPopulation());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.moviepopularitybackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.moviepopularitybackend.model.MovieStatistics;
+import com.example.moviepopularitybackend.services.WarmCacheStore;
+import com.example.moviepopularitybackend.utility.RecordLog;
+
+/**
+ * Test class for testing the persistent movie and population records of WarmCacheStore
+ */
+public class WarmCacheStoreTests {
+
+    @TempDir
+    Path tempDir;
+
+    private WarmCacheStore store(int compactionThreshold) {
+        WarmCacheStore store = new WarmCacheStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "directory", tempDir.toString());
+        ReflectionTestUtils.setField(store, "compactionThreshold", compactionThreshold);
+        ReflectionTestUtils.setField(store, "staleRetention", Duration.ofDays(30));
+        ReflectionTestUtils.invokeMethod(store, "init");
+        return store;
+    }
+
+    /**
+    * Test for storeMovie. Refreshing the same records again and again compacts the log while
+    * the store runs, so the file keeps the latest record of each key and does not grow with
+    * every refresh.
+    */
+    @Test
+    void testRefreshesAreCompacted() throws IOException {
+        WarmCacheStore store = store(10);
+        for (int refresh = 0; refresh < 20; refresh++) {
+            for (int year = 2000; year < 2005; year++) {
+                store.storeMovie("28|de|" + year, new MovieStatistics("28", year, "de", refresh), Long.MAX_VALUE);
+            }
+        }
+
+        assertTrue(store.getStats().get("compactions") >= 5);
+        assertTrue(new RecordLog(tempDir.resolve("movies.log"), 4).readAll().size() < 15);
+
+        List<MovieStatistics> movies = new ArrayList<>();
+        store(10).loadMovies((movie, expiresAt) -> movies.add(movie));
+        assertEquals(5, movies.size());
+        assertEquals(19, movies.get(0).getMovieCount());
+    }
+
+    /**
+    * Test for loadMovies. A record that expired while the application was down is still loaded
+    * with its expiry time, so it can be served as the last known data, and a record expired for
+    * longer than the stale retention is dropped.
+    */
+    @Test
+    void testExpiredRecordsAreLoadedWithinRetention() {
+        long now = System.currentTimeMillis();
+        WarmCacheStore store = store(10);
+        store.storeMovie("28|de|2000", new MovieStatistics("28", 2000, "de", 1), now - Duration.ofDays(1).toMillis());
+        store.storeMovie("28|de|2001", new MovieStatistics("28", 2001, "de", 2), now - Duration.ofDays(31).toMillis());
+
+        List<MovieStatistics> movies = new ArrayList<>();
+        List<Long> expiries = new ArrayList<>();
+        store(10).loadMovies((movie, expiresAt) -> {
+            movies.add(movie);
+            expiries.add(expiresAt);
+        });
+        assertEquals(1, movies.size());
+        assertEquals(2000, movies.get(0).getYearValue());
+        assertEquals(now - Duration.ofDays(1).toMillis(), expiries.get(0));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test comparing the blocking {@code /combinedData} endpoint with the non-blocking
+ * {@code /combinedData/async} variant under many concurrent clients.
+ *
+ * <p>
+ * Each client repeatedly requests a random five year range for a random genre and country,
+ * so that requests rarely coalesce. Throughput, latency percentiles and the peak number of
+ * live threads of the backend (sampled from {@code /api/metrics}) are printed at the end.
+ * To measure upstream waiting rather than cache lookups, run the backend against
+ * {@link UpstreamStub} with the caches disabled by zero TTLs ({@code tmdb.cache.ttl-*=0},
+ * {@code un.cache.ttl-days=0}) and the persistent cache off.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code CombinedDataLoadTest <baseUrl> <path> <clients> <seconds>}, for example
+ * {@code CombinedDataLoadTest http://localhost:8080 /combinedData/async 500 30}.
+ * </p>
+ */
+public final class CombinedDataLoadTest {
+
+    private static final String[] COUNTRIES = { "Finland", "Germany", "Poland", "Sweden", "Netherlands", "Greece" };
+    private static final String[] GENRES = { "Action", "Comedy", "Drama", "Horror", "Romance", "Documentary" };
+    private static final Pattern LIVE_THREADS = Pattern.compile("\"threads\":\\{\"live\":(\\d+)");
+
+    private CombinedDataLoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args The base URL of the backend, the endpoint path, the number of concurrent
+     *             clients and the duration in seconds.
+     * @throws Exception if the test is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String path = args.length > 1 ? args[1] : "/combinedData";
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 30;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger peakThreads = new AtomicInteger();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            HttpRequest metrics = HttpRequest.newBuilder(URI.create(baseUrl + "/api/metrics")).build();
+            while (System.nanoTime() < deadline) {
+                try {
+                    Matcher live = LIVE_THREADS.matcher(httpClient.send(metrics, HttpResponse.BodyHandlers.ofString())
+                            .body());
+                    if (live.find()) {
+                        peakThreads.accumulateAndGet(Integer.parseInt(live.group(1)), Math::max);
+                    }
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    // Keep sampling, the backend may be saturated
+                }
+            }
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int startYear = 1960 + random.nextInt(55);
+                        String query = "?country=" + COUNTRIES[random.nextInt(COUNTRIES.length)]
+                                + "&genre=" + GENRES[random.nextInt(GENRES.length)]
+                                + "&startYear=" + startYear + "&endYear=" + (startYear + 4) + "&indicator=46";
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path + query))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = httpClient.send(request,
+                                    HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() == 200) {
+                                latencies.add(System.nanoTime() - start);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        sampler.join();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        long[] millis = sorted.stream().mapToLong(nanos -> nanos / 1_000_000).toArray();
+        Arrays.sort(millis);
+        System.out.printf("%s with %d clients for %d s%n", path, clients, seconds);
+        System.out.printf("  requests: %d ok, %d failed, %.1f req/s%n", millis.length, errors.get(),
+                millis.length / (double) seconds);
+        if (millis.length > 0) {
+            System.out.printf("  latency ms: p50 %d, p90 %d, p99 %d, max %d%n", percentile(millis, 0.50),
+                    percentile(millis, 0.90), percentile(millis, 0.99), millis[millis.length - 1]);
+        }
+        System.out.printf("  backend peak live threads: %d%n", peakThreads.get());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import com.example.moviepopularitybackend.model.AgeBucket;
+import com.example.moviepopularitybackend.model.AgeGroup;
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.UnCsvParser;
+
+/**
+ * Measures the retained heap of one cached PopulationStatistics record with JOL, comparing the
+ * compact age group storage with the former layout of a HashMap of four AgeGroup objects.
+ *
+ * <p>
+ * The records are parsed from a WPP payload. Objects shared by every record of a country, the
+ * country number and the age group labels, are not counted. Run with {@code mvn test-compile}
+ * followed by running {@link #main} with the test classpath.
+ * JOL attaches its agent to read the object sizes; on JDK 21 and later pass
+ * {@code -Djdk.attach.allowAttachSelf} to allow that.
+ * </p>
+ */
+public class PopulationFootprint {
+
+    /** The former layout of PopulationStatistics, with one map entry and AgeGroup per category. */
+    @SuppressWarnings("unused")
+    private static final class MapBackedPopulationStatistics {
+        private final String country;
+        private final int year;
+        private final double indicatorValue;
+        private final Map<String, AgeGroup> populationAgeGroups;
+        private boolean stale;
+
+        private MapBackedPopulationStatistics(PopulationStatistics population) {
+            this.country = population.getCountry();
+            this.year = population.getYear();
+            this.indicatorValue = population.getIndicatorValue();
+            this.populationAgeGroups = population.getPopulationAges();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int years = 50;
+        UnCsvParser parser = new UnCsvParser("276");
+        parser.parse(new ByteArrayInputStream(WppPayload.bytes(1970, 1970 + years - 1)));
+        PopulationStatistics[] compact = parser.getPopulationsByYear().values().toArray(new PopulationStatistics[0]);
+        Object[] mapBacked = new Object[compact.length];
+        for (int i = 0; i < compact.length; i++) {
+            mapBacked[i] = new MapBackedPopulationStatistics(compact[i]);
+        }
+
+        Object[] shared = new Object[AgeBucket.values().length + 1];
+        shared[0] = compact[0].getCountry();
+        for (AgeBucket bucket : AgeBucket.values()) {
+            shared[bucket.ordinal() + 1] = bucket.getLabel();
+        }
+        GraphLayout sharedLayout = GraphLayout.parseInstance(shared);
+        GraphLayout compactLayout = GraphLayout.parseInstance((Object[]) compact).subtract(sharedLayout);
+        GraphLayout mapBackedLayout = GraphLayout.parseInstance(mapBacked).subtract(sharedLayout);
+
+        System.out.println(ClassLayout.parseInstance(compact[0]).toPrintable());
+        System.out.println("Map backed records:");
+        System.out.println(mapBackedLayout.toFootprint());
+        System.out.println("Compact records:");
+        System.out.println(compactLayout.toFootprint());
+        System.out.printf("Per record: map backed %d bytes, compact %d bytes, %d objects instead of %d%n",
+                mapBackedLayout.totalSize() / years, compactLayout.totalSize() / years,
+                compactLayout.totalCount() / years, mapBackedLayout.totalCount() / years);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.moviepopularitybackend.model.UserPreferences;
+import com.example.moviepopularitybackend.services.SaveService;
+
+/**
+ * JMH benchmark of saved preferences per second with {@link SaveService}, comparing the
+ * synchronous mode, which syncs the log on every save, with write-behind mode, which syncs
+ * one batch of saves at a time.
+ *
+ * <p>
+ * Several threads save at once, as concurrent requests do. Every operation saves a new
+ * preference and deletes it again, so the store keeps its size and compactions cost the same
+ * throughout; both are logged changes. The files are written to a temporary directory, put it
+ * on the disk of interest with {@code -Djava.io.tmpdir}, since the cost of a sync depends on
+ * the device. Run with {@code mvn test-compile} followed by running {@link #main} with the
+ * test classpath.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class PreferenceSaveBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean writeBehind;
+
+    private Path directory;
+    private SaveService service;
+    private final AtomicLong counter = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("preferences-benchmark");
+        service = new SaveService();
+        ReflectionTestUtils.setField(service, "fileName", directory.resolve("preferences.json").toString());
+        ReflectionTestUtils.setField(service, "compactionThreshold", 1000);
+        ReflectionTestUtils.setField(service, "writeBehind", writeBehind);
+        ReflectionTestUtils.setField(service, "flushInterval", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(service, "flushBatchSize", 500);
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+        System.out.println(service.getStats());
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long saveAndDelete() {
+        long i = counter.incrementAndGet();
+        long id = service.savePreference(new UserPreferences("Action", "Finland", "46", Long.toString(i), "2020"));
+        service.deletePreferenceById(id);
+        return id;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PreferenceSaveBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.moviepopularitybackend.utility.TmdbResponseParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JMH benchmark comparing ways of reading {@code total_results} from a full TMDB discover
+ * result page of twenty movies.
+ *
+ * <p>
+ * The previous implementation decoded the body into a String and bound it to a map with a new
+ * ObjectMapper per response, which also rebuilds the mapper's caches every time. The shared
+ * mapper variant isolates the cost of binding the page to a map, and the streaming variant is
+ * {@link TmdbResponseParser} reading straight from the response bytes. Run with
+ * {@code mvn test-compile} followed by running {@link #main} with the test classpath, the GC
+ * profiler reports the allocation per operation.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TmdbResponseParsingBenchmark {
+
+    private static final ObjectMapper SHARED_MAPPER = new ObjectMapper();
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = UpstreamStub.discoverPage(1, 2561).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int mapperPerResponse() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> map = mapper.readValue(new String(payload, StandardCharsets.UTF_8), Map.class);
+        return (Integer) map.get("total_results");
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int sharedMapper() throws IOException {
+        Map<String, Object> map = SHARED_MAPPER.readValue(payload, Map.class);
+        return (Integer) map.get("total_results");
+    }
+
+    @Benchmark
+    public int streamingParser() throws IOException {
+        return TmdbResponseParser.readTotalResults(new ByteArrayInputStream(payload));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TmdbResponseParsingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.moviepopularitybackend.model.PopulationStatistics;
+import com.example.moviepopularitybackend.utility.UnCsvParser;
+import com.example.moviepopularitybackend.utility.Utility;
+
+/**
+ * JMH benchmark comparing the String based {@link Utility#parseUnDataByYear} with the
+ * streaming {@link UnCsvParser} on a WPP population by age payload.
+ *
+ * <p>
+ * Both variants start from the response bytes: the String based parser pays for decoding the
+ * body into a String, as RestTemplate does for it, the streaming parser reads the bytes directly.
+ * Run with {@code mvn test-compile} followed by running {@link #main} with the test classpath,
+ * the GC profiler reports the allocation per operation.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnCsvParserBenchmark {
+
+    /** Number of years in the payload, a single year request or a range request. */
+    @Param({ "1", "50" })
+    private int years;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = WppPayload.bytes(1970, 1970 + years - 1);
+    }
+
+    @Benchmark
+    public Map<Integer, PopulationStatistics> stringSplitParser() {
+        return Utility.parseUnDataByYear(new String(payload, StandardCharsets.UTF_8), "276");
+    }
+
+    @Benchmark
+    public Map<Integer, PopulationStatistics> streamingParser() throws IOException {
+        UnCsvParser parser = new UnCsvParser("276");
+        parser.parse(new ByteArrayInputStream(payload));
+        return parser.getPopulationsByYear();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UnCsvParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
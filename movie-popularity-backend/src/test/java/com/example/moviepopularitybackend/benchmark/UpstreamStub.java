@@ -0,0 +1,119 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the TMDB and UN APIs used by the load tests. Every response is delayed
+ * by a fixed latency, so that the backend spends its time waiting on upstream calls the way it
+ * does in production, without hitting the real services or their rate limits.
+ *
+ * <p>
+ * Run with the test classpath: {@code UpstreamStub <port> <latencyMillis>}, then start the
+ * backend with {@code tmdb.api.url} and {@code un.api.url} pointing to the stub.
+ * </p>
+ */
+public final class UpstreamStub {
+
+    private static final Pattern PAGE = Pattern.compile("(?:^|&)page=(\\d+)");
+    private static final Pattern UN_RANGE = Pattern.compile("/start/(\\d+)/end/(\\d+)");
+
+    private UpstreamStub() {
+    }
+
+    /**
+     * Starts a stub server that answers TMDB discover requests and UN population requests.
+     *
+     * @param port          The port to listen on, 0 picks a free one.
+     * @param latencyMillis The delay before every response.
+     * @return The started server.
+     * @throws IOException if the server cannot be started.
+     */
+    public static HttpServer start(int port, long latencyMillis) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/3/discover/movie", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            Matcher pageMatcher = PAGE.matcher(query);
+            int page = pageMatcher.find() ? Integer.parseInt(pageMatcher.group(1)) : 1;
+            int totalResults = 100 + Math.abs(PAGE.matcher(query).replaceAll("").hashCode() % 5000);
+            respond(exchange, latencyMillis, "application/json", discoverPage(page, totalResults));
+        });
+        server.createContext("/v1/data/indicators/", exchange -> {
+            Matcher range = UN_RANGE.matcher(exchange.getRequestURI().getPath());
+            if (!range.find()) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("pages", "1");
+            respond(exchange, latencyMillis, "text/csv",
+                    WppPayload.csv(Integer.parseInt(range.group(1)), Integer.parseInt(range.group(2))));
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * Builds one page of discover results with twenty movies per page, like TMDB.
+     *
+     * @param page         The number of the page, starting from 1.
+     * @param totalResults The total number of movies matching the query.
+     * @return The JSON of the page.
+     */
+    public static String discoverPage(int page, int totalResults) {
+        int totalPages = (totalResults + 19) / 20;
+        StringBuilder json = new StringBuilder("{\"page\":").append(page).append(",\"results\":[");
+        int first = (page - 1) * 20;
+        for (int movie = first; movie < Math.min(first + 20, totalResults); movie++) {
+            if (movie > first) {
+                json.append(',');
+            }
+            json.append("{\"adult\":false,\"genre_ids\":[35,18],\"id\":").append(1000 + movie)
+                    .append(",\"original_title\":\"Movie ").append(movie)
+                    .append("\",\"popularity\":").append(1.5 + movie % 40)
+                    .append(",\"title\":\"Movie ").append(movie)
+                    .append("\",\"vote_average\":").append((movie % 10) + 0.5)
+                    .append(",\"vote_count\":").append(movie % 300).append('}');
+        }
+        return json.append("],\"total_pages\":").append(totalPages).append(",\"total_results\":")
+                .append(totalResults).append('}').toString();
+    }
+
+    private static void respond(HttpExchange exchange, long latencyMillis, String contentType, String body)
+            throws IOException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Runs the stub server until the process is stopped.
+     *
+     * @param args The port and the response latency in milliseconds.
+     * @throws IOException if the server cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        HttpServer server = start(port, latencyMillis);
+        System.out.println("Upstream stub listening on port " + server.getAddress().getPort() + " with "
+                + latencyMillis + " ms latency");
+    }
+}
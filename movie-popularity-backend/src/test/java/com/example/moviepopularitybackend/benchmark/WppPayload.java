@@ -0,0 +1,70 @@
+package com.example.moviepopularitybackend.benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds CSV payloads in the layout served by the UN WPP data portal API, used by the
+ * parser benchmarks and tests.
+ */
+public final class WppPayload {
+
+    /** Header row of the UN API CSV format. */
+    public static final String HEADER = "LocationId|Location|Iso3|Iso2|LocationTypeId|IndicatorId|Indicator|"
+            + "IndicatorDisplayName|SourceId|Source|Revision|VariantId|Variant|VariantShortName|VariantLabel|"
+            + "TimeId|TimeLabel|TimeMid|CategoryId|Category|EstimateTypeId|EstimateType|EstimateMethodId|"
+            + "EstimateMethod|SexId|Sex|AgeId|AgeLabel|AgeStart|AgeEnd|AgeMid|Value";
+
+    private static final String[] VARIANTS = { "Median", "Lower 80 PI", "Upper 80 PI", "Lower 95 PI",
+            "Upper 95 PI" };
+    private static final String[] SEXES = { "Male", "Female", "Both sexes" };
+    private static final String[] AGES = { "0-4", "5-9", "10-14", "15-19", "20-24", "25-29", "30-34", "35-39",
+            "40-44", "45-49", "50-54", "55-59", "60-64", "65-69", "70-74", "75-79", "80-84", "85-89", "90-94",
+            "95-99", "100+" };
+
+    private WppPayload() {
+    }
+
+    /**
+     * Builds the response of a population by age request for Germany covering the given years,
+     * with every projection variant, sex and five year age group.
+     *
+     * @param startYear The first year of the payload.
+     * @param endYear   The last year of the payload.
+     * @return The CSV payload.
+     */
+    public static String csv(int startYear, int endYear) {
+        StringBuilder csv = new StringBuilder("sep=|\n").append(HEADER).append('\n');
+        for (int year = startYear; year <= endYear; year++) {
+            for (int variant = 0; variant < VARIANTS.length; variant++) {
+                for (int sex = 0; sex < SEXES.length; sex++) {
+                    for (int age = 0; age < AGES.length; age++) {
+                        double value = 400_000.0 + year * 7.25 + age * 1_003.5 + sex * 211.0 + variant * 17.0;
+                        csv.append("276|Germany|DEU|DE|4|46|Population by 5-year age groups and sex|"
+                                + "Population by age and sex|26|World Population Prospects|2022|")
+                                .append(variant + 4).append('|').append(VARIANTS[variant]).append('|')
+                                .append(VARIANTS[variant]).append('|').append(VARIANTS[variant]).append('|')
+                                .append(year - 1949).append("|\"").append(year).append("\"|")
+                                .append(year).append(".5|0|Total|6|Model-based Estimates|1|Interpolation|")
+                                .append(sex + 1).append('|').append(SEXES[sex]).append('|')
+                                .append(age + 1).append('|').append(AGES[age]).append('|')
+                                .append(age * 5).append('|').append(age * 5 + 4).append('|')
+                                .append(age * 5 + 2.5).append("|\"").append(value).append("\"\n");
+                    }
+                }
+            }
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Builds the same payload as {@link #csv(int, int)} encoded as UTF-8 bytes, the way it arrives
+     * on the response stream.
+     *
+     * @param startYear The first year of the payload.
+     * @param endYear   The last year of the payload.
+     * @return The CSV payload bytes.
+     */
+    public static byte[] bytes(int startYear, int endYear) {
+        return csv(startYear, endYear).getBytes(StandardCharsets.UTF_8);
+    }
+}